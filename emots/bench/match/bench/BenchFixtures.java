@@ -0,0 +1,97 @@
+package match.bench;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import match.FieldPosition;
+import match.MatchEvent;
+import match.MatchRules;
+import match.MatchTactic;
+import match.Player;
+import match.PlayerPosition;
+import match.StandardMatchRules;
+import match.Team;
+import match.standard.events.HomeVersusGuest;
+import match.standard.events.Penalty;
+import match.standard.events.RedCard;
+
+/** Builds the teams, tactics, event sets and rules the benchmarks run on.
+ * Everything is derived from a fixed seed, so every fork of a benchmark
+ * plays the same matches.
+ *
+ * @author nibah
+ */
+final class BenchFixtures {
+    static final long SEED = 0x5EED;
+    private static final FieldPosition[] DUEL_POSITIONS = {
+        FieldPosition.PLAYER, FieldPosition.GOALIE, FieldPosition.DEFENDER,
+        FieldPosition.MIDFIELDER, FieldPosition.ATTACKER
+    };
+    // the positions of the first eleven players, in the order of the 4-4-2 tactic
+    private static final PlayerPosition[] LINEUP = {
+        PlayerPosition.GOALIE,
+        PlayerPosition.DEFENDER, PlayerPosition.DEFENDER, PlayerPosition.DEFENDER, PlayerPosition.DEFENDER,
+        PlayerPosition.MIDFIELDER, PlayerPosition.MIDFIELDER, PlayerPosition.MIDFIELDER, PlayerPosition.MIDFIELDER,
+        PlayerPosition.ATTACKER, PlayerPosition.ATTACKER
+    };
+    private static final FieldPosition[] FORMATION = {
+        FieldPosition.GOALIE,
+        FieldPosition.DEFENDER, FieldPosition.DEFENDER, FieldPosition.DEFENDER, FieldPosition.DEFENDER,
+        FieldPosition.MIDFIELDER, FieldPosition.MIDFIELDER, FieldPosition.MIDFIELDER, FieldPosition.MIDFIELDER,
+        FieldPosition.ATTACKER, FieldPosition.ATTACKER
+    };
+
+    private BenchFixtures() {
+    }
+
+    /** Builds a team of squadSize players (at least 11). The first eleven are
+        the lineup of tactic(Team), the others are rookies. */
+    static Team team(String name, int squadSize, Random random) {
+        if (squadSize < LINEUP.length)
+            throw new IllegalArgumentException("a squad needs at least " + LINEUP.length + " players");
+        Player[] players = new Player[squadSize];
+        for (int i = 0; i < squadSize; i++)
+            players[i] = new Player(name + i, i < LINEUP.length ? LINEUP[i] : PlayerPosition.ROOKIE,
+                    1 + random.nextInt(5));
+        return new Team(name, players);
+    }
+
+    /** Builds a 4-4-2 tactic with the first eleven players of the team. */
+    static MatchTactic tactic(Team team) {
+        Player[] players = team.getPlayers();
+        Map<Player, FieldPosition> formation = new LinkedHashMap<>();
+        for (int i = 0; i < FORMATION.length; i++)
+            formation.put(players[i], FORMATION[i]);
+        return new MatchTactic(formation);
+    }
+
+    /** Builds a set of count events: duels between all combinations of
+        positions, with a penalty and a red card in every eight events. */
+    static Set<MatchEvent> events(int count) {
+        Set<MatchEvent> events = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            if (i % 8 == 3)
+                events.add(new Penalty("Penalty", ""));
+            else if (i % 8 == 7)
+                events.add(new RedCard("Red Card", ""));
+            else
+                events.add(new HomeVersusGuest("Duel", "",
+                        DUEL_POSITIONS[i % DUEL_POSITIONS.length],
+                        DUEL_POSITIONS[i / DUEL_POSITIONS.length % DUEL_POSITIONS.length]));
+        }
+        return events;
+    }
+
+    /** The standard rules, played for the given number of rounds. */
+    static MatchRules rules(int rounds) {
+        StandardMatchRules standard = new StandardMatchRules();
+        return new StandardMatchRules(standard.getFormationPatterns(), rounds, standard.getMinPlayers(),
+                standard.getMaxPlayers(), standard.getMaxSubs(), standard.substituteBackAllowed());
+    }
+
+    static Random random() {
+        return new Random(SEED);
+    }
+}
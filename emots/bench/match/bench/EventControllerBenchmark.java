@@ -0,0 +1,66 @@
+package match.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import match.MatchEvent;
+import match.RandomSource;
+import match.SplittableRandomSource;
+import match.standard.StandardMatchEventController;
+import match.standard.WeightedMatchEventController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Rolls events with the uniform and the weighted event controller.
+ *
+ * @author nibah
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventControllerBenchmark {
+    @Param({"4", "16", "64"})
+    int eventCount;
+
+    private StandardMatchEventController standard;
+    private WeightedMatchEventController weighted;
+    private RandomSource random;
+
+    @Setup
+    public void setUp() {
+        standard = new StandardMatchEventController(BenchFixtures.events(eventCount));
+        Map<MatchEvent, Double> weights = new HashMap<>();
+        int i = 0;
+        for (MatchEvent event : standard.getEvents())
+            weights.put(event, 1.0 + i++ % 5);
+        weighted = new WeightedMatchEventController(weights);
+        random = new SplittableRandomSource(BenchFixtures.SEED);
+    }
+
+    @Benchmark
+    public MatchEvent rollEvent() {
+        return standard.rollEvent();
+    }
+
+    @Benchmark
+    public MatchEvent rollEventWithSource() {
+        return standard.rollEvent(random);
+    }
+
+    @Benchmark
+    public MatchEvent rollWeightedEvent() {
+        return weighted.rollEvent(random);
+    }
+}
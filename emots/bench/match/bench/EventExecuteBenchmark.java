@@ -0,0 +1,84 @@
+package match.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import match.FieldPosition;
+import match.Match;
+import match.MatchEvent;
+import match.SplittableRandomSource;
+import match.Team;
+import match.standard.StandardMatchEventController;
+import match.standard.events.GuestPenalty;
+import match.standard.events.HomePenalty;
+import match.standard.events.HomeVersusGuest;
+import match.standard.events.Penalty;
+import match.standard.events.RedCard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Executes a single event of match.standard.events over and over on the
+ * same match. The match is replaced for every iteration, as the messages
+ * and the players sent off pile up while an iteration runs.
+ *
+ * @author nibah
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventExecuteBenchmark {
+    @Param({"HomeVersusGuest", "Penalty", "HomePenalty", "GuestPenalty", "RedCard"})
+    String event;
+    @Param({"15", "25"})
+    int squadSize;
+    @Param({"true", "false"})
+    boolean recording;
+
+    private MatchEvent matchEvent;
+    private Team home, guest;
+    private Match match;
+
+    @Setup
+    public void setUp() {
+        switch (event) {
+            case "HomeVersusGuest":
+                matchEvent = new HomeVersusGuest("Duel", "", FieldPosition.ATTACKER, FieldPosition.DEFENDER);
+                break;
+            case "Penalty":         matchEvent = new Penalty("Penalty", ""); break;
+            case "HomePenalty":     matchEvent = new HomePenalty(); break;
+            case "GuestPenalty":    matchEvent = new GuestPenalty(); break;
+            case "RedCard":         matchEvent = new RedCard("Red Card", ""); break;
+            default: throw new IllegalArgumentException("unknown event " + event);
+        }
+        Random random = BenchFixtures.random();
+        home = BenchFixtures.team("Home", squadSize, random);
+        guest = BenchFixtures.team("Guest", squadSize, random);
+    }
+
+    @Setup(Level.Iteration)
+    public void newMatch() {
+        StandardMatchEventController controller = new StandardMatchEventController();
+        controller.addEvent(matchEvent);
+        match = new Match(home, guest, BenchFixtures.tactic(home), BenchFixtures.tactic(guest),
+                BenchFixtures.rules(1), controller, new SplittableRandomSource(BenchFixtures.SEED));
+        match.setRecording(recording);
+    }
+
+    @Benchmark
+    public Match execute() {
+        matchEvent.execute(match);
+        return match;
+    }
+}
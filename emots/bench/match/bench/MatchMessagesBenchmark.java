@@ -0,0 +1,89 @@
+package match.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import match.FieldPosition;
+import match.Match;
+import match.MatchMessages;
+import match.Player;
+import match.SplittableRandomSource;
+import match.Team;
+import match.standard.StandardMatchEventController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Logs the messages of a match with the given number of rounds into a new
+ * MatchMessages object, and renders a log of that size.
+ *
+ * @author nibah
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchMessagesBenchmark {
+    @Param({"6", "90"})
+    int rounds;
+
+    private Match match;
+    private Player shooter, goalie;
+    private MatchMessages log;              // a full log for rendering
+    private final StringBuilder out = new StringBuilder();
+
+    @Setup
+    public void setUp() {
+        Team home = BenchFixtures.team("Home", 15, BenchFixtures.random());
+        Team guest = BenchFixtures.team("Guest", 15, BenchFixtures.random());
+        match = new Match(home, guest, BenchFixtures.tactic(home), BenchFixtures.tactic(guest),
+                BenchFixtures.rules(rounds), new StandardMatchEventController(),
+                new SplittableRandomSource(BenchFixtures.SEED));
+        shooter = home.getPlayers()[10];
+        goalie = guest.getPlayers()[0];
+        log = append(new MatchMessages(match));
+    }
+
+    /* Logs a duel, a penalty or a red card for every round */
+    private MatchMessages append(MatchMessages messages) {
+        for (int round = 0; round < rounds; round++)
+            switch (round % 3) {
+                case 0:
+                    messages.logDuel(round, FieldPosition.ATTACKER, FieldPosition.DEFENDER, 9, 13);
+                    break;
+                case 1:
+                    messages.logPenalty(round, true, shooter, goalie);
+                    break;
+                default:
+                    messages.logRedCard(round, false, goalie);
+            }
+        return messages;
+    }
+
+    @Benchmark
+    public MatchMessages log() {
+        return append(new MatchMessages(match));
+    }
+
+    @Benchmark
+    public StringBuilder renderIntoBuilder() throws IOException {
+        out.setLength(0);
+        for (int i = 0; i < log.numberOfMessages(); i++)
+            log.appendMessage(i, out);
+        return out;
+    }
+
+    @Benchmark
+    public String[] renderAllMessages() {
+        return log.getAllMessages();
+    }
+}
@@ -0,0 +1,71 @@
+package match.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import match.Match;
+import match.MatchRules;
+import match.MatchTactic;
+import match.Result;
+import match.SplittableRandomSource;
+import match.Team;
+import match.standard.StandardMatchEventController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Plays whole matches: checking the tactics, rolling and executing the
+ * events of every round, logging the messages and evaluating the result.
+ * Suspensions are not applied, so every invocation plays the same lineups.
+ *
+ * @author nibah
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchPlayBenchmark {
+    @Param({"15", "25"})
+    int squadSize;
+    @Param({"4", "16"})
+    int eventCount;
+    @Param({"6", "90"})
+    int rounds;
+    @Param({"true", "false"})
+    boolean recording;
+
+    private Team home, guest;
+    private MatchTactic homeTactic, guestTactic;
+    private StandardMatchEventController controller;
+    private MatchRules rules;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        Random random = BenchFixtures.random();
+        home = BenchFixtures.team("Home", squadSize, random);
+        guest = BenchFixtures.team("Guest", squadSize, random);
+        homeTactic = BenchFixtures.tactic(home);
+        guestTactic = BenchFixtures.tactic(guest);
+        controller = new StandardMatchEventController(BenchFixtures.events(eventCount));
+        rules = BenchFixtures.rules(rounds);
+    }
+
+    @Benchmark
+    public Result play() {
+        Match match = new Match(home, guest, homeTactic, guestTactic,
+                rules, controller, new SplittableRandomSource(seed++));
+        match.setRecording(recording);
+        match.play(false);
+        return match.getResult();
+    }
+}
@@ -0,0 +1,81 @@
+package match.bench;
+
+import java.util.concurrent.TimeUnit;
+import match.FieldPosition;
+import match.FormationPattern;
+import match.MatchTactic;
+import match.Player;
+import match.PlayerPosition;
+import match.StandardFormationPattern;
+import match.StandardMatchRules;
+import match.Team;
+import match.ValidationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Queries a 4-4-2 tactic and checks it against the standard rules.
+ *
+ * @author nibah
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TacticBenchmark {
+    @Param({"15", "25"})
+    int squadSize;
+
+    private MatchTactic tactic;
+    private FormationPattern legalPattern, otherPattern;
+    private StandardMatchRules rules;
+
+    @Setup
+    public void setUp() {
+        Team team = BenchFixtures.team("Team", squadSize, BenchFixtures.random());
+        tactic = BenchFixtures.tactic(team);
+        legalPattern = new StandardFormationPattern(4, 4, 2);
+        otherPattern = new StandardFormationPattern(5, 4, 1);
+        rules = new StandardMatchRules();
+    }
+
+    @Benchmark
+    public Player[] getPositionByFieldPosition() {
+        return tactic.getPosition(FieldPosition.MIDFIELDER);
+    }
+
+    @Benchmark
+    public Player[] getPositionByPlayerPosition() {
+        return tactic.getPosition(PlayerPosition.DEFENDER);
+    }
+
+    @Benchmark
+    public boolean matchesPattern() {
+        return tactic.matchesPattern(legalPattern);
+    }
+
+    @Benchmark
+    public boolean matchesOtherPattern() {
+        return tactic.matchesPattern(otherPattern);
+    }
+
+    @Benchmark
+    public boolean allowedTactic() {
+        return rules.allowedTactic(tactic);
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return rules.validate(tactic);
+    }
+}
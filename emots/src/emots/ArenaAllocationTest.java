@@ -0,0 +1,79 @@
+package emots;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import match.*;
+import match.standard.*;
+import match.standard.events.*;
+
+/** Checks that a MatchArena plays without allocating per round: a long match
+ * should allocate as much as a short one once the arena is warmed up.
+ */
+public class ArenaAllocationTest {
+    private static final int WARMUP = 20000;
+    private static final int MATCHES = 10000;
+
+    public void test() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        // Create teams and tactics
+        Team avas = team("Avas Alpacas");
+        Team pampa = team("Pampa Pickles");
+        MatchTactic avasTactic = new MatchTactic(form442(avas));
+        MatchTactic pampaTactic = new MatchTactic(form442(pampa));
+
+        //Create match events and event controller
+        StandardMatchEventController ec = new StandardMatchEventController();
+        ec.addEvent(new HomeVersusGuest("","",FieldPosition.ATTACKER,FieldPosition.DEFENDER));
+        ec.addEvent(new HomeVersusGuest("","",FieldPosition.MIDFIELDER,FieldPosition.MIDFIELDER));
+        ec.addEvent(new HomeVersusGuest("","",FieldPosition.DEFENDER,FieldPosition.ATTACKER));
+        ec.addEvent(new Penalty("",""));
+
+        FormationPattern[] patterns = new StandardMatchRules().getFormationPatterns();
+        int[] rounds = {6, 60};
+        double[] bytesPerMatch = new double[rounds.length];
+        for (int r = 0; r < rounds.length; r++) {
+            MatchArena arena = new MatchArena(
+                    new StandardMatchRules(patterns, rounds[r], 9, 11, 3, false), ec);
+            // warm up until the message log has grown to the length of a match
+            for (int i = 0; i < WARMUP; i++)
+                arena.play(avas, pampa, avasTactic, pampaTactic, i);
+            long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            for (int i = 0; i < MATCHES; i++)
+                arena.play(avas, pampa, avasTactic, pampaTactic, i);
+            long after = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            bytesPerMatch[r] = (double) (after - before) / MATCHES;
+            System.out.printf("%d rounds: %.1f bytes per match%n", rounds[r], bytesPerMatch[r]);
+        }
+        double perRound = (bytesPerMatch[1] - bytesPerMatch[0]) / (rounds[1] - rounds[0]);
+        System.out.printf("%.2f bytes per round%n", perRound);
+        if (perRound > 1)
+            throw new AssertionError("MatchArena allocates " + perRound + " bytes per round");
+    }
+
+    private Team team(String name) {
+        Player[] players = new Player[15];
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(name + " " + i, PlayerPosition.ATTACKER, 1 + i % 5);
+        return new Team(name, players);
+    }
+
+    private Map<Player, FieldPosition> form442(Team team) {
+        Player[] players = team.getPlayers();
+        Map<Player, FieldPosition> formation = new HashMap<>();
+        formation.put(players[0], FieldPosition.GOALIE);
+        for (int i = 1; i<5; i++)
+            formation.put(players[i], FieldPosition.DEFENDER);
+        for (int i = 5; i<9; i++)
+            formation.put(players[i], FieldPosition.MIDFIELDER);
+        for (int i = 9; i<11; i++)
+            formation.put(players[i], FieldPosition.ATTACKER);
+        return formation;
+    }
+
+    public static void main(String[] args) {
+        new ArenaAllocationTest().test();
+    }
+}
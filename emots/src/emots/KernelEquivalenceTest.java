@@ -0,0 +1,83 @@
+package emots;
+
+import java.util.HashMap;
+import java.util.Map;
+import match.*;
+import match.analysis.*;
+import match.league.Fixture;
+import match.standard.*;
+import match.standard.events.*;
+
+/** Checks that the replay kernel of the OutcomeEstimator gives the same
+ * estimate as playing every replay with a Match: the estimator compiles
+ * StandardMatchEventController itself, but has to play a subclass of it one
+ * Match after another.
+ */
+public class KernelEquivalenceTest {
+    private static final long REPLAYS = 20000;
+    private static final long SEED = 4711;
+
+    public void test() {
+        // Create teams and tactics
+        Team avas = team("Avas Alpacas");
+        Team pampa = team("Pampa Pickles");
+        Fixture fixture = new Fixture(avas, pampa,
+                new MatchTactic(form442(avas)), new MatchTactic(form442(pampa)));
+
+        //Create the compiled and the played event controller with the same events
+        StandardMatchEventController compiled = new StandardMatchEventController();
+        StandardMatchEventController played = new StandardMatchEventController() {};
+        for (StandardMatchEventController ec : new StandardMatchEventController[] {compiled, played}) {
+            ec.addEvent(new HomeVersusGuest("","",FieldPosition.ATTACKER,FieldPosition.DEFENDER));
+            ec.addEvent(new HomeVersusGuest("","",FieldPosition.MIDFIELDER,FieldPosition.MIDFIELDER));
+            ec.addEvent(new HomeVersusGuest("","",FieldPosition.DEFENDER,FieldPosition.ATTACKER));
+            ec.addEvent(new Penalty("",""));
+            ec.addEvent(new RedCard("",""));
+        }
+
+        OutcomeEstimate expected = new OutcomeEstimator(fixture, StandardMatchRules::new, played)
+                .estimate(REPLAYS, SEED);
+        OutcomeEstimate actual = new OutcomeEstimator(fixture, StandardMatchRules::new, compiled)
+                .estimate(REPLAYS, SEED);
+        System.out.println("played:   " + expected);
+        System.out.println("compiled: " + actual);
+
+        check(expected.getReplays() == actual.getReplays(), "replays");
+        for (Winner winner : Winner.values())
+            check(expected.getCount(winner) == actual.getCount(winner), winner.toString());
+        check(expected.getMaxGoals() == actual.getMaxGoals(), "maximum goals");
+        for (int home = 0; home <= expected.getMaxGoals(); home++)
+            for (int guest = 0; guest <= expected.getMaxGoals(); guest++)
+                check(expected.getScoreCount(home, guest) == actual.getScoreCount(home, guest),
+                        home + ":" + guest);
+    }
+
+    private void check(boolean equal, String what) {
+        if (!equal)
+            throw new AssertionError("The compiled replays differ in " + what);
+    }
+
+    private Team team(String name) {
+        Player[] players = new Player[15];
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(name + " " + i, PlayerPosition.ATTACKER, 1 + i % 5);
+        return new Team(name, players);
+    }
+
+    private Map<Player, FieldPosition> form442(Team team) {
+        Player[] players = team.getPlayers();
+        Map<Player, FieldPosition> formation = new HashMap<>();
+        formation.put(players[0], FieldPosition.GOALIE);
+        for (int i = 1; i<5; i++)
+            formation.put(players[i], FieldPosition.DEFENDER);
+        for (int i = 5; i<9; i++)
+            formation.put(players[i], FieldPosition.MIDFIELDER);
+        for (int i = 9; i<11; i++)
+            formation.put(players[i], FieldPosition.ATTACKER);
+        return formation;
+    }
+
+    public static void main(String[] args) {
+        new KernelEquivalenceTest().test();
+    }
+}
@@ -2,39 +2,24 @@ package emots;
 
 import match.standard.events.GuestPenalty;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import match.*;
 import match.standard.*;
 import match.standard.events.*;
+import match.roster.*;
 
 public class MatchPlayTest {
     private String fileName = "data/players";
     
     public void test() throws IOException {
         // Read the tams from a file
-        List<String> lines = Files.readAllLines(Paths.get(fileName));
-        List<Player> players = new ArrayList<>();
-        for (String line : lines) {
-            String[] parsed = line.split(" ");
-            PlayerPosition pos = null;
-            switch(parsed[1].toLowerCase()) {
-                case "goalie"       : pos = PlayerPosition.GOALIE; break;
-                case "defender"     : pos = PlayerPosition.DEFENDER; break;
-                case "midfielder"   : pos = PlayerPosition.MIDFIELDER; break;
-                case "attacker"     : pos = PlayerPosition.ATTACKER; break;
-                case "rookie"       : pos = PlayerPosition.ROOKIE; break;
-            }
-            players.add(new Player(parsed[0],pos,Integer.parseInt(parsed[2])));
-        }
-        Player[] plyrs = players.toArray(new Player[0]);
-        Team avas = new Team("Avas Alpacas", Arrays.copyOf(plyrs, 15));
-        Team pampa = new Team("Pampa Pickles", Arrays.copyOfRange(plyrs, 16, 30));
+        Roster roster = new RosterLoader(PlayerStore.onHeap(64)).load(Paths.get(fileName));
+        for (MalformedLine line : roster.getMalformedLines())
+            System.err.println(fileName + ": " + line);
+        Team avas = new Team("Avas Alpacas", roster.getStore(), roster.getIds(0, 15));
+        Team pampa = new Team("Pampa Pickles", roster.getStore(), roster.getIds(16, 30));
         
         // Create match tactics
         MatchTactic avasTactic = new MatchTactic(form442(avas));
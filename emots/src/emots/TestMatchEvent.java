@@ -7,6 +7,7 @@ import match.Match;
 import match.MatchTactic;
 import match.Player;
 import match.PlayerPosition;
+import match.StandardMatchRules;
 import match.Team;
 import match.standard.StandardMatchEventController;
 import match.standard.events.HomeVersusGuest;
@@ -32,7 +33,8 @@ public class TestMatchEvent {
         
         MatchTactic homeTactics = new MatchTactic(map1);
         MatchTactic guestTactics = new MatchTactic(map2);
-        Match match = new Match(testTeam1, testTeam2, homeTactics, guestTactics, controller);
+        Match match = new Match(testTeam1, testTeam2, homeTactics, guestTactics,
+                new StandardMatchRules(), controller);
         
         HomeVersusGuest versusEvent = new HomeVersusGuest("name", "description", FieldPosition.GOALIE, FieldPosition.ATTACKER);
         controller.addEvent(versusEvent);
@@ -0,0 +1,61 @@
+package match;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/** PlayerStore keeping its columns in a direct ByteBuffer outside of the Java
+ * heap. The buffer holds an int column with the stars of every player followed
+ * by a byte column with the eligibility and position of every player.
+ *
+ * @author nibah
+ */
+class DirectPlayerStore extends PlayerStore {
+    private ByteBuffer buffer;  // the stars column followed by the flags column
+    private int capacity;       // the number of slots in the columns
+    
+    DirectPlayerStore(int capacity) {
+        super(capacity);
+        this.buffer = allocate(capacity);
+        this.capacity = capacity;
+    }
+    
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * (Integer.BYTES + 1))
+                         .order(ByteOrder.nativeOrder());
+    }
+    
+    @Override
+    public int getStarsAt(int slot) {
+        return buffer.getInt(slot * Integer.BYTES);
+    }
+    
+    @Override
+    protected void setStarsAt(int slot, int stars) {
+        buffer.putInt(slot * Integer.BYTES, stars);
+    }
+    
+    @Override
+    protected int getFlagsAt(int slot) {
+        return buffer.get(capacity * Integer.BYTES + slot) & 0xff;
+    }
+    
+    @Override
+    protected void setFlagsAt(int slot, int flags) {
+        buffer.put(capacity * Integer.BYTES + slot, (byte) flags);
+    }
+    
+    @Override
+    protected void grow(int newCapacity) {
+        ByteBuffer grown = allocate(newCapacity);
+        ByteBuffer stars = buffer.duplicate();
+        stars.limit(capacity * Integer.BYTES);
+        grown.put(stars);
+        ByteBuffer flags = buffer.duplicate();
+        flags.position(capacity * Integer.BYTES);
+        grown.position(newCapacity * Integer.BYTES);
+        grown.put(flags);
+        grown.clear();
+        buffer = grown;
+        capacity = newCapacity;
+    }
+}
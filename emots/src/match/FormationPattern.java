@@ -1,18 +1,39 @@
 package match;
 
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
 /** Represents a formation pattern such as 4-4-2 or 3-4-3. Every FieldPosition is
  * assigned a number which determines how many players play simultaneously on that
  * position.
+ * 
+ * Every pattern is also encoded as a signature: a single long packing the total
+ * number of players, the used FieldPositions and the number of players on each
+ * of them. A MatchTactic matches the pattern if and only if its own signature
+ * for the same FieldPositions is equal (see MatchTactic.getSignature(int)).
  *
  * @author nibah
  */
 public class FormationPattern {
-    private Map<FieldPosition, Integer> pattern;
+    /** Signature of a pattern or formation which cannot be encoded in a long,
+        because too many players play on one of the FieldPositions. */
+    public static final long NO_SIGNATURE = -1;
+    
+    private static final int COUNT_BITS = 6;        // bits per FieldPosition in a signature
+    private static final int MAX_COUNT = (1 << COUNT_BITS) - 1;
+    private static final int TOTAL_BITS = 8;        // bits for the total number of players
+    private static final int MAX_TOTAL = (1 << TOTAL_BITS) - 1;
+    private static final FieldPosition[] POSITIONS = FieldPosition.values();
+    
+    private final Map<FieldPosition, Integer> pattern;
             /* Each FieldPosition is mapped to the number of players who play
                on that position. */
+    private final int[] counts;     // number of players per FieldPosition ordinal
+    private int positionMask;       // bit i is set if FieldPosition i is used in the pattern
+    private int players;            // total number of players
+    private long signature;
     
     /** Constructs a formation pattern based on the parameter
      * 
@@ -21,14 +42,20 @@ public class FormationPattern {
      *                      in this formation pattern, it does not have to be mapped.
      */
     public FormationPattern(Map<FieldPosition, Integer> pattern) {
-        this.pattern = pattern;
+        this.pattern = new EnumMap<>(FieldPosition.class);
+        counts = new int[POSITIONS.length];
+        for (Entry<FieldPosition, Integer> entry : pattern.entrySet())
+            addFieldPosition(entry.getKey(), entry.getValue());
+        update();
     }
     
     /** Returns the formation pattern this object is representing
      * 
-     * @return a Map<FieldPosition, Integer> containing the formation pattern
+     * @return an unmodifiable Map<FieldPosition, Integer> containing the formation pattern
      */
-    public Map<FieldPosition, Integer> getPattern() {return pattern;}
+    public Map<FieldPosition, Integer> getPattern() {
+        return Collections.unmodifiableMap(pattern);
+    }
     
     /** Counts the number of players playing on a given FieldPosition.
      * Sub-FieldPositions are not counted. To count Sub-FieldPositions use
@@ -38,9 +65,7 @@ public class FormationPattern {
      * @return the number of players who play on the given field position
      */
     public int numberOf(FieldPosition fieldPosition) {
-        if (pattern.containsKey(fieldPosition))
-            return pattern.get(fieldPosition);
-        return 0;
+        return counts[fieldPosition.ordinal()];
     }
     
     /** Counts the number of players playing on a given FieldPosition. If
@@ -53,14 +78,11 @@ public class FormationPattern {
     public int numberOf(FieldPosition fieldPosition, boolean countSubpositions) {
         if (!countSubpositions)
             return numberOf(fieldPosition);
-        int players = 0;
-        for (Entry<FieldPosition, Integer> entry : pattern.entrySet()) {
-            FieldPosition currentPosition = entry.getKey();
-            int currentPlayers = entry.getValue();
+        int result = 0;
+        for (FieldPosition currentPosition : POSITIONS)
             if (currentPosition.isA(fieldPosition))
-                players += currentPlayers;
-        }
-        return players;
+                result += counts[currentPosition.ordinal()];
+        return result;
     }
     
     /** Returns the total number of players playing in this formation pattern.
@@ -69,12 +91,24 @@ public class FormationPattern {
      * @return      the number of players
      */
     public int numberOfPlayers() {
-        int players = 0;
-        for (Integer currentPlayers : pattern.values())
-            players += currentPlayers;
         return players;
     }
     
+    /** Returns a bit mask of the FieldPositions used in this pattern. Bit i is
+     * set if the FieldPosition with the ordinal i is mapped, even if it is
+     * mapped to 0 players.
+     * 
+     * @return the bit mask
+     */
+    public int getPositionMask() {return positionMask;}
+    
+    /** Returns the signature of this pattern, or NO_SIGNATURE if the pattern
+     * cannot be encoded.
+     * 
+     * @return the signature
+     */
+    public long getSignature() {return signature;}
+    
     /** Adds a field position and the number of players playing on that position
      * to the already existing pattern. Should only be used from child classes.
      * 
@@ -84,16 +118,50 @@ public class FormationPattern {
      */
     protected void addFieldPosition(FieldPosition position, int numberOfPlayers) {
         pattern.put(position, numberOfPlayers);
+        counts[position.ordinal()] = numberOfPlayers;
+        positionMask |= 1 << position.ordinal();
+        update();
+    }
+    
+    /** Recalculates the total number of players and the signature. */
+    private void update() {
+        players = 0;
+        for (int currentPlayers : counts)
+            players += currentPlayers;
+        signature = signature(positionMask, players, counts);
+    }
+    
+    /** Encodes a formation as a signature. Only the counts of the FieldPositions
+     * in positionMask are taken into account.
+     * 
+     * @param positionMask  the FieldPositions (by ordinal) which should be encoded
+     * @param players       the total number of players
+     * @param counts        the number of players per FieldPosition ordinal
+     * @return the signature, or NO_SIGNATURE if one of the numbers is too big
+     *         or negative
+     */
+    static long signature(int positionMask, int players, int[] counts) {
+        if (players < 0 || players > MAX_TOTAL)
+            return NO_SIGNATURE;
+        long result = players;
+        for (int i = 0; i < counts.length; i++) {
+            if ((positionMask & (1 << i)) == 0)
+                continue;
+            if (counts[i] < 0 || counts[i] > MAX_COUNT)
+                return NO_SIGNATURE;
+            result |= (long) counts[i] << (TOTAL_BITS + i * COUNT_BITS);
+        }
+        return result | (long) positionMask << (TOTAL_BITS + counts.length * COUNT_BITS);
     }
     
     @Override
     public String toString() {
-        String output = new String();
+        StringBuilder output = new StringBuilder();
         for (Entry<FieldPosition, Integer> entry : pattern.entrySet()) {
-            FieldPosition position = entry.getKey();
-            int numberOfPlayers = entry.getValue();
-            output += position + ": " + numberOfPlayers + "\n";
+            if (output.length() > 0)
+                output.append("\n");
+            output.append(entry.getKey()).append(": ").append(entry.getValue());
         }
-        return output.substring(0, output.length()-1);
+        return output.toString();
     }
 }
@@ -0,0 +1,45 @@
+package match;
+
+import java.util.Arrays;
+
+/** PlayerStore keeping its columns in primitive arrays: an int[] for the stars
+ * and a byte[] for the eligibility and position of every player.
+ *
+ * @author nibah
+ */
+class HeapPlayerStore extends PlayerStore {
+    private int[] stars;    // stars per slot
+    private byte[] flags;   // PRESENT, ELIGIBLE and position ordinal per slot
+    
+    HeapPlayerStore(int capacity) {
+        super(capacity);
+        stars = new int[capacity];
+        flags = new byte[capacity];
+    }
+    
+    @Override
+    public int getStarsAt(int slot) {
+        return stars[slot];
+    }
+    
+    @Override
+    protected void setStarsAt(int slot, int stars) {
+        this.stars[slot] = stars;
+    }
+    
+    @Override
+    protected int getFlagsAt(int slot) {
+        return flags[slot] & 0xff;
+    }
+    
+    @Override
+    protected void setFlagsAt(int slot, int flags) {
+        this.flags[slot] = (byte) flags;
+    }
+    
+    @Override
+    protected void grow(int capacity) {
+        stars = Arrays.copyOf(stars, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+}
@@ -1,21 +1,38 @@
 package match;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import match.jfr.FlightEvents;
+import match.metrics.MatchMetrics;
+import match.metrics.MatchMetrics.Phase;
+
 /**Represents a specific match of the season.
  *
  * @author nibah
  * @author DamnMyCode
  */
 public class Match {
-    private static int numberOfMatches = 0;
+    private static final AtomicInteger numberOfMatches = new AtomicInteger();
+    private static final MatchListener[] NO_LISTENERS = new MatchListener[0];
     
-    private final int id;
-    private final Team home;
-    private final Team guest;
+    private int id;
+    private Team home;
+    private Team guest;
     private MatchTactic homeTactic;
     private MatchTactic guestTactic;
     private MatchEventController eventController;
     private MatchRules matchRules;
     private Result result;
+    private final RandomSource random;  // every random draw of the match is made here
+    private final List<Player> sentOff; // players sent off during this match
+    private int round;                  // the number of rounds played so far
+    private boolean started;            // true once the tactics have been validated
+    private boolean forked;             // true for a branch, which never applies suspensions
+    private MatchListener[] listeners = NO_LISTENERS;
+            /* notified while the match is played, replaced on every change */
+    private MatchMetrics metrics;       // times the phases of play(), or null
     
     //TODO: update constructor by adding MatchRules to parameters
     
@@ -30,14 +47,49 @@ public class Match {
      */
     public Match (Team home, Team guest, MatchTactic homeTactic, MatchTactic guestTactic,
             MatchRules matchRules, MatchEventController eventController){
-        id = numberOfMatches++;
+        this(home, guest, homeTactic, guestTactic, matchRules, eventController,
+             new SplittableRandomSource());
+    }
+    
+    /**Creates a Match object drawing its random numbers from the given source.
+     * 
+     * @param home              home team
+     * @param guest             guest team
+     * @param homeTactic        tactic of home team
+     * @param guestTactic       tactic of guest team
+     * @param matchRules        rules of the match
+     * @param eventController   eventController for this specific match
+     * @param random            the source of every random draw during the match
+     */
+    public Match (Team home, Team guest, MatchTactic homeTactic, MatchTactic guestTactic,
+            MatchRules matchRules, MatchEventController eventController, RandomSource random){
+        this(numberOfMatches.getAndIncrement(), home, guest, homeTactic, guestTactic,
+             matchRules, eventController, random);
+    }
+    
+    /* Makes sure no match constructed from now on gets the given id or a
+       lower one, for a match restored from a MatchSnapshot on another instance */
+    static void reserveId(int id){
+        if (id < Integer.MAX_VALUE)
+            numberOfMatches.accumulateAndGet(id + 1, Math::max);
+    }
+    
+    /* Constructs a match with the given id, for restoring a MatchSnapshot */
+    Match (int id, Team home, Team guest, MatchTactic homeTactic, MatchTactic guestTactic,
+            MatchRules matchRules, MatchEventController eventController, RandomSource random){
+        if (random == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        this.id = id;
         this.home = home;
         this.guest = guest;
         this.homeTactic = homeTactic;
         this.guestTactic = guestTactic;
         this.eventController = eventController;
         this.matchRules = matchRules;
+        this.random = random;
         this.result = new Result(this);
+        this.sentOff = new ArrayList<>();
+        this.metrics = MatchMetrics.getDefault();
     }
     
     /**
@@ -88,6 +140,22 @@ public class Match {
         return eventController;
     }
     
+    /**
+     * 
+     * @return              Returns the MatchRules of this match.
+     */
+    public MatchRules getMatchRules(){
+        return matchRules;
+    }
+    
+    /**
+     * 
+     * @return              Returns the source events should use for their random draws.
+     */
+    public RandomSource getRandom(){
+        return random;
+    }
+    
     /**
      * 
      * @return              Returns result of this specific match.
@@ -96,36 +164,330 @@ public class Match {
         return result;
     }
     
-    /** At this point, only starts method execute() in eventController.
+    /**
      * 
+     * @return              Returns the number of rounds played so far, which
+     *                      is the number of the round currently played.
      */
-    public void play(){
-        //Check if the tactics of the teams are legal according to the match rules
-        boolean legalHomeTactic = matchRules.allowedTactic(homeTactic);
-        boolean legalGuestTactic = matchRules.allowedTactic(guestTactic);
-        if (!legalHomeTactic) {
-            if (!legalGuestTactic) {
-                result.setWinner(Winner.AUTOMATIC_DRAW);
-                return;
-            } else {
-                result.setWinner(Winner.AUTOMATIC_GUEST);
-                return;
+    public int getCurrentRound(){
+        return round;
+    }
+    
+    /**
+     * 
+     * @return              Returns true once the tactics have been validated
+     *                      before the first round.
+     */
+    public boolean isStarted(){
+        return started;
+    }
+    
+    /* Prepares the match for another fixture, reusing the structures
+       allocated so far, see MatchArena. The random source is not reset. */
+    void reset(Team home, Team guest, MatchTactic homeTactic, MatchTactic guestTactic){
+        id = numberOfMatches.getAndIncrement();
+        this.home = home;
+        this.guest = guest;
+        this.homeTactic = homeTactic;
+        this.guestTactic = guestTactic;
+        result.reset();
+        sentOff.clear();
+        round = 0;
+        started = false;
+    }
+    
+    /* Sets the progress of a match restored from a MatchSnapshot */
+    void resume(int round, boolean started){
+        this.round = round;
+        this.started = started;
+    }
+    
+    /** Switches the recording of the match messages on or off. Matches only
+     * played for their result can switch it off to save the logging work.
+     * 
+     * @param recording     false if no messages should be recorded
+     */
+    public void setRecording(boolean recording){
+        result.getStatistics().getMatchMessages().setRecording(recording);
+    }
+    
+    /** Looks for a player with the given id in the squads and on the field of
+     * both teams.
+     * 
+     * @param id            the id of the player
+     * @return              Returns the player, or null if there is no such player.
+     */
+    public Player findPlayer(int id){
+        Player player = findPlayer(id, home.getPlayers());
+        if (player == null)
+            player = findPlayer(id, guest.getPlayers());
+        if (player == null)
+            player = findPlayer(id, homeTactic.getPlayers());
+        if (player == null)
+            player = findPlayer(id, guestTactic.getPlayers());
+        return player;
+    }
+    
+    private static Player findPlayer(int id, Player[] players){
+        if (players != null)
+            for (Player player : players)
+                if (player != null && player.getId() == id)
+                    return player;
+        return null;
+    }
+    
+    /** Records that a player was sent off during this match. The eligibility
+     * of the player is not modified until the suspensions are applied, so
+     * other matches played at the same time are not affected.
+     * 
+     * @param player        the player who has to leave the field
+     * @throws IllegalArgumentException if player is null
+     */
+    public void sendOff(Player player) {
+        if (player == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        sentOff.add(player);
+    }
+    
+    /**
+     * 
+     * @return              Returns the players sent off during this match.
+     */
+    public Player[] getSentOffPlayers() {
+        return sentOff.toArray(new Player[0]);
+    }
+    
+    /** Makes every player who was sent off during this match uneligible.
+     * 
+     * @throws IllegalStateException if this match is a branch (see fork())
+     */
+    public void applySuspensions() {
+        if (forked)
+            throw new IllegalStateException("The suspensions of a forked match cannot be applied.");
+        for (Player player : sentOff)
+            player.setEligible(false);
+    }
+    
+    /** Adds a listener which is notified about every executed MatchEvent and
+     * the end of the match. Listeners should be added before the match is
+     * played.
+     * 
+     * @param listener      the listener
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addListener(MatchListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        MatchListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+        added[listeners.length] = listener;
+        listeners = added;
+    }
+    
+    /** Removes a listener added with addListener(MatchListener).
+     * 
+     * @param listener      the listener
+     * @return true if the listener was removed, false if it was not added
+     */
+    public boolean removeListener(MatchListener listener) {
+        for (int i = 0; i < listeners.length; i++)
+            if (listeners[i] == listener) {
+                MatchListener[] removed = new MatchListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, removed, 0, i);
+                System.arraycopy(listeners, i + 1, removed, i, removed.length - i);
+                listeners = removed;
+                return true;
             }
-        } else if (!legalGuestTactic) {
-            result.setWinner(Winner.AUTOMATIC_HOME);
+        return false;
+    }
+    
+    /** Forks the match between two rounds into an independent branch, e.g.
+     * to find out what happens after a substitution. The branch continues
+     * with the same random draws, so it plays exactly like this match unless
+     * one of them is changed. Listeners are not forked, and the branch has
+     * its own id.
+     * 
+     * Suspensions are local to the branch: it shares the Team and Player
+     * objects with this match, so play() and play(true) of a branch only
+     * record the players sent off, like play(false), and applySuspensions()
+     * throws. A what-if branch never makes a real player uneligible, and
+     * parallel branches do not race on the eligibility of the players.
+     * 
+     * The branch shares the state of this match copy-on-write: the tactics
+     * (see MatchTactic.copy()) and the messages logged so far (see
+     * MatchMessages) are shared until they are changed, so thousands of
+     * branches cost little memory. This match and its branches can be played
+     * on different threads once they have been forked; fork() itself has to be
+     * called on the thread playing this match.
+     * 
+     * @return              Returns the branch.
+     * @throws IllegalArgumentException if the RandomSource of this match is
+     *                      not a SplittableRandomSource, which can be copied
+     */
+    public Match fork() {
+        if (!(random instanceof SplittableRandomSource))
+            throw new IllegalArgumentException("Only a match using a SplittableRandomSource can be forked.");
+        Match branch = new Match(numberOfMatches.getAndIncrement(), home, guest, homeTactic.copy(),
+                guestTactic.copy(), matchRules, eventController, ((SplittableRandomSource) random).copy());
+        branch.result = result.fork(branch);
+        branch.sentOff.addAll(sentOff);
+        branch.round = round;
+        branch.started = started;
+        branch.forked = true;
+        branch.metrics = metrics;
+        return branch;
+    }
+    
+    /** Sets the metrics the phases of play() and the executed events are
+     * timed in. A new match uses MatchMetrics.getDefault(). Only the rounds
+     * selected by MatchMetrics.isSampled are timed.
+     * 
+     * @param metrics       the metrics, or null to time nothing
+     */
+    public void setMetrics(MatchMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    /**
+     * 
+     * @return              Returns the metrics this match is timed in, or null.
+     */
+    public MatchMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /** Plays the match and applies the suspensions afterwards, unless the
+     * match is a branch (see fork()).
+     * 
+     */
+    public void play(){
+        play(true);
+    }
+    
+    /** Plays the match, or the rounds left of a match played partly with
+     * playRound() or restored from a MatchSnapshot. If applySuspensions is
+     * false, the players sent off are only recorded and applySuspensions()
+     * has to be called later on. A branch (see fork()) never applies them.
+     * 
+     * @param applySuspensions  true if the sent off players should be made
+     *                          uneligible right after the match; ignored by
+     *                          a branch
+     * @throws MatchHasEndedException if the match has already ended
+     */
+    public void play(boolean applySuspensions){
+        if (result.isEnded())
+            throw new MatchHasEndedException("The match has already ended.");
+        Object played = FlightEvents.isActive() ? FlightEvents.beginMatch() : null;
+        if (!start(played))
             return;
-        }
         
         //Execute the match events
-        MatchMessages messages = result.getStatistics().getMatchMessages();
-        while (matchRules.hasNextRound()) {
-            MatchEvent event = eventController.rollEvent();
-            event.execute(this);
-            matchRules.roundEnd();
-        }
+        while (matchRules.hasNextRound(round))
+            nextRound();
         
         //Determine winner
+        MatchMetrics metrics = this.metrics;
+        long time = metrics != null ? System.nanoTime() : 0;
         result.evaluateWinner();
         result.setEnded();
+        if (metrics != null)
+            metrics.recordPhase(Phase.WINNER_EVALUATION, time);
+        if (applySuspensions && !forked)
+            applySuspensions();
+        notifyEnded(played);
+    }
+    
+    /** Plays the next round of the match. The tactics are validated before
+     * the first round; if one of them is illegal, the match ends right away
+     * with an automatic result. The match is not ended after the last round,
+     * play() evaluates the winner.
+     * 
+     * @return true if a round was played, false if the match has ended or no
+     *         round is left
+     */
+    public boolean playRound(){
+        if (result.isEnded() || !start(null) || !matchRules.hasNextRound(round))
+            return false;
+        nextRound();
+        return true;
+    }
+    
+    /** Plays rounds until the given number of rounds has been played or no
+     * round is left. See playRound().
+     * 
+     * @param rounds        the number of rounds which should have been played
+     * @return the number of rounds played so far
+     */
+    public int playUntil(int rounds){
+        while (round < rounds && playRound())
+            ;
+        return round;
+    }
+    
+    /* Validates the tactics if the match has not started yet, and ends the
+       match if one of them is illegal. played is the flight recorder event of
+       the match, or null. Returns false if the match has ended. */
+    private boolean start(Object played) {
+        if (started)
+            return !result.isEnded();
+        started = true;
+        MatchMetrics metrics = this.metrics;
+        long time = metrics != null ? System.nanoTime() : 0;
+        
+        //Check if the tactics of the teams are legal according to the match rules
+        boolean legalHomeTactic = allowedTactic(homeTactic, true);
+        boolean legalGuestTactic = allowedTactic(guestTactic, false);
+        if (metrics != null)
+            metrics.recordPhase(Phase.TACTIC_VALIDATION, time);
+        if (legalHomeTactic && legalGuestTactic)
+            return true;
+        if (!legalHomeTactic)
+            result.setWinner(legalGuestTactic ? Winner.AUTOMATIC_GUEST : Winner.AUTOMATIC_DRAW);
+        else
+            result.setWinner(Winner.AUTOMATIC_HOME);
+        notifyEnded(played);
+        return false;
+    }
+    
+    private void nextRound() {
+        MatchMetrics metrics = this.metrics;
+        boolean timed = metrics != null && MatchMetrics.isSampled(id, round);
+        long time = timed ? System.nanoTime() : 0;
+        MatchEvent event = eventController.rollEvent(random);
+        if (timed)
+            time = metrics.recordPhase(Phase.EVENT_ROLL, time);
+        execute(event);
+        if (timed)
+            metrics.recordEvent(event, time);
+        for (MatchListener listener : listeners)
+            listener.eventExecuted(this, event);
+        round++;
+    }
+    
+    private boolean allowedTactic(MatchTactic tactic, boolean home) {
+        if (!FlightEvents.isActive())
+            return matchRules.validate(tactic).isLegal();
+        Object validated = FlightEvents.beginValidation();
+        ValidationResult result = matchRules.validate(tactic);
+        FlightEvents.endValidation(validated, this, home, result);
+        return result.isLegal();
+    }
+    
+    private void execute(MatchEvent event) {
+        if (!FlightEvents.isActive()) {
+            event.execute(this);
+            return;
+        }
+        Object executed = FlightEvents.beginExecution(this);
+        event.execute(this);
+        FlightEvents.endExecution(executed, this, event);
+    }
+    
+    /* played is the flight recorder event of the match, or null */
+    private void notifyEnded(Object played) {
+        if (metrics != null)
+            metrics.recordMatch(round);
+        FlightEvents.endMatch(played, this);
+        for (MatchListener listener : listeners)
+            listener.matchEnded(this);
     }
 }
@@ -0,0 +1,93 @@
+package match;
+
+/** Plays match after match on one worker thread without allocating a new
+ * Match for each of them. The arena owns a single Match with its Result,
+ * statistics, messages and random source; reset(...) clears them for the next
+ * fixture and keeps everything allocated so far. Once the message log has
+ * grown to the length of a match, playing allocates nothing per round.
+ *
+ * The Match returned by reset(...) and play(...) is only valid until the
+ * next call; copy what has to be kept. Listeners and metrics added to it stay
+ * across fixtures. An arena is not thread-safe; every worker thread should use
+ * its own.
+ *
+ * @author nibah
+ */
+public final class MatchArena {
+    private final Match match;
+    private final SplittableRandomSource random;    // the source of the match
+    
+    /** Constructs an arena playing with the given rules and event deck.
+     * 
+     * @param matchRules        the rules of every match
+     * @param eventController   the event controller of every match
+     * @throws IllegalArgumentException if a parameter is null
+     */
+    public MatchArena(MatchRules matchRules, MatchEventController eventController) {
+        if (matchRules == null || eventController == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        random = new SplittableRandomSource(0);
+        match = new Match(null, null, null, null, matchRules, eventController, random);
+    }
+    
+    /** Prepares the match of the arena for a fixture without touching its
+     * random source, which can be restarted through getRandom().
+     * 
+     * @param home          the home team
+     * @param guest         the guest team
+     * @param homeTactic    the tactic of the home team
+     * @param guestTactic   the tactic of the guest team
+     * @return the match, which has not started yet
+     */
+    public Match reset(Team home, Team guest, MatchTactic homeTactic, MatchTactic guestTactic) {
+        match.reset(home, guest, homeTactic, guestTactic);
+        return match;
+    }
+    
+    /** Prepares the match of the arena for a fixture, drawing like a new
+     * SplittableRandomSource with the given seed.
+     * 
+     * @param home          the home team
+     * @param guest         the guest team
+     * @param homeTactic    the tactic of the home team
+     * @param guestTactic   the tactic of the guest team
+     * @param seed          the seed of the random draws
+     * @return the match, which has not started yet
+     */
+    public Match reset(Team home, Team guest, MatchTactic homeTactic, MatchTactic guestTactic,
+            long seed) {
+        random.setSeed(seed);
+        return reset(home, guest, homeTactic, guestTactic);
+    }
+    
+    /** Plays a fixture without applying the suspensions (see Match.play(boolean)).
+     * 
+     * @param home          the home team
+     * @param guest         the guest team
+     * @param homeTactic    the tactic of the home team
+     * @param guestTactic   the tactic of the guest team
+     * @param seed          the seed of the random draws
+     * @return the played match
+     */
+    public Match play(Team home, Team guest, MatchTactic homeTactic, MatchTactic guestTactic,
+            long seed) {
+        reset(home, guest, homeTactic, guestTactic, seed).play(false);
+        return match;
+    }
+    
+    /**
+     * 
+     * @return the match of the arena
+     */
+    public Match getMatch() {
+        return match;
+    }
+    
+    /**
+     * 
+     * @return the random source of the match, to be restarted between fixtures
+     */
+    public SplittableRandomSource getRandom() {
+        return random;
+    }
+}
@@ -1,5 +1,7 @@
 package match;
 
+import java.util.Map;
+
 /** Controls the selection of MatchEvents during a match
  *
  * @author nibah
@@ -11,4 +13,26 @@ public interface MatchEventController {
      * @return the rolled MatchEvent
      */
     MatchEvent rollEvent();
+    
+    /** Returns a (usually randomized) MatchEvent using the given source for
+     * the random draws. Controllers which are not randomized can ignore the
+     * source.
+     * 
+     * @param random    the source of the random draws
+     * @return the rolled MatchEvent
+     */
+    default MatchEvent rollEvent(RandomSource random) {
+        return rollEvent();
+    }
+    
+    /** Returns the chance of every event to be rolled by rollEvent(RandomSource),
+     * if the controller knows it. Analytical tools use it to compute outcomes
+     * without playing; controllers returning null can only be sampled.
+     * 
+     * @return every MatchEvent mapped to the probability of being rolled, or
+     *         null if the probabilities are unknown
+     */
+    default Map<MatchEvent, Double> getProbabilities() {
+        return null;
+    }
 }
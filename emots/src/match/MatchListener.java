@@ -0,0 +1,25 @@
+package match;
+
+/** Is notified by a Match while it is played. The methods are called on the
+ * thread playing the match, so they should return quickly.
+ *
+ * @author nibah
+ */
+public interface MatchListener {
+
+    /** Called after a MatchEvent has been executed, before the round ends.
+     * match.getCurrentRound() returns the round of the event.
+     *
+     * @param match     the match
+     * @param event     the executed event
+     */
+    void eventExecuted(Match match, MatchEvent event);
+
+    /** Called after the result of the match has been determined, also if a
+     * team won automatically.
+     *
+     * @param match     the match
+     */
+    default void matchEnded(Match match) {
+    }
+}
@@ -1,19 +1,96 @@
 package match;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /** An object collecting all of the messages concerning a given Match to
  * communicate with the user.
+ * 
+ * Messages are stored as fixed-size records of ints (type, round, side,
+ * player ids, stars, field positions) and only turned into text when they are
+ * fetched, so events can log what happened without building any Strings. Only
+ * free texts added with addMessage(String) are stored as Strings. Recording
+ * can be switched off completely with setRecording(false).
+ * 
+ * Messages are never changed once they are logged. When a match is forked
+ * (see Match.fork()), the messages logged so far are frozen into a base which
+ * the messages of the match and of the branch share; both only keep the
+ * messages logged after the fork themselves.
  *
  * @author nibah
  */
 public class MatchMessages implements Messaging {
-    private List<String> messages;      // a list containing all of the messages
+    private static final int RECORD_SIZE = 8;   // number of ints per record
+    private static final int TYPE = 0;          // MessageType ordinal
+    private static final int ROUND = 1;         // round the record was logged in
+    private static final int HOME = 2;          // 1 if the record concerns the home team
+    private static final int FIRST_ID = 3;      // id of the first player
+    private static final int SECOND_ID = 4;     // id of the second player
+    private static final int FIRST_STARS = 5;   // stars of the first player or position
+    private static final int SECOND_STARS = 6;  // stars of the second player or position
+    private static final int EXTRA = 7;         // text index or FieldPosition ordinals
+    private static final MessageType[] TYPES = MessageType.values();
+    private static final FieldPosition[] POSITIONS = FieldPosition.values();
+    private static final int[] NO_RECORDS = new int[0];
+    private static final String[] NO_TEXTS = new String[0];
+    
+    private final Match match;      // used to look up the names of the players
+    private int[] base;             // the frozen records shared with forks
+    private int baseSize;           // the number of messages in base
+    private String[] baseTexts;     // the frozen free texts shared with forks
+    private int[] records;          // RECORD_SIZE ints per message after the base
+    private int size;               // the number of messages, the base included
+    private List<String> texts;     // the free texts after the base texts
+    private boolean recording;      // false if nothing should be recorded
     
     /** Constructs an object collecting messages about a given Match */
     public MatchMessages() {
-        messages = new ArrayList<>();
+        this(null);
+    }
+    
+    /** Constructs an object collecting messages about the given Match. The
+     * players of the match are used to render the names in the messages.
+     * 
+     * @param match     the match, or null if names should not be resolved
+     */
+    public MatchMessages(Match match) {
+        this.match = match;
+        base = NO_RECORDS;
+        baseTexts = NO_TEXTS;
+        records = NO_RECORDS;
+        size = 0;
+        texts = new ArrayList<>();
+        recording = true;
+    }
+    
+    /** Switches recording on or off. While recording is off, every new message
+     * is dropped.
+     * 
+     * @param recording     false if no messages should be recorded
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+    
+    /** Returns if new messages are recorded.
+     * 
+     * @return true if new messages are recorded, false otherwise
+     */
+    public boolean isRecording() {return recording;}
+    
+    /** Appends a new record and returns its offset in the records array. */
+    private int append(MessageType type, int round) {
+        int offset = (size - baseSize) * RECORD_SIZE;
+        if (offset + RECORD_SIZE > records.length)
+            records = Arrays.copyOf(records, Math.max(16 * RECORD_SIZE, records.length * 2));
+        size++;
+        records[offset + TYPE] = type.ordinal();
+        records[offset + ROUND] = round;
+        return offset;
     }
 
     /** Adds a new message to the end of the already existing messages.
@@ -22,7 +99,64 @@ public class MatchMessages implements Messaging {
      */
     @Override
     public void addMessage(String message) {
-        messages.add(message);
+        if (!recording)
+            return;
+        int offset = append(MessageType.TEXT, match == null ? 0 : match.getCurrentRound());
+        records[offset + EXTRA] = baseTexts.length + texts.size();
+        texts.add(message);
+    }
+    
+    /** Logs the comparison of the stars on two FieldPositions. The team with
+     * more stars scored.
+     * 
+     * @param round             the round of the match
+     * @param homePosition      the compared FieldPosition of the home team
+     * @param guestPosition     the compared FieldPosition of the guest team
+     * @param homeStars         the stars of the home team on homePosition
+     * @param guestStars        the stars of the guest team on guestPosition
+     */
+    public void logDuel(int round, FieldPosition homePosition, FieldPosition guestPosition,
+            int homeStars, int guestStars) {
+        if (!recording)
+            return;
+        int offset = append(MessageType.DUEL, round);
+        records[offset + FIRST_STARS] = homeStars;
+        records[offset + SECOND_STARS] = guestStars;
+        records[offset + EXTRA] = homePosition.ordinal() | guestPosition.ordinal() << 8;
+    }
+    
+    /** Logs a penalty. The penalty was successful if the shooter has more
+     * stars than the goalie.
+     * 
+     * @param round         the round of the match
+     * @param home          true if the home team shot the penalty
+     * @param shooter       the player shooting the penalty
+     * @param goalie        the goalie of the other team
+     */
+    public void logPenalty(int round, boolean home, Player shooter, Player goalie) {
+        if (!recording)
+            return;
+        int offset = append(MessageType.PENALTY, round);
+        records[offset + HOME] = home ? 1 : 0;
+        records[offset + FIRST_ID] = shooter.getId();
+        records[offset + SECOND_ID] = goalie.getId();
+        records[offset + FIRST_STARS] = shooter.getStars();
+        records[offset + SECOND_STARS] = goalie.getStars();
+    }
+    
+    /** Logs a red card.
+     * 
+     * @param round         the round of the match
+     * @param home          true if a player of the home team was sent off
+     * @param player        the player who was sent off
+     */
+    public void logRedCard(int round, boolean home, Player player) {
+        if (!recording)
+            return;
+        int offset = append(MessageType.RED_CARD, round);
+        records[offset + HOME] = home ? 1 : 0;
+        records[offset + FIRST_ID] = player.getId();
+        records[offset + FIRST_STARS] = player.getStars();
     }
 
     /** Adds several new messages to the end of the already existing messages.
@@ -37,6 +171,124 @@ public class MatchMessages implements Messaging {
         for (String message : messages)
             addMessage(message);
     }
+    
+    /* Returns a field of the record of a message */
+    private int field(int index, int field) {
+        return index < baseSize ? base[index * RECORD_SIZE + field]
+                                : records[(index - baseSize) * RECORD_SIZE + field];
+    }
+    
+    private String text(int index) {
+        return index < baseTexts.length ? baseTexts[index] : texts.get(index - baseTexts.length);
+    }
+    
+    private void checkIndex(int index) {
+        if (index >= size || index < 0)
+            throw new IllegalArgumentException("There is no message with the given index");
+    }
+    
+    /** Returns the type of a single message.
+     * 
+     * @param index     the index of the message
+     * @return the type of the message
+     * @throws IllegalArgumentException if there is no message with the given index
+     */
+    public MessageType getType(int index) {
+        checkIndex(index);
+        return TYPES[field(index, TYPE)];
+    }
+    
+    /** Returns the round a single message was logged in.
+     * 
+     * @param index     the index of the message
+     * @return the round of the message
+     * @throws IllegalArgumentException if there is no message with the given index
+     */
+    public int getRound(int index) {
+        checkIndex(index);
+        return field(index, ROUND);
+    }
+    
+    /** Returns if a PENALTY or RED_CARD message concerns the home team.
+     * 
+     * @param index     the index of the message
+     * @return true if the penalty was shot by or the red card was given to the
+     *         home team, false otherwise
+     * @throws IllegalArgumentException if there is no message with the given index
+     */
+    public boolean isHome(int index) {
+        checkIndex(index);
+        return field(index, HOME) == 1;
+    }
+    
+    /** Returns the id of the shooter of a PENALTY or of the player sent off by
+     * a RED_CARD.
+     * 
+     * @param index     the index of the message
+     * @return the id of the player
+     * @throws IllegalArgumentException if there is no message with the given index
+     */
+    public int getFirstPlayerId(int index) {
+        checkIndex(index);
+        return field(index, FIRST_ID);
+    }
+    
+    /** Returns the id of the goalie of a PENALTY.
+     * 
+     * @param index     the index of the message
+     * @return the id of the goalie
+     * @throws IllegalArgumentException if there is no message with the given index
+     */
+    public int getSecondPlayerId(int index) {
+        checkIndex(index);
+        return field(index, SECOND_ID);
+    }
+    
+    /** Returns the stars of the home team in a DUEL, of the shooter of a
+     * PENALTY or of the player sent off by a RED_CARD.
+     * 
+     * @param index     the index of the message
+     * @return the stars
+     * @throws IllegalArgumentException if there is no message with the given index
+     */
+    public int getFirstStars(int index) {
+        checkIndex(index);
+        return field(index, FIRST_STARS);
+    }
+    
+    /** Returns the stars of the guest team in a DUEL or of the goalie of a
+     * PENALTY.
+     * 
+     * @param index     the index of the message
+     * @return the stars
+     * @throws IllegalArgumentException if there is no message with the given index
+     */
+    public int getSecondStars(int index) {
+        checkIndex(index);
+        return field(index, SECOND_STARS);
+    }
+    
+    /** Returns the compared FieldPosition of the home team in a DUEL.
+     * 
+     * @param index     the index of the message
+     * @return the FieldPosition
+     * @throws IllegalArgumentException if there is no message with the given index
+     */
+    public FieldPosition getHomePosition(int index) {
+        checkIndex(index);
+        return POSITIONS[field(index, EXTRA) & 0xff];
+    }
+    
+    /** Returns the compared FieldPosition of the guest team in a DUEL.
+     * 
+     * @param index     the index of the message
+     * @return the FieldPosition
+     * @throws IllegalArgumentException if there is no message with the given index
+     */
+    public FieldPosition getGuestPosition(int index) {
+        checkIndex(index);
+        return POSITIONS[field(index, EXTRA) >>> 8];
+    }
 
     /** Fetches a single message specified by the index parameter.
      * 
@@ -47,9 +299,106 @@ public class MatchMessages implements Messaging {
      */
     @Override
     public String getMessage(int index) {
-        if (index >= messages.size() || index < 0)
-            throw new IllegalArgumentException("There is no message with the given index");
-        return messages.get(index);
+        StringBuilder message = new StringBuilder(64);
+        try {
+            appendMessage(index, message);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // a StringBuilder does not throw
+        }
+        return message.toString();
+    }
+    
+    /** Renders the text of a single message into an Appendable without
+     * creating an intermediate String.
+     * 
+     * @param index     the index of the message
+     * @param out       where the text is appended to
+     * @throws IllegalArgumentException if index is smaller than 0 or greater than
+     *         the biggest message index
+     * @throws IOException if out throws an IOException
+     */
+    public void appendMessage(int index, Appendable out) throws IOException {
+        checkIndex(index);
+        int[] data = index < baseSize ? base : records;
+        int offset = (index < baseSize ? index : index - baseSize) * RECORD_SIZE;
+        switch (TYPES[data[offset + TYPE]]) {
+            case TEXT:
+                out.append(text(data[offset + EXTRA]));
+                break;
+            case DUEL:
+                int homeStars = data[offset + FIRST_STARS];
+                int guestStars = data[offset + SECOND_STARS];
+                out.append("Home ").append(getHomePosition(index).name()).append("S(");
+                appendInt(homeStars, out);
+                out.append(") VS Guest ").append(getGuestPosition(index).name()).append("S(");
+                appendInt(guestStars, out);
+                out.append(")\n");
+                if (homeStars > guestStars)
+                    out.append("Home team scores.");
+                else if (guestStars > homeStars)
+                    out.append("Guest team scores.");
+                else
+                    out.append("No score.");
+                break;
+            case PENALTY:
+                out.append(data[offset + HOME] == 1 ? "Home Penalty" : "Guest Penalty")
+                   .append('\n');
+                appendNameStars(data[offset + FIRST_ID], data[offset + FIRST_STARS], out);
+                out.append(" VS ");
+                appendNameStars(data[offset + SECOND_ID], data[offset + SECOND_STARS], out);
+                out.append('\n').append(data[offset + FIRST_STARS] > data[offset + SECOND_STARS] ?
+                                        "Penalty successful" : "Penalty unsuccessful");
+                break;
+            case RED_CARD:
+                out.append("Red Card\n");
+                appendName(data[offset + FIRST_ID], out);
+                out.append(" has to leave the field.");
+                break;
+        }
+    }
+    
+    /** Appends the name of the player with the given id, or "Player #id" if
+        the player cannot be found. */
+    private void appendName(int id, Appendable out) throws IOException {
+        Player player = match == null ? null : match.findPlayer(id);
+        if (player != null) {
+            out.append(player.getName());
+        } else {
+            out.append("Player #");
+            appendInt(id, out);
+        }
+    }
+    
+    /** Appends the decimal digits of a value without creating a String.
+     * 
+     * @param value     the value
+     * @param out       where the digits are appended to
+     * @throws IOException if out throws an IOException
+     */
+    public static void appendInt(int value, Appendable out) throws IOException {
+        if (value < 0) {
+            if (value == Integer.MIN_VALUE) {
+                out.append("-2147483648");
+                return;
+            }
+            out.append('-');
+            value = -value;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10)
+            divisor *= 10;
+        for (; divisor > 0; divisor /= 10)
+            out.append((char) ('0' + value / divisor % 10));
+    }
+    
+    /** Appends the name of a player followed by a * character for every star,
+        like Player.getNameStars(). */
+    private void appendNameStars(int id, int stars, Appendable out) throws IOException {
+        appendName(id, out);
+        out.append('(');
+        for (int i = 0; i < stars; i++)
+            out.append('*');
+        out.append(')');
     }
 
     /** Fetches all the messages with an index between the parameters begin and
@@ -69,13 +418,13 @@ public class MatchMessages implements Messaging {
         if (begin > end)
             throw new IllegalArgumentException("The begin parameter should be smaller "
                                              + "than the end parameter");
-        if (begin < 0 || end >= messages.size())
+        if (begin < 0 || end >= size)
             throw new IllegalArgumentException("The given begin-end interval is not "
                     + "a subset of the index-range of the messages.");
-        List<String> result = new ArrayList<>();
+        String[] result = new String[end - begin + 1];
         for (int i = begin; i<=end; i++)
-            result.add(messages.get(i));
-        return result.toArray(new String[0]);
+            result[i - begin] = getMessage(i);
+        return result;
     }
 
     /** Fetches all the messages saved by this object.
@@ -84,7 +433,10 @@ public class MatchMessages implements Messaging {
      */
     @Override
     public String[] getAllMessages() {
-        return messages.toArray(new String[0]);
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++)
+            result[i] = getMessage(i);
+        return result;
     }
 
     /** Gets the number of messages saved by this object.
@@ -93,16 +445,125 @@ public class MatchMessages implements Messaging {
      */
     @Override
     public int numberOfMessages() {
-        return messages.size();
+        return size;
+    }
+    
+    /* Removes all of the messages, keeping the allocated records */
+    void clear() {
+        base = NO_RECORDS;
+        baseSize = 0;
+        baseTexts = NO_TEXTS;
+        size = 0;
+        texts.clear();
+    }
+    
+    /* Freezes the messages logged so far into the base */
+    private void freeze() {
+        if (size > baseSize) {
+            int[] frozen = Arrays.copyOf(base, size * RECORD_SIZE);
+            System.arraycopy(records, 0, frozen, baseSize * RECORD_SIZE, (size - baseSize) * RECORD_SIZE);
+            base = frozen;
+            baseSize = size;
+        }
+        if (!texts.isEmpty()) {
+            String[] frozen = Arrays.copyOf(baseTexts, baseTexts.length + texts.size());
+            for (int i = 0; i < texts.size(); i++)
+                frozen[baseTexts.length + i] = texts.get(i);
+            baseTexts = frozen;
+            texts.clear();
+        }
+    }
+    
+    /* Returns the messages of a branch of the match, see Match.fork(). The
+       messages logged so far are frozen and shared by both. */
+    MatchMessages fork(Match branch) {
+        freeze();
+        MatchMessages fork = new MatchMessages(branch);
+        fork.base = base;
+        fork.baseSize = baseSize;
+        fork.baseTexts = baseTexts;
+        fork.size = size;
+        fork.recording = recording;
+        return fork;
+    }
+    
+    /* The number of bytes write(ByteBuffer) needs */
+    int snapshotSize() {
+        int bytes = 8 + size * RECORD_SIZE * 4;
+        for (String text : baseTexts)
+            bytes += 4 + 2 * text.length();
+        for (String text : texts)
+            bytes += 4 + 2 * text.length();
+        return bytes;
+    }
+    
+    /* Writes the records and texts for a MatchSnapshot: the number of
+       records, the records, the number of texts and every text as its length
+       followed by its chars */
+    void write(ByteBuffer out) {
+        out.putInt(size);
+        out.asIntBuffer().put(base, 0, baseSize * RECORD_SIZE)
+                         .put(records, 0, (size - baseSize) * RECORD_SIZE);
+        out.position(out.position() + size * RECORD_SIZE * 4);
+        out.putInt(baseTexts.length + texts.size());
+        for (int i = 0; i < baseTexts.length + texts.size(); i++) {
+            String text = text(i);
+            out.putInt(text.length());
+            for (int j = 0; j < text.length(); j++)
+                out.putChar(text.charAt(j));
+        }
+    }
+    
+    /* Replaces the messages with the ones written by write(ByteBuffer) */
+    void read(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / (RECORD_SIZE * 4))
+            throw new IllegalArgumentException("Corrupt snapshot: bad number of messages.");
+        int[] read = new int[count * RECORD_SIZE];
+        in.asIntBuffer().get(read);
+        in.position(in.position() + count * RECORD_SIZE * 4);
+        int textCount = in.getInt();
+        if (textCount < 0 || textCount > in.remaining() / 4)
+            throw new IllegalArgumentException("Corrupt snapshot: bad number of texts.");
+        List<String> readTexts = new ArrayList<>(textCount);
+        for (int i = 0; i < textCount; i++) {
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining() / 2)
+                throw new IllegalArgumentException("Corrupt snapshot: bad text length.");
+            char[] text = new char[length];
+            for (int j = 0; j < length; j++)
+                text[j] = in.getChar();
+            readTexts.add(new String(text));
+        }
+        for (int offset = 0; offset < read.length; offset += RECORD_SIZE) {
+            int type = read[offset + TYPE];
+            int extra = read[offset + EXTRA];
+            if (type < 0 || type >= TYPES.length
+                    || type == MessageType.TEXT.ordinal() && (extra < 0 || extra >= textCount)
+                    || type == MessageType.DUEL.ordinal()
+                       && ((extra & 0xff) >= POSITIONS.length || extra >>> 8 >= POSITIONS.length))
+                throw new IllegalArgumentException("Corrupt snapshot: bad message record.");
+        }
+        base = NO_RECORDS;
+        baseSize = 0;
+        baseTexts = NO_TEXTS;
+        records = read;
+        texts = readTexts;
+        size = count;
     }
     
     @Override
     public String toString() {
-        String output = new String();
-        for (String message : getAllMessages())
-            output += message + "\n";
-        output = output.substring(output.length()-1);
-        return "Match Messages (" + numberOfMessages() + ")" + "\n" +
-                output;
+        StringBuilder output = new StringBuilder();
+        output.append("Match Messages (").append(numberOfMessages()).append(")");
+        try {
+            for (int i = 0; i < size; i++) {
+                output.append('\n');
+                appendMessage(i, output);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // a StringBuilder does not throw
+        }
+        return output.toString();
     }
 }
@@ -1,27 +1,37 @@
 package match;
 
-/** Represents the rule set of a Match
+/** Represents the rule set of a Match. Rules do not keep any state of the
+ * matches they are used for: the rounds are counted by the Match and tactics
+ * are checked by returning a ValidationResult. Implementations should be
+ * immutable, so one instance can be shared by any number of matches and
+ * threads.
  *
  * @author nibah
  */
 public interface MatchRules {
-    /** Decides if a given tactic is legal according to the rules. (i.e. are
+    /** Checks if a given tactic is legal according to the rules. (i.e. are
      * there enough players on the field?)
+     * 
+     * @param tactic        the tactic which should be examined
+     * @return the violations of the rules, ValidationResult.LEGAL if there are none
+     */
+    ValidationResult validate(MatchTactic tactic);
+    
+    /** Decides if a given tactic is legal according to the rules.
      * 
      * @param tactic        the tactics which should be examined
      * @return true if the tactic matches the rules, false otherwise
      */
-    boolean allowedTactic(MatchTactic tactic);
+    default boolean allowedTactic(MatchTactic tactic) {
+        return validate(tactic).isLegal();
+    }
     
     /** Decides if a Match can proceed in the next round or not.
      * 
-     * @return true if the current round was not the last one, false otherwise
+     * @param roundsPlayed  the number of rounds the match has played so far
+     * @return true if another round should be played, false otherwise
      */
-    boolean hasNextRound();
-    
-    /** A method to signal the end of a round to the MatchRules object. This
-        should be called at the end of every round. */
-    void roundEnd();
+    boolean hasNextRound(int roundsPlayed);
     
     /** Decides if it is legal for a player to go back on the field after she
      * was substituted.
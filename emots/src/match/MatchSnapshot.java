@@ -0,0 +1,274 @@
+package match;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+/** Saves a Match, which may be in progress, as a compact binary snapshot and
+ * restores it, e.g. on another service instance. The restored match plays the
+ * rounds left with the same draws and ends with the same result as the saved
+ * one would have.
+ *
+ * A snapshot holds the progress of the match, the score, the winner, both
+ * tactics with their substitutions and changes, the players sent off, the
+ * match messages and the state of the RandomSource, which has to be a
+ * SplittableRandomSource. Players are saved by their ids, so the teams given
+ * to restore(...) have to contain the same players. The teams, the rules, the
+ * event controller and the listeners are not part of the snapshot.
+ *
+ * A snapshot is little endian:
+ *
+ *   0  int   magic number "EMSS"
+ *   4  short version
+ *   6  byte  flags (STARTED, ENDED, RECORDING)
+ *   7  byte  Winner ordinal
+ *   8  int   length of the snapshot in bytes
+ *  12  int   match id
+ *  16  int   rounds played
+ *  20  int   home goals
+ *  24  int   guest goals
+ *  28  long  seed of the random source
+ *  36  long  gamma of the random source
+ *  44        home tactic, guest tactic: substitutions, changes, number of
+ *            players and every player as id and FieldPosition ordinal (ints)
+ *            number of players sent off and their ids (ints)
+ *            match messages: number of records, the records, number of free
+ *            texts and every text as its length and its chars
+ *  end - 4   int   CRC32 of all of the bytes before
+ *
+ * @author nibah
+ */
+public final class MatchSnapshot {
+    /** "EMSS" */
+    static final int MAGIC = 0x53534D45;
+    static final int VERSION = 1;
+    static final int STARTED = 1;
+    static final int ENDED = 2;
+    static final int RECORDING = 4;
+    private static final int HEADER_SIZE = 44;
+    private static final Winner[] WINNERS = Winner.values();
+    private static final FieldPosition[] POSITIONS = FieldPosition.values();
+
+    private MatchSnapshot() {}
+
+    /** Returns the size of the snapshot of a match in its current state.
+     *
+     * @param match     the match
+     * @return the number of bytes save(Match, ByteBuffer) writes
+     * @throws IllegalArgumentException if match is null
+     */
+    public static int sizeOf(Match match) {
+        if (match == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        return HEADER_SIZE
+             + 12 + 8 * match.getHomeTactic().numberOfPlayers()
+             + 12 + 8 * match.getGuestTactic().numberOfPlayers()
+             + 4 + 4 * match.getSentOffPlayers().length
+             + match.getResult().getStatistics().getMatchMessages().snapshotSize()
+             + 4;
+    }
+
+    /** Saves a match into a new array.
+     *
+     * @param match     the match
+     * @return the snapshot
+     * @throws IllegalArgumentException if match is null or its random source
+     *         is not a SplittableRandomSource
+     */
+    public static byte[] save(Match match) {
+        byte[] snapshot = new byte[sizeOf(match)];
+        save(match, ByteBuffer.wrap(snapshot));
+        return snapshot;
+    }
+
+    /** Writes the snapshot of a match at the position of a buffer and moves
+     * the position behind it. The byte order of the buffer does not matter.
+     *
+     * @param match     the match
+     * @param buffer    the buffer, with at least sizeOf(match) bytes remaining
+     * @throws IllegalArgumentException if a parameter is null or the random
+     *         source of the match is not a SplittableRandomSource
+     * @throws BufferOverflowException if the buffer is too small
+     */
+    public static void save(Match match, ByteBuffer buffer) {
+        if (match == null || buffer == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        if (!(match.getRandom() instanceof SplittableRandomSource))
+            throw new IllegalArgumentException("Only the state of a SplittableRandomSource can be saved.");
+        int size = sizeOf(match);
+        if (buffer.remaining() < size)
+            throw new BufferOverflowException();
+        SplittableRandomSource random = (SplittableRandomSource) match.getRandom();
+        Result result = match.getResult();
+        MatchStatistics stats = result.getStatistics();
+        MatchMessages messages = stats.getMatchMessages();
+        Player[] sentOff = match.getSentOffPlayers();
+
+        ByteBuffer out = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC);
+        out.putShort((short) VERSION);
+        out.put((byte) ((match.isStarted() ? STARTED : 0) | (result.isEnded() ? ENDED : 0)
+                      | (messages.isRecording() ? RECORDING : 0)));
+        out.put((byte) result.getWinner().ordinal());
+        out.putInt(size);
+        out.putInt(match.getId());
+        out.putInt(match.getCurrentRound());
+        out.putInt(stats.getHomeGoals());
+        out.putInt(stats.getGuestGoals());
+        out.putLong(random.getSeed());
+        out.putLong(random.getGamma());
+        writeTactic(match.getHomeTactic(), out);
+        writeTactic(match.getGuestTactic(), out);
+        out.putInt(sentOff.length);
+        for (Player player : sentOff)
+            out.putInt(player.getId());
+        messages.write(out);
+        out.putInt(checksum(out, out.position()));
+        buffer.position(buffer.position() + out.position());
+    }
+
+    private static void writeTactic(MatchTactic tactic, ByteBuffer out) {
+        out.putInt(tactic.getNumberOfSubs());
+        out.putInt(tactic.getNumberOfChanges());
+        out.putInt(tactic.numberOfPlayers());
+        for (Entry<Player, FieldPosition> entry : tactic.getFormation().entrySet()) {
+            out.putInt(entry.getKey().getId());
+            out.putInt(entry.getValue().ordinal());
+        }
+    }
+
+    /* The CRC32 of the first length bytes of a buffer */
+    private static int checksum(ByteBuffer buffer, int length) {
+        ByteBuffer bytes = buffer.duplicate();
+        bytes.position(0).limit(length);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    /** Restores a match from a snapshot. The restored match keeps the id of
+     * the saved one; matches constructed afterwards get higher ids.
+     *
+     * @param snapshot          the snapshot
+     * @param home              the home team, with the players of the saved match
+     * @param guest             the guest team, with the players of the saved match
+     * @param matchRules        the rules of the match
+     * @param eventController   the event controller of the match
+     * @return the restored match
+     * @throws IllegalArgumentException if a parameter is null or the snapshot
+     *         is corrupt
+     * @throws NoSuchPlayerException if a saved player is in neither team
+     */
+    public static Match restore(byte[] snapshot, Team home, Team guest,
+            MatchRules matchRules, MatchEventController eventController) {
+        if (snapshot == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        return restore(ByteBuffer.wrap(snapshot), home, guest, matchRules, eventController);
+    }
+
+    /** Restores a match from the snapshot at the position of a buffer and
+     * moves the position behind it. The byte order of the buffer does not
+     * matter. The restored match keeps the id of the saved one; matches
+     * constructed afterwards get higher ids.
+     *
+     * @param buffer            the buffer
+     * @param home              the home team, with the players of the saved match
+     * @param guest             the guest team, with the players of the saved match
+     * @param matchRules        the rules of the match
+     * @param eventController   the event controller of the match
+     * @return the restored match
+     * @throws IllegalArgumentException if a parameter is null or the snapshot
+     *         is corrupt
+     * @throws NoSuchPlayerException if a saved player is in neither team
+     */
+    public static Match restore(ByteBuffer buffer, Team home, Team guest,
+            MatchRules matchRules, MatchEventController eventController) {
+        if (buffer == null || home == null || guest == null || matchRules == null
+                || eventController == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        ByteBuffer in = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (in.getInt() != MAGIC || in.getShort() != VERSION)
+                throw new IllegalArgumentException("Not a match snapshot.");
+            int flags = in.get();
+            int winner = in.get();
+            int size = in.getInt();
+            if (size < HEADER_SIZE + 4 || size > in.limit())
+                throw new IllegalArgumentException("Corrupt snapshot: bad length.");
+            if (in.getInt(size - 4) != checksum(in, size - 4))
+                throw new IllegalArgumentException("Corrupt snapshot: bad checksum.");
+            in.limit(size - 4);
+            int id = in.getInt();
+            int round = in.getInt();
+            int homeGoals = in.getInt();
+            int guestGoals = in.getInt();
+            long seed = in.getLong();
+            long gamma = in.getLong();
+            if (winner < 0 || winner >= WINNERS.length || round < 0 || (gamma & 1) == 0)
+                throw new IllegalArgumentException("Corrupt snapshot: bad header.");
+            Map<Integer, Player> players = new LinkedHashMap<>();
+            addPlayers(home, players);
+            addPlayers(guest, players);
+            MatchTactic homeTactic = readTactic(in, players);
+            MatchTactic guestTactic = readTactic(in, players);
+            Match.reserveId(id);
+            Match match = new Match(id, home, guest, homeTactic, guestTactic, matchRules,
+                    eventController, new SplittableRandomSource(seed, gamma));
+            int sentOff = in.getInt();
+            if (sentOff < 0 || sentOff > in.remaining() / 4)
+                throw new IllegalArgumentException("Corrupt snapshot: bad number of players sent off.");
+            for (int i = 0; i < sentOff; i++)
+                match.sendOff(player(in.getInt(), players));
+            Result result = match.getResult();
+            MatchMessages messages = result.getStatistics().getMatchMessages();
+            messages.read(in);
+            messages.setRecording((flags & RECORDING) != 0);
+            if (in.hasRemaining())
+                throw new IllegalArgumentException("Corrupt snapshot: bad length.");
+            ((StandardMatchStatistics) result.getStatistics()).setGoals(homeGoals, guestGoals);
+            result.restore(WINNERS[winner], (flags & ENDED) != 0);
+            match.resume(round, (flags & STARTED) != 0);
+            buffer.position(buffer.position() + size);
+            return match;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Corrupt snapshot: truncated.", e);
+        }
+    }
+
+    private static void addPlayers(Team team, Map<Integer, Player> players) {
+        for (Player player : team.getPlayers())
+            if (player != null)
+                players.putIfAbsent(player.getId(), player);
+    }
+
+    private static Player player(int id, Map<Integer, Player> players) {
+        Player player = players.get(id);
+        if (player == null)
+            throw new NoSuchPlayerException("Player #" + id + " is in neither team.");
+        return player;
+    }
+
+    private static MatchTactic readTactic(ByteBuffer in, Map<Integer, Player> players) {
+        int subs = in.getInt();
+        int changes = in.getInt();
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / 8)
+            throw new IllegalArgumentException("Corrupt snapshot: bad number of players.");
+        Map<Player, FieldPosition> formation = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            Player player = player(in.getInt(), players);
+            int position = in.getInt();
+            if (position < 0 || position >= POSITIONS.length)
+                throw new IllegalArgumentException("Corrupt snapshot: bad FieldPosition.");
+            formation.put(player, POSITIONS[position]);
+        }
+        MatchTactic tactic = new MatchTactic(formation);
+        tactic.resume(subs, changes);
+        return tactic;
+    }
+}
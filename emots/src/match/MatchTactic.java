@@ -1,42 +1,229 @@
 package match;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-/** Represents the match-tactics of a team.
+/** Represents the match-tactics of a team. The number of players and the sum
+ * of their stars are kept up to date for every FieldPosition (sub-FieldPositions
+ * included), so they can be queried in constant time.
+ * 
+ * A tactic and its copies (see copy()) share their formation until one of
+ * them is changed, which then copies the formation first.
+ * 
+ * The stars of players kept in a PlayerStore can change after the tactic was
+ * built (see PlayerStore.set(..)). The tactic notes the stores of its players
+ * and sums the stars again when one of these stores has changed since.
  *
  * @author nibah
  */
 public class MatchTactic {
+    private static final FieldPosition[] POSITIONS = FieldPosition.values();
+    private static final int[][] PARENTS = parents();
+            /* For every FieldPosition (by ordinal) the ordinals of all the
+               FieldPositions it is a part of according to FieldPosition.isA */
+    private static final PlayerStore[] NO_STORES = new PlayerStore[0];
+    
     private Map<Player, FieldPosition> formation;
             /* Represents the formation the players play on the field. */
+    private int[] exactCount;   // number of players per FieldPosition, sub-FieldPositions excluded
+    private int[] count;        // number of players per FieldPosition, sub-FieldPositions included
+    private int[] stars;        // sum of stars per FieldPosition, sub-FieldPositions included
+    private Player[] lineup;    // the players in the order of the formation
+    private FieldPosition[] lineupPositions;    // the FieldPosition of every player in lineup
+    private PlayerStore[] stores;   // the stores of the players in lineup, each once
+    private int[] storeVersions;    // the stars version of each store when the stars were summed
+    private boolean shared;     // true if the formation, the lineup and the sums may be shared with a copy
     private int numberOfSubs;    // The number of substitutions which already took place
     private int numberOfChanges; /* The number of onfield changes which already took place,
                                    excluding numberOfSubs */
     
-    /** Constructs a MatchTactic using the given HashMap<Player, FieldPostion>
+    /** Constructs a MatchTactic using a copy of the given Map<Player, FieldPostion>
      * as the formation. This constructor does not validate if that is a legal
      * formation. The number of substitutions and changes are initialised with 0.
      * 
      * @param formation     the formation of the players
      */
     public MatchTactic(Map<Player, FieldPosition> formation) {
-        this.formation = formation;
+        this.formation = new LinkedHashMap<>(formation);
+        exactCount = new int[POSITIONS.length];
+        count = new int[POSITIONS.length];
+        stars = new int[POSITIONS.length];
+        lineup = new Player[this.formation.size()];
+        lineupPositions = new FieldPosition[lineup.length];
+        int index = 0;
+        for (Entry<Player, FieldPosition> entry : this.formation.entrySet()) {
+            lineup[index] = entry.getKey();
+            lineupPositions[index++] = entry.getValue();
+        }
+        // the versions are taken before the stars are read, see PlayerStore.set
+        stores = NO_STORES;
+        storeVersions = new int[0];
+        for (Player player : lineup)
+            track(player.getStore());
+        for (int i = 0; i < lineup.length; i++)
+            add(lineup[i], lineupPositions[i]);
         numberOfSubs = 0;
         numberOfChanges = 0;
     }
     
+    /** Constructs a MatchTactic playing views of players kept in a PlayerStore.
+     * The player with the id playerIds[i] plays on positions[i]. This
+     * constructor does not validate if that is a legal formation.
+     * 
+     * @param store         the store holding the players
+     * @param playerIds     the ids of the players on the field
+     * @param positions     the FieldPosition of each player
+     * @throws IllegalArgumentException if the arrays differ in length
+     * @throws NoSuchPlayerException if the store does not contain one of the players
+     */
+    public MatchTactic(PlayerStore store, int[] playerIds, FieldPosition[] positions) {
+        this(formation(store, playerIds, positions));
+    }
+    
+    private MatchTactic(MatchTactic tactic) {
+        formation = tactic.formation;
+        exactCount = tactic.exactCount;
+        count = tactic.count;
+        stars = tactic.stars;
+        lineup = tactic.lineup;
+        lineupPositions = tactic.lineupPositions;
+        stores = tactic.stores;
+        storeVersions = tactic.storeVersions;
+        numberOfSubs = tactic.numberOfSubs;
+        numberOfChanges = tactic.numberOfChanges;
+        shared = true;
+    }
+    
+    /** Returns a copy of this tactic, including the number of substitutions
+     * and changes. The copy shares the formation with this tactic until one
+     * of them is changed, so copying is cheap. A tactic and its copies can be
+     * used by different threads.
+     * 
+     * @return the copy
+     */
+    public MatchTactic copy() {
+        shared = true;
+        return new MatchTactic(this);
+    }
+    
+    /** Gives this tactic its own formation before it is changed. The stars are
+     * brought up to date first, so the change does not mix old and new stars. */
+    private void unshare() {
+        updateStars();
+        if (!shared)
+            return;
+        formation = new LinkedHashMap<>(formation);
+        exactCount = exactCount.clone();
+        count = count.clone();
+        stars = stars.clone();
+        lineup = lineup.clone();
+        lineupPositions = lineupPositions.clone();
+        shared = false;
+    }
+    
+    private static Map<Player, FieldPosition> formation(PlayerStore store, int[] playerIds,
+            FieldPosition[] positions) {
+        if (playerIds.length != positions.length)
+            throw new IllegalArgumentException("Every player needs exactly one FieldPosition.");
+        Map<Player, FieldPosition> formation = new LinkedHashMap<>();
+        for (int i = 0; i < playerIds.length; i++)
+            formation.put(store.getPlayer(playerIds[i]), positions[i]);
+        return formation;
+    }
+    
+    private static int[][] parents() {
+        int[][] parents = new int[POSITIONS.length][];
+        for (FieldPosition position : POSITIONS) {
+            int[] ordinals = new int[POSITIONS.length];
+            int size = 0;
+            for (FieldPosition parent : POSITIONS)
+                if (position.isA(parent))
+                    ordinals[size++] = parent.ordinal();
+            parents[position.ordinal()] = Arrays.copyOf(ordinals, size);
+        }
+        return parents;
+    }
+    
+    /** Notes the store of a player together with its current stars version,
+     * unless the player is not kept in a store or the store is noted already.
+     * The arrays are replaced instead of changed, as they may be shared. */
+    private void track(PlayerStore store) {
+        if (store == null)
+            return;
+        for (PlayerStore known : stores)
+            if (known == store)
+                return;
+        int n = stores.length;
+        int[] versions = Arrays.copyOf(storeVersions, n + 1);
+        versions[n] = store.getStarsVersion();
+        PlayerStore[] known = Arrays.copyOf(stores, n + 1);
+        known[n] = store;
+        stores = known;
+        storeVersions = versions;
+    }
+    
+    /** Sums the stars again if a store of the players has changed since they
+     * were summed. The sums are put into a new array, as the old one may be
+     * shared with a copy. */
+    private void updateStars() {
+        int n = stores.length;
+        int i = 0;
+        while (i < n && stores[i].getStarsVersion() == storeVersions[i])
+            i++;
+        if (i == n)
+            return;
+        int[] versions = new int[n];
+        for (i = 0; i < n; i++)
+            versions[i] = stores[i].getStarsVersion();
+        int[] sums = new int[POSITIONS.length];
+        for (i = 0; i < lineup.length; i++) {
+            int playerStars = lineup[i].getStars();
+            for (int parent : PARENTS[lineupPositions[i].ordinal()])
+                sums[parent] += playerStars;
+        }
+        stars = sums;
+        storeVersions = versions;
+    }
+    
+    /** Adds a player to the aggregates of the given FieldPosition and all the
+     * FieldPositions it is a part of. Does not modify the formation. */
+    private void add(Player player, FieldPosition position) {
+        exactCount[position.ordinal()]++;
+        int playerStars = player.getStars();
+        for (int parent : PARENTS[position.ordinal()]) {
+            count[parent]++;
+            stars[parent] += playerStars;
+        }
+    }
+    
+    /** Removes a player from the aggregates of the given FieldPosition and all
+     * the FieldPositions it is a part of. Does not modify the formation. */
+    private void remove(Player player, FieldPosition position) {
+        exactCount[position.ordinal()]--;
+        int playerStars = player.getStars();
+        for (int parent : PARENTS[position.ordinal()]) {
+            count[parent]--;
+            stars[parent] -= playerStars;
+        }
+    }
+    
     //TODO: Constructor which creates a MatchTactic based on a given TeamTactic
     //public MatchTactic(TeamTactic tactic) {};
     
-    /** Returns the HasMap<Player, FieldPosition> containing the formation of
-     * the players on the field.
+    /** Returns the Map<Player, FieldPosition> containing the formation of
+     * the players on the field. To modify the formation use substitute,
+     * switchPlayers or changePosition.
      * 
-     * @return the HashMap<Player, FieldPosition> containing the formation
+     * @return an unmodifiable Map<Player, FieldPosition> containing the formation
      */
-    public Map<Player, FieldPosition> getFormation() {return formation;}
+    public Map<Player, FieldPosition> getFormation() {
+        return Collections.unmodifiableMap(formation);
+    }
     
     /** Returns the number of substitutions, which already took place
      * 
@@ -50,6 +237,12 @@ public class MatchTactic {
      */
     public int getNumberOfChanges() {return numberOfChanges;}
     
+    /* Sets the counters of a tactic restored from a MatchSnapshot */
+    void resume(int numberOfSubs, int numberOfChanges) {
+        this.numberOfSubs = numberOfSubs;
+        this.numberOfChanges = numberOfChanges;
+    }
+    
     //TODO
     //public FormationPattern convertToPattern(){};
     
@@ -68,7 +261,10 @@ public class MatchTactic {
         if (!formation.containsKey(player))
             throw new NoSuchPlayerException("The player, is not on the field. "
                                             + "To substitute, use substitute(Player down, Player up)");
-        formation.put(player, newPosition);
+        unshare();
+        remove(player, formation.put(player, newPosition));
+        add(player, newPosition);
+        lineupPositions[indexOf(player)] = newPosition;
         numberOfChanges++;
     }
     
@@ -77,7 +273,70 @@ public class MatchTactic {
      * @return an array containing all of the players currently playing
      */
     public Player[] getPlayers() {
-        return formation.keySet().toArray(new Player[0]);
+        return lineup.clone();
+    }
+    
+    /** Returns a single player of getPlayers() without copying the players.
+     * 
+     * @param index     the index of the player in getPlayers()
+     * @return the player
+     * @throws ArrayIndexOutOfBoundsException if there is no player with the index
+     */
+    public Player getPlayer(int index) {
+        return lineup[index];
+    }
+    
+    /** Returns a single player of getPosition(fieldPosition) without creating
+     * an array. numberOf(fieldPosition, true) is the number of these players.
+     * 
+     * @param fieldPosition     the field position
+     * @param index             the index of the player in getPosition(fieldPosition)
+     * @return the player
+     * @throws NoSuchPlayerException if there is no player with the index
+     */
+    public Player getPlayer(FieldPosition fieldPosition, int index) {
+        for (int i = 0; i < lineup.length; i++)
+            if (lineupPositions[i].isA(fieldPosition) && index-- == 0)
+                return lineup[i];
+        throw new NoSuchPlayerException("There is no such player on the field.");
+    }
+    
+    private int indexOf(Player player) {
+        for (int i = 0; i < lineup.length; i++)
+            if (lineup[i].equals(player))
+                return i;
+        return -1;
+    }
+    
+    /** Returns the number of players currently playing on the field.
+     * 
+     * @return the number of players
+     */
+    public int numberOfPlayers() {
+        return formation.size();
+    }
+    
+    /** Checks if all of the players currently playing are eligible.
+     * 
+     * @return true if all of the players are eligible, false otherwise
+     */
+    public boolean allPlayersEligible() {
+        for (Player player : lineup)
+            if (!player.isEligible())
+                return false;
+        return true;
+    }
+    
+    /** Returns the sum of the stars of the players who are currently playing on
+     * the given FieldPosition or on any sub-FieldPosition of it. Stars changed
+     * in a PlayerStore are taken into account.
+     * 
+     * @param fieldPosition     the field position
+     * @return the sum of the stars
+     */
+    public int getStars(FieldPosition fieldPosition) {
+        updateStars();
+        return stars[fieldPosition.ordinal()];
     }
     
     /** Looks for the players who are currently playing on the given
@@ -120,7 +379,10 @@ public class MatchTactic {
      * @return true if the formation matches with the pattern, false otherwise
      */
     public boolean matchesPattern(FormationPattern pattern) {
-        if (pattern.numberOfPlayers() != getPlayers().length)
+        long patternSignature = pattern.getSignature();
+        if (patternSignature != FormationPattern.NO_SIGNATURE)
+            return patternSignature == getSignature(pattern.getPositionMask());
+        if (pattern.numberOfPlayers() != numberOfPlayers())
             return false;
         for (FieldPosition fieldPosition : pattern.getPattern().keySet())
             if (pattern.numberOf(fieldPosition) != this.numberOf(fieldPosition, true))
@@ -128,19 +390,29 @@ public class MatchTactic {
         return true;
     }
     
+    /** Encodes the formation of this tactic as a signature, counting the players
+     * on the FieldPositions given in positionMask (sub-FieldPositions included).
+     * The formation complies with a FormationPattern if this signature is equal
+     * to the signature of the pattern, using the position mask of the pattern.
+     * 
+     * @param positionMask  bit i is set if the FieldPosition with the ordinal i
+     *                      should be encoded
+     * @return the signature, or FormationPattern.NO_SIGNATURE if the formation
+     *         cannot be encoded
+     */
+    public long getSignature(int positionMask) {
+        return FormationPattern.signature(positionMask, numberOfPlayers(), count);
+    }
+    
     /** Counts the number of players playing on a given FieldPosition.
      * Sub-FieldPositions are not counted. To count Sub-FieldPositions use
      * numberOf(FieldPosition fieldPosition, true).
      * 
-     * @param fieldPosition
-     * @return 
+     * @param fieldPosition     the field position
+     * @return the number of players
      */
     public int numberOf(FieldPosition fieldPosition) {
-        int count = 0;
-        for (FieldPosition currentPosition : formation.values())
-            if (currentPosition == fieldPosition)
-                count++;
-        return count;
+        return exactCount[fieldPosition.ordinal()];
     }
     
     /** Counts the number of players playing on a given FieldPosition. If
@@ -153,11 +425,7 @@ public class MatchTactic {
     public int numberOf(FieldPosition fieldPosition, boolean countSubpositions) {
         if (!countSubpositions)
             return numberOf(fieldPosition);
-        int count = 0;
-        for (FieldPosition currentPosition : formation.values())
-            if (currentPosition.isA(fieldPosition))
-                count++;
-        return count;
+        return count[fieldPosition.ordinal()];
     }
     
     /** Substitues a player on the field with another player on the bench. As a
@@ -178,8 +446,18 @@ public class MatchTactic {
                                             + "substituted is not on the field");
         if (formation.containsKey(up))
             throw new InvalidSubstitutionException("The player is already on the field");
+        unshare();
         FieldPosition position = formation.remove(down);
+        remove(down, position);
         formation.put(up, position);
+        track(up.getStore());
+        add(up, position);
+        // like the formation, the lineup moves the new player to the end
+        int index = indexOf(down);
+        System.arraycopy(lineup, index + 1, lineup, index, lineup.length - index - 1);
+        System.arraycopy(lineupPositions, index + 1, lineupPositions, index, lineup.length - index - 1);
+        lineup[lineup.length - 1] = up;
+        lineupPositions[lineup.length - 1] = position;
         numberOfSubs++;
     }
     
@@ -197,25 +475,34 @@ public class MatchTactic {
             throw new NullPointerException("null is not a valid parameter");
         if (!formation.containsKey(from) || !formation.containsKey(to))
             throw new NoSuchPlayerException("The player is not on the field");
-        FieldPosition temp = formation.get(from);
-        formation.put(from, formation.get(to));
-        formation.put(to, temp);
+        unshare();
+        FieldPosition fromPosition = formation.get(from);
+        FieldPosition toPosition = formation.get(to);
+        remove(from, fromPosition);
+        remove(to, toPosition);
+        formation.put(from, toPosition);
+        formation.put(to, fromPosition);
+        add(from, toPosition);
+        add(to, fromPosition);
+        lineupPositions[indexOf(from)] = toPosition;
+        lineupPositions[indexOf(to)] = fromPosition;
         numberOfChanges++;
     }
     
     @Override
     public String toString() {
-        String formationString = new String();
+        StringBuilder output = new StringBuilder("MATCH TACTICS");
+        String separator = "\n";
         for (Entry<Player, FieldPosition> entry : formation.entrySet()) {
             Player player = entry.getKey();
             FieldPosition position = entry.getValue();
-            formationString += player.getNameStars() + " - " + position + ",\n";
+            output.append(separator).append(player.getNameStars())
+                  .append(" - ").append(position);
+            separator = ",\n";
         }
-        formationString = formationString.substring(0, formationString.length()-2);
-        
-        return "MATCH TACTICS" + "\n" +
-               formationString + "\n" +
-               "Substitutions used: " + numberOfSubs + "\n" +
-               "Changes used: " + numberOfChanges;
+        return output.append("\n")
+                     .append("Substitutions used: ").append(numberOfSubs).append("\n")
+                     .append("Changes used: ").append(numberOfChanges)
+                     .toString();
     }
 }
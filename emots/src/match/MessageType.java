@@ -0,0 +1,12 @@
+package match;
+
+/** Type of a record in the MatchMessages of a Match
+ *
+ * @author nibah
+ */
+public enum MessageType {
+    TEXT,       // a free text added with addMessage(String)
+    DUEL,       // the stars of two FieldPositions were compared
+    PENALTY,    // a player shot a penalty against a goalie
+    RED_CARD    // a player was sent off
+}
@@ -1,13 +1,18 @@
 package match;
 
-/** Represents a player in the league.
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Represents a player in the league. A player either holds its own data or
+ * is a view of a player in a PlayerStore (see PlayerStore.getPlayer(int)),
+ * which is an instance of a package-private subclass reading everything
+ * through the store. Players are equal if they have the same id.
  *
  * @author DamnMyCode
  */
 public class Player {
-    private static int numberOfPlayers = 0;
+    private static final AtomicInteger numberOfPlayers = new AtomicInteger();
     
-    private int id;
+    private final int id;
     private String name;
     private PlayerPosition position;
     private int stars;
@@ -20,13 +25,31 @@ public class Player {
      * @param stars         number of stars
      */
     public Player (String name, PlayerPosition position, int stars){
-        id = numberOfPlayers++;
+        id = numberOfPlayers.getAndIncrement();
         this.name = name;
         this.position = position;
         this.stars = stars;
         eligible = true;
     }
     
+    /** Constructs a player without data of its own, for a view.
+     * 
+     * @param id            the id of the player
+     */
+    Player (int id){
+        this.id = id;
+    }
+    
+    /** Reserves a block of consecutive ids, which will not be given to any
+     * other player.
+     * 
+     * @param count         the number of ids
+     * @return              the first of the reserved ids
+     */
+    static int reserveIds(int count){
+        return numberOfPlayers.getAndAdd(count);
+    }
+    
     /**
      * 
      * @return true if the player is eligible, false otherwise
@@ -57,11 +80,10 @@ public class Player {
      * representing the stars of the players.
      */
     public String getNameStars() {
-        String starString = "(";
-        for (int i = 0; i<stars; i++)
-            starString += "*";
-        starString += ")";
-        return name + starString;
+        StringBuilder nameStars = new StringBuilder().append(getName()).append('(');
+        for (int i = 0, stars = getStars(); i<stars; i++)
+            nameStars.append('*');
+        return nameStars.append(')').toString();
     }
     
     /**
@@ -88,9 +110,28 @@ public class Player {
         this.eligible = eligible;
     }
     
+    /**
+     * 
+     * @return              the store holding the data of this player, or null
+     *                      if this player is not a view
+     */
+    public PlayerStore getStore(){
+        return null;
+    }
+    
+    @Override
+    public boolean equals(Object other){
+        return other instanceof Player && ((Player) other).id == id;
+    }
+    
+    @Override
+    public int hashCode(){
+        return id;
+    }
+    
     @Override
     public String toString(){
-        String s = "\nID: " + String.valueOf(id) + "\nName: " + String.valueOf(name) + "\nPlayer position: " + String.valueOf(position) + "\nStars: " + String.valueOf(stars) + "\nEligible: " + String.valueOf(eligible);
+        String s = "\nID: " + String.valueOf(id) + "\nName: " + String.valueOf(getName()) + "\nPlayer position: " + String.valueOf(getPosition()) + "\nStars: " + String.valueOf(getStars()) + "\nEligible: " + String.valueOf(isEligible());
         return s;
     }
 
@@ -0,0 +1,325 @@
+package match;
+
+import java.util.Arrays;
+
+/** Stores the data of many players in primitive columns instead of keeping a
+ * Player object for each of them. Players handed out by a store (see
+ * getPlayer(int)) are views: they only hold the store, the id and the slot of
+ * the player, and read and write everything else through the store. Two views
+ * of the same player are equal.
+ * 
+ * The columns are indexed by slot: the players get the slots 0, 1, 2, ... in
+ * the order they are added, so a store only has to be as large as the number
+ * of players in it, whatever their ids are. A player is found by its id with
+ * slotOf(int), which takes a single comparison if the ids in the store are
+ * consecutive, e.g. when all of them were reserved at once, and a binary
+ * search otherwise.
+ * 
+ * Players are added one by one with add(..), or in bulk by reserving a block
+ * of ids with reserve(int) and filling it with set(..). set(..) and
+ * setEligible(..) may be called concurrently as long as the threads work on
+ * different ids; everything else is not thread-safe.
+ *
+ * @author nibah
+ */
+public abstract class PlayerStore {
+    private static final PlayerPosition[] POSITIONS = PlayerPosition.values();
+    /** Flag bit of a player which was added to the store */
+    protected static final int PRESENT = 1;
+    /** Flag bit of an eligible player */
+    protected static final int ELIGIBLE = 2;
+    /** Lowest bit of the PlayerPosition ordinal within the flags */
+    protected static final int POSITION_SHIFT = 2;
+    
+    private String[] names;     // the name of every player, indexed by slot
+    private int[] ids;          // the id of every player, indexed by slot, ascending
+    private int size;           // the number of slots in use
+    private int starsVersion;   // changed whenever the stars of a player are set
+    
+    /** Constructs a store for the given number of players.
+     * 
+     * @param capacity  the initial capacity
+     */
+    protected PlayerStore(int capacity) {
+        names = new String[capacity];
+        ids = new int[capacity];
+    }
+    
+    /** Constructs a store keeping its columns in arrays on the heap.
+     * 
+     * @param capacity  the number of players the store can hold before growing
+     * @return the new store
+     */
+    public static PlayerStore onHeap(int capacity) {
+        return new HeapPlayerStore(capacity);
+    }
+    
+    /** Constructs a store keeping its columns in a direct ByteBuffer outside
+     * of the Java heap. The names are still kept on the heap.
+     * 
+     * @param capacity  the number of players the store can hold before growing
+     * @return the new store
+     */
+    public static PlayerStore offHeap(int capacity) {
+        return new DirectPlayerStore(capacity);
+    }
+    
+    /** Returns the number of players the store can hold without growing.
+     * 
+     * @return the capacity
+     */
+    public int capacity() {return names.length;}
+    
+    /** Returns the number of slots in use, including reserved ones which were
+     * not set yet.
+     * 
+     * @return the size
+     */
+    public int size() {return size;}
+    
+    /** Adds a new eligible player to the store. The player gets a new id, just
+     * like a Player constructed with new Player(..).
+     * 
+     * @param name          name
+     * @param position      player position
+     * @param stars         number of stars
+     * @return a view of the new player
+     */
+    public Player add(String name, PlayerPosition position, int stars) {
+        int id = reserve(1);
+        set(id, name, position, stars);
+        return getPlayer(id);
+    }
+    
+    /** Reserves a block of new player ids and the slots for them, growing the
+     * store if needed. The ids are fetched from the same sequence as the ids
+     * of Player objects. The reserved players have to be filled with set(..).
+     * 
+     * @param count     the number of ids
+     * @return the first of the reserved ids; the others follow consecutively
+     * @throws IllegalArgumentException if count is negative
+     */
+    public int reserve(int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("count should be a positive integer");
+        ensureCapacity(size + count);
+        int first = Player.reserveIds(count);
+        for (int i = 0; i < count; i++)
+            ids[size + i] = first + i;
+        size += count;
+        return first;
+    }
+    
+    /** Finds the slot of a player. As ids are handed out in ascending order,
+     * the ids column is sorted.
+     * 
+     * @param id    the id
+     * @return the slot of the player, or -1 if no slot was reserved for the id
+     */
+    public int slotOf(int id) {
+        int n = size;
+        if (n == 0)
+            return -1;
+        int guess = id - ids[0];    // the slot if the ids are consecutive
+        if (guess >= 0 && guess < n && ids[guess] == id)
+            return guess;
+        int slot = Arrays.binarySearch(ids, 0, n, id);
+        return slot >= 0 ? slot : -1;
+    }
+    
+    /* The slot of a player, which has to be in the store */
+    private int slot(int id) {
+        int slot = slotOf(id);
+        if (slot < 0)
+            throw new NoSuchPlayerException("There is no player with the id " + id + " in this store.");
+        return slot;
+    }
+    
+    /** Sets the data of the player with the given id. The player is eligible
+     * afterwards.
+     * 
+     * @param id            an id reserved with reserve(int)
+     * @param name          name
+     * @param position      player position
+     * @param stars         number of stars
+     * @throws IllegalArgumentException if position is null
+     */
+    public void set(int id, String name, PlayerPosition position, int stars) {
+        if (position == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        int slot = slot(id);
+        names[slot] = name;
+        setStarsAt(slot, stars);
+        setFlagsAt(slot, PRESENT | ELIGIBLE | position.ordinal() << POSITION_SHIFT);
+        starsVersion++;     // after the stars, so a reader never misses them
+    }
+    
+    /* Returns a number which changes whenever set(..) changes the stars of a
+       player, see MatchTactic.getStars(FieldPosition). Concurrent calls of
+       set(..) may lose increments, but the number changes all the same. */
+    int getStarsVersion() {return starsVersion;}
+    
+    /** Decides if the player with the given id was added to this store.
+     * 
+     * @param id    the id
+     * @return true if the store contains the player, false otherwise
+     */
+    public boolean contains(int id) {
+        int slot = slotOf(id);
+        return slot >= 0 && (getFlagsAt(slot) & PRESENT) != 0;
+    }
+    
+    /** Returns a view of the player with the given id.
+     * 
+     * @param id    the id
+     * @return a view of the player
+     * @throws NoSuchPlayerException if the store does not contain the player
+     */
+    public Player getPlayer(int id) {
+        int slot = slotOf(id);
+        if (slot < 0 || (getFlagsAt(slot) & PRESENT) == 0)
+            throw new NoSuchPlayerException("There is no player with the id " + id + " in this store.");
+        return new StoredPlayer(this, id, slot);
+    }
+    
+    /** Returns views of the players with the given ids.
+     * 
+     * @param ids   the ids
+     * @return an array containing a view of each player
+     * @throws NoSuchPlayerException if the store does not contain one of the players
+     */
+    public Player[] getPlayers(int[] ids) {
+        Player[] players = new Player[ids.length];
+        for (int i = 0; i < ids.length; i++)
+            players[i] = getPlayer(ids[i]);
+        return players;
+    }
+    
+    /**
+     * 
+     * @param id    the id of a player in the store
+     * @return      name
+     * @throws NoSuchPlayerException if the store has no slot for the id
+     */
+    public String getName(int id) {
+        return getNameAt(slot(id));
+    }
+    
+    /**
+     * 
+     * @param id    the id of a player in the store
+     * @return      player position
+     * @throws NoSuchPlayerException if the store has no slot for the id
+     */
+    public PlayerPosition getPosition(int id) {
+        return getPositionAt(slot(id));
+    }
+    
+    /**
+     * 
+     * @param id    the id of a player in the store
+     * @return      the amount of stars the player has
+     * @throws NoSuchPlayerException if the store has no slot for the id
+     */
+    public int getStars(int id) {
+        return getStarsAt(slot(id));
+    }
+    
+    /**
+     * 
+     * @param id    the id of a player in the store
+     * @return true if the player is eligible, false otherwise
+     * @throws NoSuchPlayerException if the store has no slot for the id
+     */
+    public boolean isEligible(int id) {
+        return isEligibleAt(slot(id));
+    }
+    
+    /** Sets eligibility of a player.
+     * 
+     * @param id            the id of a player in the store
+     * @param eligible      true if player should be eligible next match, false if not.
+     * @throws NoSuchPlayerException if the store has no slot for the id
+     */
+    public void setEligible(int id, boolean eligible) {
+        setEligibleAt(slot(id), eligible);
+    }
+    
+    /**
+     * 
+     * @param slot  a slot in use
+     * @return      the id of the player in the slot
+     */
+    public int getIdAt(int slot) {
+        return ids[slot];
+    }
+    
+    /**
+     * 
+     * @param slot  the slot of a player in the store
+     * @return      name
+     */
+    public String getNameAt(int slot) {
+        return names[slot];
+    }
+    
+    /**
+     * 
+     * @param slot  the slot of a player in the store
+     * @return      player position
+     */
+    public PlayerPosition getPositionAt(int slot) {
+        return POSITIONS[getFlagsAt(slot) >>> POSITION_SHIFT];
+    }
+    
+    /**
+     * 
+     * @param slot  the slot of a player in the store
+     * @return true if the player is eligible, false otherwise
+     */
+    public boolean isEligibleAt(int slot) {
+        return (getFlagsAt(slot) & ELIGIBLE) != 0;
+    }
+    
+    /** Sets eligibility of the player in a slot.
+     * 
+     * @param slot          the slot of a player in the store
+     * @param eligible      true if player should be eligible next match, false if not.
+     */
+    public void setEligibleAt(int slot, boolean eligible) {
+        int flags = getFlagsAt(slot);
+        setFlagsAt(slot, eligible ? flags | ELIGIBLE : flags & ~ELIGIBLE);
+    }
+    
+    /** Grows the store to hold at least the given number of players.
+     * 
+     * @param capacity  the new minimal capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= names.length)
+            return;
+        int newCapacity = Math.max(capacity, names.length + (names.length >> 1));
+        names = Arrays.copyOf(names, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        grow(newCapacity);
+    }
+    
+    /**
+     * 
+     * @param slot  the slot of a player in the store
+     * @return      the amount of stars the player has
+     */
+    public abstract int getStarsAt(int slot);
+    
+    /** Sets the stars of the player in a slot. */
+    protected abstract void setStarsAt(int slot, int stars);
+    
+    /** Returns the flags (PRESENT, ELIGIBLE, position ordinal) of the player in a slot. */
+    protected abstract int getFlagsAt(int slot);
+    
+    /** Sets the flags (PRESENT, ELIGIBLE, position ordinal) of the player in a slot. */
+    protected abstract void setFlagsAt(int slot, int flags);
+    
+    /** Grows the primitive columns to the given capacity, keeping their content. */
+    protected abstract void grow(int capacity);
+}
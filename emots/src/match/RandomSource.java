@@ -0,0 +1,23 @@
+package match;
+
+/** Source of the random draws made during a Match (i.e. which event happens
+ * in a round, which side is awarded a penalty, which player is picked).
+ *
+ * @author nibah
+ */
+public interface RandomSource {
+    
+    /** Returns a pseudorandom int value between 0 (inclusive) and bound
+     * (exclusive).
+     * 
+     * @param bound     the upper bound (exclusive). Must be positive.
+     * @return the drawn value
+     */
+    int nextInt(int bound);
+    
+    /** Returns a pseudorandom boolean value.
+     * 
+     * @return the drawn value
+     */
+    boolean nextBoolean();
+}
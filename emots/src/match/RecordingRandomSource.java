@@ -0,0 +1,108 @@
+package match;
+
+import java.util.Arrays;
+
+/** RandomSource recording every draw of another source into a log, which a
+ * ReplayRandomSource feeds back to reproduce a match exactly. The draws are
+ * logged as unsigned varints: 7 bits per byte, the lowest bits first, with
+ * the highest bit set on every byte but the last. A boolean is logged as 0 or
+ * 1. Event, side and player picks are below 128 and take a single byte, so
+ * the log of a match has about one byte per draw.
+ * 
+ * Event controllers which need several or large draws to roll an event, like
+ * WeightedMatchEventController, can make them through getSource(), which is
+ * not logged, and log only the index of the rolled event with record(int).
+ * A ReplayRandomSource gives the index back to a single nextInt(bound), so
+ * the controller rolls with one small draw when it replays.
+ *
+ * This class is not thread-safe; every Match should use its own source.
+ *
+ * @author nibah
+ */
+public class RecordingRandomSource implements RandomSource {
+    private final RandomSource random;  // makes the draws
+    private byte[] log = new byte[64];
+    private int size;                   // the number of bytes logged
+    private int draws;                  // the number of draws logged
+    
+    /** Constructs a source recording the draws of another one.
+     * 
+     * @param random    the source making the draws
+     * @throws IllegalArgumentException if random is null
+     */
+    public RecordingRandomSource(RandomSource random) {
+        if (random == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        this.random = random;
+    }
+    
+    @Override
+    public int nextInt(int bound) {
+        int value = random.nextInt(bound);
+        append(value);
+        return value;
+    }
+    
+    @Override
+    public boolean nextBoolean() {
+        boolean value = random.nextBoolean();
+        append(value ? 1 : 0);
+        return value;
+    }
+    
+    /** Returns the source making the draws. Draws made on it directly are not
+     * logged; the value resolved from them has to be logged with record(int).
+     * 
+     * @return the recorded source
+     */
+    public RandomSource getSource() {
+        return random;
+    }
+    
+    /** Logs a value as a single draw, as if it had been returned by
+     * nextInt(bound) for any bound above it.
+     * 
+     * @param value     the value, e.g. the index of a rolled event
+     * @throws IllegalArgumentException if value is negative
+     */
+    public void record(int value) {
+        if (value < 0)
+            throw new IllegalArgumentException("value should not be negative");
+        append(value);
+    }
+    
+    private void append(int value) {
+        if (size + 5 > log.length)
+            log = Arrays.copyOf(log, log.length * 2);
+        while ((value & ~0x7F) != 0) {
+            log[size++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        log[size++] = (byte) value;
+        draws++;
+    }
+    
+    /**
+     * 
+     * @return a copy of the log of the draws made so far
+     */
+    public byte[] getLog() {
+        return Arrays.copyOf(log, size);
+    }
+    
+    /**
+     * 
+     * @return the number of bytes logged so far
+     */
+    public int getLogSize() {
+        return size;
+    }
+    
+    /**
+     * 
+     * @return the number of draws made so far
+     */
+    public int getDraws() {
+        return draws;
+    }
+}
@@ -0,0 +1,83 @@
+package match;
+
+/** RandomSource feeding back the draws logged by a RecordingRandomSource. A
+ * match played with the same teams, tactics, rules and event controller as
+ * the recorded one makes the same draws and ends the same way, without any
+ * random number generator.
+ *
+ * If the match asks for a draw the log cannot answer, because the log is
+ * exhausted or the logged value is out of the requested bounds, the match
+ * differs from the recorded one and an IllegalStateException is thrown.
+ *
+ * This class is not thread-safe; every Match should use its own source.
+ *
+ * @author nibah
+ */
+public class ReplayRandomSource implements RandomSource {
+    private final byte[] log;
+    private int position;               // the offset of the next draw in the log
+    private int draws;                  // the number of draws replayed
+    
+    /** Constructs a source replaying a log.
+     * 
+     * @param log       the log of a RecordingRandomSource, which is copied
+     * @throws IllegalArgumentException if log is null
+     */
+    public ReplayRandomSource(byte[] log) {
+        if (log == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        this.log = log.clone();
+    }
+    
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("bound should be positive");
+        int value = next();
+        if (value >= bound)
+            throw new IllegalStateException("The log does not match the match: draw " + (draws - 1)
+                    + " is " + value + ", but the bound is " + bound + ".");
+        return value;
+    }
+    
+    @Override
+    public boolean nextBoolean() {
+        int value = next();
+        if (value > 1)
+            throw new IllegalStateException("The log does not match the match: draw " + (draws - 1)
+                    + " is " + value + ", but a boolean was expected.");
+        return value == 1;
+    }
+    
+    private int next() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position == log.length)
+                throw new IllegalStateException("The log does not match the match: it has only "
+                        + draws + " draws.");
+            byte b = log[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                draws++;
+                return value;
+            }
+        }
+        throw new IllegalStateException("Corrupt log: draw " + draws + " is too long.");
+    }
+    
+    /**
+     * 
+     * @return the number of draws replayed so far
+     */
+    public int getDraws() {
+        return draws;
+    }
+    
+    /**
+     * 
+     * @return true if every draw of the log has been replayed
+     */
+    public boolean isExhausted() {
+        return position == log.length;
+    }
+}
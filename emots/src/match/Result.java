@@ -21,7 +21,20 @@ public class Result {
         this.match = match;
         winner = Winner.UNDEFINED;
         ended = false;
-        stats = new StandardMatchStatistics();
+        stats = new StandardMatchStatistics(match);
+    }
+    
+    private Result(Match match, MatchStatistics stats) {
+        this.match = match;
+        this.stats = stats;
+    }
+    
+    /* Returns the result of a branch of the match, see Match.fork() */
+    Result fork(Match branch) {
+        Result fork = new Result(branch, ((StandardMatchStatistics) stats).fork(branch));
+        fork.winner = winner;
+        fork.ended = ended;
+        return fork;
     }
     
     /** Returns the Match which results are contained in this object
@@ -99,6 +112,19 @@ public class Result {
         ended = true;
     }
     
+    /* Clears the result for another fixture, see MatchArena */
+    void reset() {
+        winner = Winner.UNDEFINED;
+        ended = false;
+        ((StandardMatchStatistics) stats).reset();
+    }
+    
+    /* Sets the winner and the end of a match restored from a MatchSnapshot */
+    void restore(Winner winner, boolean ended) {
+        this.winner = winner;
+        this.ended = ended;
+    }
+    
     @Override
     public String toString() {
         return "Results of " + match + "\n" +
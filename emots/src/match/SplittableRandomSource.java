@@ -0,0 +1,157 @@
+package match;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** RandomSource using the SplitMix64 algorithm of java.util.SplittableRandom.
+ * A source seeded with a value draws the same numbers as a SplittableRandom
+ * with that seed. A source can be split into statistically independent
+ * sources, which can be used by parallel matches.
+ *
+ * The whole state of a source are two longs, the seed and the gamma, so it
+ * can be saved with getSeed() and getGamma() and resumed later on with
+ * SplittableRandomSource(long, long).
+ *
+ * This class is not thread-safe; every Match should use its own source.
+ *
+ * @author nibah
+ */
+public class SplittableRandomSource implements RandomSource {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final AtomicLong defaultSeeds = new AtomicLong(
+            mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+            /* the seeds of the sources constructed without one */
+    
+    private long seed;          // advanced by gamma before every draw
+    private long gamma;         // odd
+    
+    /** Constructs a source seeded with a value unlikely to be used by any
+        other source. */
+    public SplittableRandomSource() {
+        long seed = defaultSeeds.getAndAdd(2 * GOLDEN_GAMMA);
+        this.seed = mix64(seed);
+        this.gamma = mixGamma(seed + GOLDEN_GAMMA);
+    }
+    
+    /** Constructs a source with the given seed. Sources constructed with the
+     * same seed produce the same sequence of draws.
+     * 
+     * @param seed      the initial seed
+     */
+    public SplittableRandomSource(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+    
+    /** Resumes a source saved with getSeed() and getGamma(). The new source
+     * continues with the draws the saved one would have made next.
+     * 
+     * @param seed      the seed of the saved source
+     * @param gamma     the gamma of the saved source
+     * @throws IllegalArgumentException if gamma is even
+     */
+    public SplittableRandomSource(long seed, long gamma) {
+        if ((gamma & 1) == 0)
+            throw new IllegalArgumentException("gamma should be odd");
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+    
+    /** Restarts the source as if it was constructed with the given seed.
+     * 
+     * @param seed      the initial seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.gamma = GOLDEN_GAMMA;
+    }
+    
+    /**
+     * 
+     * @return the current seed of the source, which changes with every draw
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     * 
+     * @return the gamma of the source, which only changes when the source is restarted
+     */
+    public long getGamma() {
+        return gamma;
+    }
+    
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+    
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+    
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));  // the number of bit transitions
+        return n < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+    
+    private long nextSeed() {
+        return seed += gamma;
+    }
+    
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("bound should be positive");
+        int r = mix32(nextSeed());
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            r &= m;
+        } else {
+            // reject the top values which would make the result biased
+            for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1)
+                ;
+        }
+        return r;
+    }
+    
+    @Override
+    public boolean nextBoolean() {
+        return mix32(nextSeed()) < 0;
+    }
+    
+    /** Constructs a source in the same state as this one. Both make the same
+     * draws from now on.
+     * 
+     * @return the copy
+     */
+    public SplittableRandomSource copy() {
+        return new SplittableRandomSource(seed, gamma);
+    }
+    
+    /** Constructs a new source which shares no state with this one. The draws
+     * of the new source are independent from the draws of this source.
+     * 
+     * @return the new source
+     */
+    public SplittableRandomSource split() {
+        return new SplittableRandomSource(mix64(nextSeed()), mixGamma(nextSeed()));
+    }
+    
+    /** Splits this source like split(), but restarts the given source with
+     * the new state instead of constructing one.
+     * 
+     * @param target    the source which is restarted
+     * @throws IllegalArgumentException if target is null
+     */
+    public void splitInto(SplittableRandomSource target) {
+        if (target == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        target.seed = mix64(nextSeed());
+        target.gamma = mixGamma(nextSeed());
+    }
+}
@@ -1,20 +1,19 @@
 package match;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /** Represents very simple match rules: constant number of rounds, no tie breaks.
  * Allowed formations are 3-5-2, 3-4-3, 4-5-1, 4-4-2, 4-3-3, 5-3-2, 5-4-1 by default.
  * Uneligible players are not allowed to play.
+ * 
+ * The rules are immutable, so one instance can be shared by all matches and
+ * threads.
  *
  * @author nibah
  */
 public class StandardMatchRules implements MatchRules {
-    private int round;      // the current round the match is in now
-    private List<String> illegalTacticMessages;
-            /* A list of error messages containing detailed description why
-               the last tactic checked with allowedTactic(Tactic) is not legal.
-               If the tactic was legal, this list is empty.*/
     private final int maxRounds;    // maximal amount of rounds in a match
     private final int minPlayers;   // minimal number of Players on the field
     private final int maxPlayers;   // maximal number of Players on the field
@@ -26,6 +25,15 @@ public class StandardMatchRules implements MatchRules {
                herself, false otherwise*/
     private final FormationPattern[] allowedPatterns;
             /* an array containing all of the legal formation patterns */
+    private final int[] patternMasks;
+            /* the distinct position masks of the allowed patterns which have
+               a signature */
+    private final long[][] patternSignatures;
+            /* the sorted signatures of the allowed patterns for each of the
+               masks in patternMasks */
+    private final FormationPattern[] unsignedPatterns;
+            /* the allowed patterns without a signature, which have to be
+               compared one by one */
     
     /** Constructs standard match rules with 6 rounds, a maximal of 3 substitutions
      * with substitute backs being illegal, 9 to 11 players on the field. Uneligible
@@ -47,8 +55,9 @@ public class StandardMatchRules implements MatchRules {
             new StandardFormationPattern(5,3,2),
             new StandardFormationPattern(5,4,1)
         };
-        round = 0;
-        illegalTacticMessages = new ArrayList<>();
+        patternMasks = masks(allowedPatterns);
+        patternSignatures = signatures(allowedPatterns, patternMasks);
+        unsignedPatterns = unsigned(allowedPatterns);
     }
     
     /** Constructs standard match rules with no tie breaks. Uneligible players
@@ -78,30 +87,57 @@ public class StandardMatchRules implements MatchRules {
         if (maxSubs < 0)
             throw new IllegalArgumentException("maxSubs should be a positive integer");
         
-        this.allowedPatterns = allowedFormations;
+        this.allowedPatterns = allowedFormations.clone();
+        this.patternMasks = masks(allowedPatterns);
+        this.patternSignatures = signatures(allowedPatterns, patternMasks);
+        this.unsignedPatterns = unsigned(allowedPatterns);
         this.maxRounds = rounds;
         this.minPlayers = minPlayers;
         this.maxPlayers = maxPlayers;
         this.maxSubs = maxSubs;
         this.subBackAllowed = subBackAllowed;
-        round = 0;
-        illegalTacticMessages = new ArrayList<>();
     }
     
-    /** Returns the current round the match is in.
-     * 
-     * @return the number of the current round.
-     */
-    public int getCurrentRound() {return round;}
+    /** Collects the distinct position masks of the patterns with a signature. */
+    private static int[] masks(FormationPattern[] patterns) {
+        int[] masks = new int[patterns.length];
+        int size = 0;
+        for (FormationPattern pattern : patterns) {
+            if (pattern.getSignature() == FormationPattern.NO_SIGNATURE)
+                continue;
+            boolean known = false;
+            for (int i = 0; i < size; i++)
+                known |= masks[i] == pattern.getPositionMask();
+            if (!known)
+                masks[size++] = pattern.getPositionMask();
+        }
+        return Arrays.copyOf(masks, size);
+    }
     
-    /** Returns the error messages explaining why the tactic last examined with
-     * allowedTactic(MatchTactic) is illegal. If the tactic was legal or if no
-     * tactics were examined yet, an empty array will be returned.
-     * 
-     * @return an array containing all of the error messages
-     */
-    public String[] getIllegalTacticMessages() {
-        return illegalTacticMessages.toArray(new String[0]);
+    /** Groups the signatures of the patterns by position mask and sorts them,
+        so a signature can be looked up with a binary search. */
+    private static long[][] signatures(FormationPattern[] patterns, int[] masks) {
+        long[][] signatures = new long[masks.length][];
+        for (int i = 0; i < masks.length; i++) {
+            long[] group = new long[patterns.length];
+            int size = 0;
+            for (FormationPattern pattern : patterns)
+                if (pattern.getSignature() != FormationPattern.NO_SIGNATURE &&
+                    pattern.getPositionMask() == masks[i])
+                    group[size++] = pattern.getSignature();
+            signatures[i] = Arrays.copyOf(group, size);
+            Arrays.sort(signatures[i]);
+        }
+        return signatures;
+    }
+    
+    /** Collects the patterns without a signature. */
+    private static FormationPattern[] unsigned(FormationPattern[] patterns) {
+        List<FormationPattern> result = new ArrayList<>();
+        for (FormationPattern pattern : patterns)
+            if (pattern.getSignature() == FormationPattern.NO_SIGNATURE)
+                result.add(pattern);
+        return result.toArray(new FormationPattern[0]);
     }
     
     /** Returns how many rounds will be played in all
@@ -135,34 +171,32 @@ public class StandardMatchRules implements MatchRules {
      * 
      * @return an array containing the formation patterns
      */
-    public FormationPattern[] getFormationPatterns() {return allowedPatterns;}
+    public FormationPattern[] getFormationPatterns() {return allowedPatterns.clone();}
     
     /** Examines if a given MatchTactic fulfills the requirements specified in
-     * this MatchRules object to be a legal tactic. This method modifies the error
-     * messages for later access via getIllegalTacticMessages()
+     * this MatchRules object to be a legal tactic.
      * 
      * @param tactic    the tactic that should be examined
-     * @return true if the tactic is legal, false otherwise
+     * @return the violations of the rules, ValidationResult.LEGAL if there are none
      */
     @Override
-    public boolean allowedTactic(MatchTactic tactic) {
-        illegalTacticMessages.clear();
-        Player[] players = tactic.getPlayers();
-        int substitutions = tactic.getNumberOfSubs();
-        int playersOnField = players.length;
-        boolean allPlayersEligible = allPlayersEligible(players);
-        boolean legalNumberOfSubs = legalNumberOfSubstitutions(substitutions);
-        boolean legalNumberOfPlayers = legalNumberOfPlayers(playersOnField);
-        boolean allowedFormation  = allowedFormationPattern(tactic);
-        return  allPlayersEligible &&
-                legalNumberOfSubs &&
-                legalNumberOfPlayers &&
-                allowedFormation;
+    public ValidationResult validate(MatchTactic tactic) {
+        int violations = 0;
+        if (!tactic.allPlayersEligible())
+            violations |= ValidationResult.INELIGIBLE_PLAYER;
+        if (tactic.getNumberOfSubs() > maxSubs)
+            violations |= ValidationResult.TOO_MANY_SUBSTITUTIONS;
+        int playersOnField = tactic.numberOfPlayers();
+        if (playersOnField < minPlayers)
+            violations |= ValidationResult.TOO_FEW_PLAYERS;
+        else if (playersOnField > maxPlayers)
+            violations |= ValidationResult.TOO_MANY_PLAYERS;
+        if (!allowedFormationPattern(tactic))
+            violations |= ValidationResult.ILLEGAL_FORMATION;
+        return ValidationResult.of(violations);
     }
     
     /** Checks if a given tactic is using one of the allowed FormationPatterns.
-     * This method modifies the error messages for later access via
-     * getIllegalTacticMessages()
      * 
      * @param tactic the tactic which should be examined
      * @return true if the given tactic is using one of the allowed formation
@@ -170,89 +204,25 @@ public class StandardMatchRules implements MatchRules {
      */
     private boolean allowedFormationPattern(MatchTactic tactic) {
         boolean allowed = false;
-        for (FormationPattern pattern : allowedPatterns) {
-            if (tactic.matchesPattern(pattern)) {
-                allowed= true;
-                break;
-            }
-        }
-        if (!allowed) {
-            illegalTacticMessages.add("This is not an allowed formation.");
-            return false;
+        for (int i = 0; i < patternMasks.length && !allowed; i++) {
+            long signature = tactic.getSignature(patternMasks[i]);
+            allowed = signature != FormationPattern.NO_SIGNATURE &&
+                      Arrays.binarySearch(patternSignatures[i], signature) >= 0;
         }
-        return true;
-    }
-    
-    /** Checks if all players in a Player[] array are eligible to play.
-     * This method modifies the error messages for later access via 
-     * getIllegalTacticMessages() (One message is added for each uneligible
-     * player)
-     * 
-     * @param players       an array containing the players to be examined
-     * @return true if all of the players are eligible, false otherwise
-     */
-    private boolean allPlayersEligible(Player[] players) {
-        boolean legal = true;
-        for (Player currentPlayer : players)
-            if (!currentPlayer.isEligible()) {
-                illegalTacticMessages.add(currentPlayer.getName() + 
-                                          " is not eligible to play.");
-                legal = false;
-            }
-        return legal;
+        for (int i = 0; i < unsignedPatterns.length && !allowed; i++)
+            allowed = tactic.matchesPattern(unsignedPatterns[i]);
+        return allowed;
     }
 
-    /** Determines if a new round can begin, or if the current round was the
-     * last one
+    /** Determines if a new round can begin, or if the last round has been
+     * played
      * 
-     * @return true if the current round was not the last one, false otherwise
+     * @param roundsPlayed  the number of rounds the match has played so far
+     * @return true if fewer than getMaxRounds() rounds were played, false otherwise
      */
     @Override
-    public boolean hasNextRound() {
-        return round < maxRounds;
-    }
-    
-    /** Checks if a given number is a legal number of players on the field. To
-     * decide this, this method compares the parameter playersOnField with the
-     * maximal and minimal number of players. This method modifies the error messages
-     * for later access via getIllegalTacticMessages()
-     * 
-     * @param playersOnField    the number of players currently on the field
-     * @return true if the number of players is legal, false otherwise
-     */
-    private boolean legalNumberOfPlayers(int playersOnField) {
-        if (playersOnField < minPlayers) {
-            illegalTacticMessages.add("Not enough players on the field.");
-            return false;
-        }
-        if (playersOnField > maxPlayers) {
-            illegalTacticMessages.add("Too many players on the field.");
-            return false;
-        }
-        return true;
-    }
-    
-    /** Checks if a given number is greater then the maximal amount of
-     * substitutions one team is allowed to do during a game.
-     * 
-     * @param substitutions the number of substitutions that took place already
-     * @return true if the substitution limit has not been exceeded, false
-     *         otherwise
-     */
-    private boolean legalNumberOfSubstitutions(int substitutions) {
-        if (substitutions > maxSubs) {
-            illegalTacticMessages.add("No substitutions left.");
-            return false;
-        }
-        return true;
-    }
-    
-    /** A method to signal the end of a round to the StandardMatchRules object.
-     * This should be called at the end of every round. */
-    @Override
-    public void roundEnd() {
-        if (hasNextRound())
-            round++;
+    public boolean hasNextRound(int roundsPlayed) {
+        return roundsPlayed < maxRounds;
     }
     
     /** Decides if it is legal for a player to substitute another one even
@@ -267,15 +237,14 @@ public class StandardMatchRules implements MatchRules {
     
     @Override
     public String toString() {
-        String legalFormationPatterns = new String();
+        StringBuilder output = new StringBuilder();
+        output.append("Rounds: ").append(maxRounds).append("\n")
+              .append("Players: ").append(minPlayers).append(" to ").append(maxPlayers).append("\n")
+              .append("Maximum Substitutions: ").append(maxSubs).append("\n")
+              .append("Substitute Backs: ").append(subBackAllowed ? "allowed" : "banned").append("\n")
+              .append("Legal Formation Patterns: ").append("\n");
         for (FormationPattern pattern : allowedPatterns)
-            legalFormationPatterns += pattern + "\n";
-        
-        return "Round: " + round + "/" + maxRounds + "\n" +
-               "Players: " + minPlayers + " to " + maxPlayers + "\n" +
-               "Maximum Substitutions: " + maxSubs + "\n" +
-               "Substitute Backs: " + (subBackAllowed ? "allowed" : "banned") + "\n" +
-               "Legal Formation Patterns: " + "\n" +
-                legalFormationPatterns;
+            output.append(pattern).append("\n");
+        return output.toString();
     }
 }
@@ -11,9 +11,18 @@ public class StandardMatchStatistics implements MatchStatistics{
     
     /** Standard constructor initialising home and guest score with 0 */
     StandardMatchStatistics () {
+        this((Match) null);
+    }
+    
+    /** Constructor initialising home and guest score with 0. The messages
+     * resolve the names of the players of the given match.
+     * 
+     * @param match     the match these statistics are about
+     */
+    StandardMatchStatistics (Match match) {
         homeGoals = 0;
         guestGoals = 0;
-        messages = new MatchMessages();
+        messages = new MatchMessages(match);
     }
     
     /** Returns the score of the home team
@@ -47,6 +56,30 @@ public class StandardMatchStatistics implements MatchStatistics{
         homeGoals++;
     }
     
+    /* Returns the statistics of a branch of the match, see Match.fork() */
+    StandardMatchStatistics fork(Match branch) {
+        StandardMatchStatistics fork = new StandardMatchStatistics(messages.fork(branch));
+        fork.setGoals(homeGoals, guestGoals);
+        return fork;
+    }
+    
+    private StandardMatchStatistics (MatchMessages messages) {
+        this.messages = messages;
+    }
+    
+    /* Clears the score and the messages for another fixture, see MatchArena */
+    void reset() {
+        homeGoals = 0;
+        guestGoals = 0;
+        messages.clear();
+    }
+    
+    /* Sets the score of a match restored from a MatchSnapshot */
+    void setGoals(int homeGoals, int guestGoals) {
+        this.homeGoals = homeGoals;
+        this.guestGoals = guestGoals;
+    }
+    
     @Override
     public String toString() {
         return homeGoals + " - " + guestGoals;
@@ -0,0 +1,49 @@
+package match;
+
+/** A view of a player in a PlayerStore. It only adds the store and the slot
+ * of the player to the id, and reads and writes everything else through the
+ * store; the fields a Player keeps its own data in stay unused. Views are
+ * created on demand and are cheap to throw away.
+ *
+ * @author nibah
+ */
+final class StoredPlayer extends Player {
+    private final PlayerStore store;    // the store holding the data of the player
+    private final int slot;             // the slot of the player in the store
+    
+    StoredPlayer(PlayerStore store, int id, int slot) {
+        super(id);
+        this.store = store;
+        this.slot = slot;
+    }
+    
+    @Override
+    public boolean isEligible() {
+        return store.isEligibleAt(slot);
+    }
+    
+    @Override
+    public String getName() {
+        return store.getNameAt(slot);
+    }
+    
+    @Override
+    public PlayerPosition getPosition() {
+        return store.getPositionAt(slot);
+    }
+    
+    @Override
+    public int getStars() {
+        return store.getStarsAt(slot);
+    }
+    
+    @Override
+    public void setEligible(boolean eligible) {
+        store.setEligibleAt(slot, eligible);
+    }
+    
+    @Override
+    public PlayerStore getStore() {
+        return store;
+    }
+}
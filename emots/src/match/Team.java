@@ -1,17 +1,26 @@
 package match;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
-/** Represents a team of players with owned chance cards.
+/** Represents a team of players with owned chance cards. The players are either
+ * held in an array or, for a team backed by a PlayerStore, kept in the store.
+ * Such a team only holds the ids and the slots of its players, so it adds no
+ * object per player to the heap; getPlayers() creates views of the stored
+ * players on every call, and the index based accessors like
+ * getPlayerStars(int) read the store without creating any.
  *
  * @author DamnMyCode
  */
 public class Team {
-    private static int numberOfTeams = 0;
+    private static final AtomicInteger numberOfTeams = new AtomicInteger();
     
     private final int id;
     private String name;
-    private Player[] players;
+    private Player[] players;           // the players, or null
+    private final PlayerStore store;    // the store holding the players, or null
+    private final int[] playerIds;      // the ids of the players in the store, or null
+    private final int[] playerSlots;    // the slots of the players in the store, or null
     //private ChanceCard[] chanceCards; //TODO: create reference
     
     /**
@@ -20,9 +29,36 @@ public class Team {
      * @param players       an array containing the players of the team
      */
     public Team (String name, Player[] players){ //TODO: update constructor (chanceCards)
-        id = numberOfTeams++;
+        id = numberOfTeams.getAndIncrement();
         this.name = name;
         this.players = players;
+        this.store = null;
+        this.playerIds = null;
+        this.playerSlots = null;
+    }
+    
+    /** Constructs a team whose players are kept in a PlayerStore.
+     * 
+     * @param name          the name of the team
+     * @param store         the store holding the players
+     * @param playerIds     the ids of the players in the store
+     * @throws IllegalArgumentException if store or playerIds is null
+     * @throws NoSuchPlayerException if the store does not contain one of the players
+     */
+    public Team (String name, PlayerStore store, int[] playerIds){
+        if (store == null || playerIds == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        id = numberOfTeams.getAndIncrement();
+        this.name = name;
+        this.players = null;
+        this.store = store;
+        this.playerIds = playerIds.clone();
+        this.playerSlots = new int[playerIds.length];
+        for (int i = 0; i < playerIds.length; i++) {
+            if (!store.contains(playerIds[i]))
+                throw new NoSuchPlayerException("There is no player with the id " + playerIds[i] + " in this store.");
+            playerSlots[i] = store.slotOf(playerIds[i]);
+        }
     }
     
     /**
@@ -43,10 +79,51 @@ public class Team {
     
     /**
      * 
-     * @return              array of players 
+     * @return              array of players. For a team backed by a PlayerStore
+     *                      a new array of views is returned on every call.
      */
     public Player[] getPlayers (){
-        return players;
+        if (store == null)
+            return players;
+        Player[] views = new Player[playerIds.length];
+        for (int i = 0; i < views.length; i++)
+            views[i] = new StoredPlayer(store, playerIds[i], playerSlots[i]);
+        return views;
+    }
+    
+    /**
+     * 
+     * @return              the number of players in the team
+     */
+    public int numberOfPlayers (){
+        return store == null ? players.length : playerIds.length;
+    }
+    
+    /**
+     * 
+     * @param index         the index of the player in the team
+     * @return              the id of the player with the given index
+     */
+    public int getPlayerId (int index){
+        return store == null ? players[index].getId() : playerIds[index];
+    }
+    
+    /**
+     * 
+     * @param index         the index of the player in the team
+     * @return              the stars of the player with the given index
+     */
+    public int getPlayerStars (int index){
+        return store == null ? players[index].getStars() : store.getStarsAt(playerSlots[index]);
+    }
+    
+    /**
+     * 
+     * @param index         the index of the player in the team
+     * @return              true if the player with the given index is eligible
+     */
+    public boolean isPlayerEligible (int index){
+        return store == null ? players[index].isEligible() : store.isEligibleAt(playerSlots[index]);
     }
     
     //TODO: create method public void removeChanceCard ()
@@ -54,18 +131,16 @@ public class Team {
     //TODO: add chanceCards to String s
     @Override
     public String toString(){
-        String playerIds = "";
-        
-        for(int i=0; i<players.length; i++){
-            playerIds = playerIds + String.valueOf(players[i].getId());
-            if( players.length - 1 != i)
+        StringBuilder s = new StringBuilder();
+        s.append("\nID: ").append(id).append("\nName: ").append(name).append("\nPlayers: ");
+        for(int i=0; i<numberOfPlayers(); i++){
+            s.append(getPlayerId(i));
+            if( numberOfPlayers() - 1 != i)
             {
-            playerIds = playerIds + ", ";
+            s.append(", ");
             }
         }
-        
-        String s = "\nID: " + String.valueOf(id) + "\nName: " + String.valueOf(name) + "\nPlayers: " + playerIds;
-        return s;
+        return s.toString();
     }
     
 }
@@ -0,0 +1,125 @@
+package match;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** The outcome of checking a MatchTactic against MatchRules: a set of
+ * violations kept as a bitmask. Results are immutable and there is a single
+ * instance for every combination of violations, so validating a tactic does
+ * not allocate anything.
+ *
+ * @author nibah
+ */
+public final class ValidationResult {
+    /** At least one of the players is not eligible to play */
+    public static final int INELIGIBLE_PLAYER = 1;
+    /** Not enough players on the field */
+    public static final int TOO_FEW_PLAYERS = 2;
+    /** Too many players on the field */
+    public static final int TOO_MANY_PLAYERS = 4;
+    /** More substitutions than allowed */
+    public static final int TOO_MANY_SUBSTITUTIONS = 8;
+    /** The formation does not match any of the allowed patterns */
+    public static final int ILLEGAL_FORMATION = 16;
+    /** Any other violation, for rules which cannot tell the reason */
+    public static final int ILLEGAL_TACTIC = 32;
+    private static final int ALL_VIOLATIONS = 63;
+    private static final String[] MESSAGES = {
+        "A player is not eligible to play.",
+        "Not enough players on the field.",
+        "Too many players on the field.",
+        "No substitutions left.",
+        "This is not an allowed formation.",
+        "This tactic is not allowed."
+    };
+    private static final ValidationResult[] RESULTS = results();
+    /** The result of a legal tactic */
+    public static final ValidationResult LEGAL = RESULTS[0];
+
+    private final int violations;
+
+    private ValidationResult(int violations) {
+        this.violations = violations;
+    }
+
+    private static ValidationResult[] results() {
+        ValidationResult[] results = new ValidationResult[ALL_VIOLATIONS + 1];
+        for (int i = 0; i < results.length; i++)
+            results[i] = new ValidationResult(i);
+        return results;
+    }
+
+    /** Returns the result with the given violations.
+     *
+     * @param violations    the violations combined with |, or 0 for a legal tactic
+     * @return the result
+     * @throws IllegalArgumentException if violations contains unknown bits
+     */
+    public static ValidationResult of(int violations) {
+        if ((violations & ~ALL_VIOLATIONS) != 0)
+            throw new IllegalArgumentException("unknown violations " + violations);
+        return RESULTS[violations];
+    }
+
+    /**
+     *
+     * @return true if the tactic is legal, false otherwise
+     */
+    public boolean isLegal() {
+        return violations == 0;
+    }
+
+    /**
+     *
+     * @return the violations combined with |, or 0 for a legal tactic
+     */
+    public int getViolations() {
+        return violations;
+    }
+
+    /**
+     *
+     * @param violation     one of the violation constants
+     * @return true if the tactic has the given violation
+     */
+    public boolean hasViolation(int violation) {
+        return (violations & violation) != 0;
+    }
+
+    /** Returns a message for every violation.
+     *
+     * @return the messages, empty for a legal tactic
+     */
+    public String[] getMessages() {
+        return getMessages(null);
+    }
+
+    /** Returns a message for every violation, naming every player of the
+     * given tactic who is not eligible to play.
+     *
+     * @param tactic    the tactic which was checked, or null
+     * @return the messages, empty for a legal tactic
+     */
+    public String[] getMessages(MatchTactic tactic) {
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < MESSAGES.length; i++) {
+            if ((violations & 1 << i) == 0)
+                continue;
+            boolean named = false;
+            if (1 << i == INELIGIBLE_PLAYER && tactic != null)
+                for (Player player : tactic.getPlayers())
+                    if (!player.isEligible()) {
+                        messages.add(player.getName() + " is not eligible to play.");
+                        named = true;
+                    }
+            if (!named)
+                messages.add(MESSAGES[i]);
+        }
+        return messages.toArray(new String[0]);
+    }
+
+    @Override
+    public String toString() {
+        return isLegal() ? "legal" : String.join(" ", getMessages());
+    }
+}
@@ -0,0 +1,133 @@
+package match.analysis;
+
+import java.util.Arrays;
+import match.Winner;
+
+/** Mutable counterpart of OutcomeEstimate used while replays are running.
+ * Every worker thread fills its own accumulator; the accumulators are merged
+ * afterwards.
+ *
+ * @author nibah
+ */
+class OutcomeAccumulator {
+    private long replays;
+    private final long[] winners = new long[Winner.values().length];
+    private long[] homeGoals = new long[16];
+    private long[] guestGoals = new long[16];
+    private long[] goalDifference = new long[33];
+    private int differenceOffset = 16;
+    private long[][] scores = new long[16][];   // number of replays per home and guest score
+    
+    /** Records the outcome of a single replay.
+     * 
+     * @param winner        the winner of the replay
+     * @param home          the goals of the home team
+     * @param guest         the goals of the guest team
+     */
+    void add(Winner winner, int home, int guest) {
+        add(winner, home, guest, 1);
+    }
+    
+    /** Records the same outcome for several replays.
+     * 
+     * @param winner        the winner of the replays
+     * @param home          the goals of the home team
+     * @param guest         the goals of the guest team
+     * @param count         the number of replays
+     */
+    void add(Winner winner, int home, int guest, long count) {
+        replays += count;
+        winners[winner.ordinal()] += count;
+        if (home >= homeGoals.length)
+            homeGoals = Arrays.copyOf(homeGoals, Math.max(home + 1, homeGoals.length * 2));
+        if (guest >= guestGoals.length)
+            guestGoals = Arrays.copyOf(guestGoals, Math.max(guest + 1, guestGoals.length * 2));
+        homeGoals[home] += count;
+        guestGoals[guest] += count;
+        int difference = home - guest;
+        ensureDifference(difference);
+        goalDifference[difference + differenceOffset] += count;
+        score(home, guest, count);
+    }
+    
+    /** Adds to the count of a scoreline, growing the table as needed. */
+    private void score(int home, int guest, long count) {
+        if (home >= scores.length)
+            scores = Arrays.copyOf(scores, Math.max(home + 1, scores.length * 2));
+        long[] row = scores[home];
+        if (row == null)
+            row = scores[home] = new long[Math.max(guest + 1, 16)];
+        else if (guest >= row.length)
+            row = scores[home] = Arrays.copyOf(row, Math.max(guest + 1, row.length * 2));
+        row[guest] += count;
+    }
+    
+    /** Grows the goal difference histogram until it can hold the given value. */
+    private void ensureDifference(int difference) {
+        int bound = Math.abs(difference);
+        if (bound <= differenceOffset)
+            return;
+        int offset = differenceOffset;
+        while (offset < bound)
+            offset *= 2;
+        long[] grown = new long[2 * offset + 1];
+        System.arraycopy(goalDifference, 0, grown, offset - differenceOffset, goalDifference.length);
+        goalDifference = grown;
+        differenceOffset = offset;
+    }
+    
+    /** Adds all of the replays recorded by another accumulator to this one.
+     * 
+     * @param other     the other accumulator
+     */
+    void merge(OutcomeAccumulator other) {
+        replays += other.replays;
+        for (int i = 0; i < winners.length; i++)
+            winners[i] += other.winners[i];
+        if (other.homeGoals.length > homeGoals.length)
+            homeGoals = Arrays.copyOf(homeGoals, other.homeGoals.length);
+        for (int i = 0; i < other.homeGoals.length; i++)
+            homeGoals[i] += other.homeGoals[i];
+        if (other.guestGoals.length > guestGoals.length)
+            guestGoals = Arrays.copyOf(guestGoals, other.guestGoals.length);
+        for (int i = 0; i < other.guestGoals.length; i++)
+            guestGoals[i] += other.guestGoals[i];
+        ensureDifference(other.differenceOffset);
+        for (int i = 0; i < other.goalDifference.length; i++)
+            goalDifference[i - other.differenceOffset + differenceOffset] += other.goalDifference[i];
+        for (int home = 0; home < other.scores.length; home++)
+            if (other.scores[home] != null)
+                for (int guest = 0; guest < other.scores[home].length; guest++)
+                    if (other.scores[home][guest] != 0)
+                        score(home, guest, other.scores[home][guest]);
+    }
+    
+    /** Creates an immutable estimate from the replays recorded so far. Trailing
+     * empty histogram buckets are cut off.
+     * 
+     * @return the estimate
+     */
+    OutcomeEstimate toEstimate() {
+        int low = 0;
+        while (low < differenceOffset && goalDifference[low] == 0)
+            low++;
+        int high = goalDifference.length - 1;
+        while (high > differenceOffset && goalDifference[high] == 0)
+            high--;
+        long[][] scoreTable = new long[trim(homeGoals).length][];
+        for (int home = 0; home < scoreTable.length; home++)
+            scoreTable[home] = home < scores.length && scores[home] != null ?
+                               trim(scores[home]) : new long[0];
+        return new OutcomeEstimate(replays, winners.clone(),
+                                   trim(homeGoals), trim(guestGoals),
+                                   Arrays.copyOfRange(goalDifference, low, high + 1),
+                                   differenceOffset - low, scoreTable);
+    }
+    
+    private static long[] trim(long[] histogram) {
+        int length = histogram.length;
+        while (length > 1 && histogram[length - 1] == 0)
+            length--;
+        return Arrays.copyOf(histogram, length);
+    }
+}
@@ -0,0 +1,165 @@
+package match.analysis;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import match.MatchEventController;
+import match.MatchRules;
+import match.MatchTactic;
+import match.Team;
+import match.Winner;
+import match.league.Fixture;
+
+/** Computes the exact outcome probabilities of a fixture without playing it.
+ * The tactics are checked like Match.play() does; if one of them is illegal,
+ * the result is certain. Otherwise the number of rounds is taken from the rules
+ * and every round is described by the TacticProfile of the two tactics: at most
+ * one goal is scored per round, and every round has the same chances. The
+ * distribution of the scorelines is built up round by round by dynamic
+ * programming, which takes O(rounds^3) steps (about 10^5 for 90 rounds).
+ *
+ * If the profile is not exact, because the controller does not know its
+ * probabilities or an event cannot be solved, or if the rules allow more than
+ * MAX_EXACT_ROUNDS rounds, the fixture is replayed with an OutcomeEstimator
+ * instead and the relative frequencies are returned.
+ *
+ * @author nibah
+ */
+public class OutcomeCalculator {
+    /** The highest number of rounds which is computed exactly */
+    public static final int MAX_EXACT_ROUNDS = 1000;
+    /** The number of replays if a fixture has to be sampled */
+    public static final long DEFAULT_REPLAYS = 100000;
+
+    private final ForkJoinPool pool;    // the pool replays are played on
+    private final long replays;         // the number of replays if a fixture has to be sampled
+    private final long seed;            // the seed of the replays
+
+    /** Constructs a calculator which samples DEFAULT_REPLAYS replays on the
+     * common ForkJoinPool, with a randomly chosen seed, if it has to.
+     */
+    public OutcomeCalculator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_REPLAYS, new SplittableRandom().nextLong());
+    }
+
+    /** Constructs a calculator with the given settings for sampling.
+     *
+     * @param pool      the pool replays are played on
+     * @param replays   the number of replays if a fixture has to be sampled
+     * @param seed      the seed of the replays
+     * @throws IllegalArgumentException if pool is null or replays is not positive
+     */
+    public OutcomeCalculator(ForkJoinPool pool, long replays, long seed) {
+        if (pool == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        if (replays <= 0)
+            throw new IllegalArgumentException("replays should be a positive integer");
+        this.pool = pool;
+        this.replays = replays;
+        this.seed = seed;
+    }
+
+    /** Computes the outcome probabilities of a fixture.
+     *
+     * @param fixture           the fixture
+     * @param rules             the rules of the match
+     * @param eventController   the event controller of the match
+     * @return the outcome probabilities
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public OutcomeDistribution calculate(Fixture fixture, MatchRules rules,
+            MatchEventController eventController) {
+        if (fixture == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        return calculate(fixture.getHomeTeam(), fixture.getGuestTeam(), fixture.getHomeTactic(),
+                fixture.getGuestTactic(), rules, eventController);
+    }
+
+    /** Computes the outcome probabilities of the match which would be created
+     * with the same parameters.
+     *
+     * @param home              home team
+     * @param guest             guest team
+     * @param homeTactic        tactic of home team
+     * @param guestTactic       tactic of guest team
+     * @param rules             rules of the match
+     * @param eventController   eventController of the match
+     * @return the outcome probabilities
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public OutcomeDistribution calculate(Team home, Team guest, MatchTactic homeTactic,
+            MatchTactic guestTactic, MatchRules rules, MatchEventController eventController) {
+        if (home == null || guest == null || homeTactic == null || guestTactic == null
+                || rules == null || eventController == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        boolean legalHomeTactic = rules.validate(homeTactic).isLegal();
+        boolean legalGuestTactic = rules.validate(guestTactic).isLegal();
+        if (!legalHomeTactic)
+            return OutcomeDistribution.automatic(legalGuestTactic ? Winner.AUTOMATIC_GUEST : Winner.AUTOMATIC_DRAW);
+        if (!legalGuestTactic)
+            return OutcomeDistribution.automatic(Winner.AUTOMATIC_HOME);
+        
+        int rounds = 0;
+        while (rounds <= MAX_EXACT_ROUNDS && rules.hasNextRound(rounds))
+            rounds++;
+        if (rounds == 0)
+            return exact(0, 0, 0);
+        TacticProfile profile = TacticProfile.of(homeTactic, guestTactic, eventController);
+        if (rounds > MAX_EXACT_ROUNDS || !profile.isExact()) {
+            OutcomeEstimator estimator = new OutcomeEstimator(pool,
+                    new Fixture(home, guest, homeTactic, guestTactic), () -> rules, eventController);
+            return OutcomeDistribution.of(estimator.estimate(replays, seed));
+        }
+        return exact(profile, rounds);
+    }
+
+    /** Computes the distribution of the scorelines after the given number of
+     * rounds with the chances of the profile.
+     *
+     * @param profile   the chances of every round, which have to be exact
+     * @param rounds    the number of rounds
+     * @return the outcome probabilities
+     */
+    public static OutcomeDistribution exact(TacticProfile profile, int rounds) {
+        if (profile == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        if (!profile.isExact())
+            throw new IllegalArgumentException("the profile contains unsolved events");
+        if (rounds < 0)
+            throw new IllegalArgumentException("rounds should be a positive integer");
+        return exact(rounds, profile.getHomeGoalProbability(),
+                profile.getGuestGoalProbability());
+    }
+
+    /* Plays the rounds on the distribution of the scorelines. scores[h][g] is
+       the probability of h:g; as at most one goal is scored per round, row h
+       only needs rounds + 1 - h entries. The cells are updated in place from
+       the highest scores down, so every cell has spread its own probability
+       before anything from a lower score is added to it. */
+    private static OutcomeDistribution exact(int rounds, double homeGoal, double guestGoal) {
+        double noGoal = Math.max(0, 1 - homeGoal - guestGoal);
+        double[][] scores = new double[rounds + 1][];
+        for (int home = 0; home <= rounds; home++)
+            scores[home] = new double[rounds + 1 - home];
+        scores[0][0] = 1;
+        for (int round = 0; round < rounds; round++)
+            for (int home = round; home >= 0; home--) {
+                double[] row = scores[home];
+                double[] next = scores[home + 1];
+                for (int guest = round - home; guest >= 0; guest--) {
+                    double probability = row[guest];
+                    if (probability == 0)
+                        continue;
+                    next[guest] += probability * homeGoal;
+                    row[guest + 1] += probability * guestGoal;
+                    row[guest] = probability * noGoal;
+                }
+            }
+        double[] winners = new double[Winner.values().length];
+        for (int home = 0; home <= rounds; home++)
+            for (int guest = 0; guest < scores[home].length; guest++) {
+                Winner winner = home > guest ? Winner.HOME : guest > home ? Winner.GUEST : Winner.DRAW;
+                winners[winner.ordinal()] += scores[home][guest];
+            }
+        return new OutcomeDistribution(winners, scores, 0);
+    }
+}
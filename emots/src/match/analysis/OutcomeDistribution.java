@@ -0,0 +1,181 @@
+package match.analysis;
+
+import match.Winner;
+
+/** The probabilities of the outcomes of a fixture: of each Winner and of
+ * every scoreline. The probabilities are either exact, computed by an
+ * OutcomeCalculator without playing, or relative frequencies of replays if the
+ * fixture could not be solved. Objects of this class are immutable.
+ *
+ * @author nibah
+ */
+public class OutcomeDistribution {
+    private final double[] winners;     // probability per Winner ordinal
+    private final double[][] scores;
+            /* probability per home score (first index) and guest score (second
+               index). Rows may have different lengths; missing entries are 0. */
+    private final long replays;         // the number of replays, 0 if exact
+
+    OutcomeDistribution(double[] winners, double[][] scores, long replays) {
+        this.winners = winners;
+        this.scores = scores;
+        this.replays = replays;
+    }
+
+    /* The distribution of a fixture ended by an automatic result */
+    static OutcomeDistribution automatic(Winner winner) {
+        double[] winners = new double[Winner.values().length];
+        winners[winner.ordinal()] = 1;
+        return new OutcomeDistribution(winners, new double[][]{{1}}, 0);
+    }
+
+    /* The relative frequencies of the outcomes of replays */
+    static OutcomeDistribution of(OutcomeEstimate estimate) {
+        long replays = estimate.getReplays();
+        double[] winners = new double[Winner.values().length];
+        for (Winner winner : Winner.values())
+            winners[winner.ordinal()] = estimate.getProbability(winner);
+        int maxGoals = estimate.getMaxGoals();
+        double[][] scores = new double[maxGoals + 1][maxGoals + 1];
+        if (replays > 0)
+            for (int home = 0; home <= maxGoals; home++)
+                for (int guest = 0; guest <= maxGoals; guest++)
+                    scores[home][guest] = (double) estimate.getScoreCount(home, guest) / replays;
+        return new OutcomeDistribution(winners, scores, replays);
+    }
+
+    /**
+     *
+     * @return true if the probabilities were computed exactly, false if they
+     *          are relative frequencies of replays
+     */
+    public boolean isExact() {return replays == 0;}
+
+    /**
+     *
+     * @return the number of replays the probabilities are based on, 0 if they are exact
+     */
+    public long getReplays() {return replays;}
+
+    /** Returns the probability of the given Winner.
+     *
+     * @param winner    the winner type
+     * @return the probability of the winner type
+     */
+    public double getProbability(Winner winner) {
+        return winners[winner.ordinal()];
+    }
+
+    /** Returns the probability of a home win, including automatic wins.
+     *
+     * @return the probability of a home win
+     */
+    public double getHomeWinProbability() {
+        return getProbability(Winner.HOME) + getProbability(Winner.AUTOMATIC_HOME);
+    }
+
+    /** Returns the probability of a draw, including automatic draws.
+     *
+     * @return the probability of a draw
+     */
+    public double getDrawProbability() {
+        return getProbability(Winner.DRAW) + getProbability(Winner.AUTOMATIC_DRAW);
+    }
+
+    /** Returns the probability of a guest win, including automatic wins.
+     *
+     * @return the probability of a guest win
+     */
+    public double getGuestWinProbability() {
+        return getProbability(Winner.GUEST) + getProbability(Winner.AUTOMATIC_GUEST);
+    }
+
+    /** Returns the probability of the match ending with the given score. An
+     * automatic result counts as 0:0.
+     *
+     * @param home      the goals of the home team
+     * @param guest     the goals of the guest team
+     * @return the probability of the score
+     */
+    public double getScoreProbability(int home, int guest) {
+        if (home < 0 || home >= scores.length || guest < 0 || guest >= scores[home].length)
+            return 0;
+        return scores[home][guest];
+    }
+
+    /** Returns the probability of the home team scoring the given number of goals.
+     *
+     * @param goals     the number of goals
+     * @return the probability
+     */
+    public double getHomeGoalsProbability(int goals) {
+        if (goals < 0 || goals >= scores.length)
+            return 0;
+        double sum = 0;
+        for (double probability : scores[goals])
+            sum += probability;
+        return sum;
+    }
+
+    /** Returns the probability of the guest team scoring the given number of goals.
+     *
+     * @param goals     the number of goals
+     * @return the probability
+     */
+    public double getGuestGoalsProbability(int goals) {
+        double sum = 0;
+        for (double[] row : scores)
+            if (goals >= 0 && goals < row.length)
+                sum += row[goals];
+        return sum;
+    }
+
+    /** Returns the probability of the given goal difference (home goals -
+     * guest goals).
+     *
+     * @param difference    the goal difference
+     * @return the probability
+     */
+    public double getGoalDifferenceProbability(int difference) {
+        double sum = 0;
+        for (int home = 0; home < scores.length; home++) {
+            int guest = home - difference;
+            if (guest >= 0 && guest < scores[home].length)
+                sum += scores[home][guest];
+        }
+        return sum;
+    }
+
+    /** Returns the highest number of goals one team can score with a non-zero
+     * probability, or could score in the number of rounds played.
+     *
+     * @return the highest number of goals
+     */
+    public int getMaxGoals() {
+        int max = scores.length - 1;
+        for (double[] row : scores)
+            max = Math.max(max, row.length - 1);
+        return max;
+    }
+
+    /** Returns the expected goal difference (home goals - guest goals).
+     *
+     * @return the mean goal difference
+     */
+    public double getMeanGoalDifference() {
+        double sum = 0;
+        for (int home = 0; home < scores.length; home++)
+            for (int guest = 0; guest < scores[home].length; guest++)
+                sum += (home - guest) * scores[home][guest];
+        return sum;
+    }
+
+    @Override
+    public String toString() {
+        return (isExact() ? "Exact" : "Replays: " + replays) + "\n" +
+               "Home: " + getHomeWinProbability() + "\n" +
+               "Draw: " + getDrawProbability() + "\n" +
+               "Guest: " + getGuestWinProbability() + "\n" +
+               "Mean goal difference: " + getMeanGoalDifference();
+    }
+}
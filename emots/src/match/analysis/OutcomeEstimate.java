@@ -0,0 +1,169 @@
+package match.analysis;
+
+import java.util.Arrays;
+import match.Winner;
+
+/** Aggregated outcome of many replays of the same fixture: how often each
+ * Winner occurred and histograms of the goals and the goal difference.
+ * Objects of this class are immutable.
+ *
+ * @author nibah
+ */
+public class OutcomeEstimate {
+    private final long replays;             // the number of replays
+    private final long[] winners;           // number of replays per Winner ordinal
+    private final long[] homeGoals;         // number of replays per home score
+    private final long[] guestGoals;        // number of replays per guest score
+    private final long[] goalDifference;
+            /* number of replays per goal difference (home - guest). Index i
+               represents the goal difference i - differenceOffset. */
+    private final int differenceOffset;
+    private final long[][] scores;          // number of replays per home and guest score
+    
+    OutcomeEstimate(long replays, long[] winners, long[] homeGoals, long[] guestGoals,
+            long[] goalDifference, int differenceOffset, long[][] scores) {
+        this.replays = replays;
+        this.winners = winners;
+        this.homeGoals = homeGoals;
+        this.guestGoals = guestGoals;
+        this.goalDifference = goalDifference;
+        this.differenceOffset = differenceOffset;
+        this.scores = scores;
+    }
+    
+    /** Returns the number of replays this estimate is based on.
+     * 
+     * @return the number of replays
+     */
+    public long getReplays() {return replays;}
+    
+    /** Returns in how many replays the given Winner occurred.
+     * 
+     * @param winner    the winner type
+     * @return the number of replays
+     */
+    public long getCount(Winner winner) {
+        return winners[winner.ordinal()];
+    }
+    
+    /** Returns the relative frequency of the given Winner.
+     * 
+     * @param winner    the winner type
+     * @return the estimated probability of the winner type
+     */
+    public double getProbability(Winner winner) {
+        return replays == 0 ? 0 : (double) getCount(winner) / replays;
+    }
+    
+    /** Returns the estimated probability of a home win, including automatic wins.
+     * 
+     * @return the probability of a home win
+     */
+    public double getHomeWinProbability() {
+        return getProbability(Winner.HOME) + getProbability(Winner.AUTOMATIC_HOME);
+    }
+    
+    /** Returns the estimated probability of a draw, including automatic draws.
+     * 
+     * @return the probability of a draw
+     */
+    public double getDrawProbability() {
+        return getProbability(Winner.DRAW) + getProbability(Winner.AUTOMATIC_DRAW);
+    }
+    
+    /** Returns the estimated probability of a guest win, including automatic wins.
+     * 
+     * @return the probability of a guest win
+     */
+    public double getGuestWinProbability() {
+        return getProbability(Winner.GUEST) + getProbability(Winner.AUTOMATIC_GUEST);
+    }
+    
+    /** Returns in how many replays the home team scored the given number of goals.
+     * 
+     * @param goals     the number of goals
+     * @return the number of replays
+     */
+    public long getHomeGoalsCount(int goals) {
+        return goals < 0 || goals >= homeGoals.length ? 0 : homeGoals[goals];
+    }
+    
+    /** Returns in how many replays the guest team scored the given number of goals.
+     * 
+     * @param goals     the number of goals
+     * @return the number of replays
+     */
+    public long getGuestGoalsCount(int goals) {
+        return goals < 0 || goals >= guestGoals.length ? 0 : guestGoals[goals];
+    }
+    
+    /** Returns in how many replays the match ended with the given score.
+     * Replays ended by an automatic result are counted as 0:0.
+     * 
+     * @param home      the goals of the home team
+     * @param guest     the goals of the guest team
+     * @return the number of replays
+     */
+    public long getScoreCount(int home, int guest) {
+        if (home < 0 || home >= scores.length || guest < 0 || guest >= scores[home].length)
+            return 0;
+        return scores[home][guest];
+    }
+    
+    /** Returns the highest number of goals scored by one team in any replay.
+     * 
+     * @return the highest number of goals
+     */
+    public int getMaxGoals() {
+        return Math.max(homeGoals.length, guestGoals.length) - 1;
+    }
+    
+    /** Returns in how many replays the match ended with the given goal difference
+     * (home goals - guest goals). Replays ended by an automatic result are
+     * counted with a goal difference of 0.
+     * 
+     * @param difference    the goal difference
+     * @return the number of replays
+     */
+    public long getGoalDifferenceCount(int difference) {
+        int index = difference + differenceOffset;
+        return index < 0 || index >= goalDifference.length ? 0 : goalDifference[index];
+    }
+    
+    /** Returns the smallest goal difference which can be queried with a non-zero
+     * result.
+     * 
+     * @return the smallest goal difference
+     */
+    public int getMinGoalDifference() {return -differenceOffset;}
+    
+    /** Returns the biggest goal difference which can be queried with a non-zero
+     * result.
+     * 
+     * @return the biggest goal difference
+     */
+    public int getMaxGoalDifference() {return goalDifference.length - 1 - differenceOffset;}
+    
+    /** Returns the mean goal difference (home goals - guest goals).
+     * 
+     * @return the mean goal difference
+     */
+    public double getMeanGoalDifference() {
+        if (replays == 0)
+            return 0;
+        double sum = 0;
+        for (int i = 0; i < goalDifference.length; i++)
+            sum += (double) (i - differenceOffset) * goalDifference[i];
+        return sum / replays;
+    }
+    
+    @Override
+    public String toString() {
+        return "Replays: " + replays + "\n" +
+               "Home: " + getHomeWinProbability() + "\n" +
+               "Draw: " + getDrawProbability() + "\n" +
+               "Guest: " + getGuestWinProbability() + "\n" +
+               "Goal difference " + getMinGoalDifference() + ".." + getMaxGoalDifference() + ": " +
+               Arrays.toString(goalDifference);
+    }
+}
@@ -0,0 +1,147 @@
+package match.analysis;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+import match.Match;
+import match.MatchArena;
+import match.MatchEventController;
+import match.MatchRules;
+import match.MatchStatistics;
+import match.SplittableRandomSource;
+import match.league.Fixture;
+
+/** Estimates the win/draw/loss probabilities and the goal distributions of a
+ * fixture by replaying it many times in parallel (Monte Carlo). Every replay
+ * draws its random numbers from its own SplittableRandomSource split off a
+ * root source, so a given seed always produces the same estimate, no matter
+ * how the replays are distributed between the threads. Only the aggregated
+ * histograms are kept. If the events can be compiled into a ReplayKernel, the
+ * replays of a task are played by it in lock step; otherwise they are played
+ * one after another in a MatchArena, which records no messages. Both ways end
+ * with the same outcome for every replay.
+ * 
+ * The event controller is shared by all of the replays and must therefore
+ * not be modified while an estimation is running. The tactics of the fixture
+ * are only read. Players sent off during a replay do not become uneligible.
+ *
+ * @author nibah
+ */
+public class OutcomeEstimator {
+    private static final int BATCH_SIZE = 1024;  // replays played by one task without splitting
+    
+    private final ForkJoinPool pool;
+    private final Fixture fixture;
+    private final Supplier<? extends MatchRules> rulesFactory;
+    private final MatchEventController eventController;
+    
+    /** Constructs an estimator running on the common ForkJoinPool.
+     * 
+     * @param fixture           the fixture that should be replayed
+     * @param rulesFactory      supplies the rules for every batch of replays
+     * @param eventController   the event controller used by every replay
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public OutcomeEstimator(Fixture fixture, Supplier<? extends MatchRules> rulesFactory,
+            MatchEventController eventController) {
+        this(ForkJoinPool.commonPool(), fixture, rulesFactory, eventController);
+    }
+    
+    /** Constructs an estimator running on the given pool.
+     * 
+     * @param pool              the pool the replays are played on
+     * @param fixture           the fixture that should be replayed
+     * @param rulesFactory      supplies the rules for every batch of replays
+     * @param eventController   the event controller used by every replay
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public OutcomeEstimator(ForkJoinPool pool, Fixture fixture,
+            Supplier<? extends MatchRules> rulesFactory, MatchEventController eventController) {
+        if (pool == null || fixture == null || rulesFactory == null || eventController == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        this.pool = pool;
+        this.fixture = fixture;
+        this.rulesFactory = rulesFactory;
+        this.eventController = eventController;
+    }
+    
+    /** Replays the fixture with a randomly chosen seed.
+     * 
+     * @param replays   the number of replays
+     * @return the aggregated outcome of all replays
+     * @throws IllegalArgumentException if replays is negative
+     */
+    public OutcomeEstimate estimate(long replays) {
+        return estimate(replays, new SplittableRandomSource());
+    }
+    
+    /** Replays the fixture. The same seed and number of replays always lead to
+     * the same estimate.
+     * 
+     * @param replays   the number of replays
+     * @param seed      the seed of the root random source
+     * @return the aggregated outcome of all replays
+     * @throws IllegalArgumentException if replays is negative
+     */
+    public OutcomeEstimate estimate(long replays, long seed) {
+        return estimate(replays, new SplittableRandomSource(seed));
+    }
+    
+    private OutcomeEstimate estimate(long replays, SplittableRandomSource root) {
+        if (replays < 0)
+            throw new IllegalArgumentException("replays should be a positive integer");
+        return pool.invoke(new ReplayTask(replays, root)).toEstimate();
+    }
+    
+    /** Plays a single replay and records its outcome.
+     * 
+     * @param arena         the arena of the replay, with its random source set
+     * @param accumulator   where the outcome is recorded
+     */
+    private void replay(MatchArena arena, OutcomeAccumulator accumulator) {
+        Match match = arena.reset(fixture.getHomeTeam(), fixture.getGuestTeam(),
+                                  fixture.getHomeTactic(), fixture.getGuestTactic());
+        match.play(false);
+        MatchStatistics stats = match.getResult().getStatistics();
+        accumulator.add(match.getResult().getWinner(), stats.getHomeGoals(), stats.getGuestGoals());
+    }
+    
+    /** Plays a number of replays, splitting the work (and the random source)
+     * in halves until at most BATCH_SIZE replays are left. */
+    private class ReplayTask extends RecursiveTask<OutcomeAccumulator> {
+        private final long replays;
+        private final SplittableRandomSource random;
+        
+        ReplayTask(long replays, SplittableRandomSource random) {
+            this.replays = replays;
+            this.random = random;
+        }
+        
+        @Override
+        protected OutcomeAccumulator compute() {
+            if (replays <= BATCH_SIZE) {
+                OutcomeAccumulator accumulator = new OutcomeAccumulator();
+                MatchRules rules = rulesFactory.get();
+                ReplayKernel kernel = ReplayKernel.compile(fixture, rules, eventController);
+                if (kernel != null) {
+                    kernel.play(random, (int) replays, accumulator);
+                    return accumulator;
+                }
+                MatchArena arena = new MatchArena(rules, eventController);
+                arena.getMatch().setRecording(false);
+                for (long i = 0; i < replays; i++) {
+                    random.splitInto(arena.getRandom());
+                    replay(arena, accumulator);
+                }
+                return accumulator;
+            }
+            long half = replays / 2;
+            ReplayTask left = new ReplayTask(half, random.split());
+            ReplayTask right = new ReplayTask(replays - half, random);
+            left.fork();
+            OutcomeAccumulator result = right.compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+}
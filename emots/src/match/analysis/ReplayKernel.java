@@ -0,0 +1,290 @@
+package match.analysis;
+
+import java.util.Map;
+import match.FieldPosition;
+import match.MatchEvent;
+import match.MatchEventController;
+import match.MatchRules;
+import match.MatchTactic;
+import match.SplittableRandomSource;
+import match.Winner;
+import match.league.Fixture;
+import match.standard.StandardMatchEventController;
+import match.standard.events.GuestPenalty;
+import match.standard.events.HomePenalty;
+import match.standard.events.HomeVersusGuest;
+import match.standard.events.Penalty;
+import match.standard.events.RedCard;
+import match.standard.events.Side;
+
+/** Plays a batch of replays of a fixture in lock step over primitive arrays
+ * instead of one Match after another. The events of the standard events
+ * package never change the tactics during a match, so every replay runs the
+ * same events on the same stars and only the random draws differ. The kernel
+ * compiles the events into tables once and then advances every replay (lane)
+ * round by round:
+ *   1. every lane rolls its event like StandardMatchEventController does
+ *   2. the duels of all lanes are scored by table lookups, without branches
+ *   3. the lanes which rolled a Penalty or a RedCard make the draws of it
+ * Every lane draws from its own SplitMix64 state in the same order as the
+ * Match would, so a replay ends with exactly the same score as when it is
+ * played by a Match with the same SplittableRandomSource.
+ *
+ * Only the exact classes StandardMatchEventController, HomeVersusGuest,
+ * Penalty, HomePenalty, GuestPenalty and RedCard can be compiled; for
+ * anything else, and for illegal tactics, compile(...) returns null and the
+ * replays have to be played by a Match. Replays played by the kernel are not
+ * seen by listeners, metrics or the flight recorder.
+ *
+ * The phases are plain loops over the lanes, left to the auto-vectorizer of
+ * the JIT. The Vector API (jdk.incubator.vector) is not used, because the
+ * build targets Java 8.
+ *
+ * Objects of this class are not thread-safe; every worker thread should use
+ * its own kernel.
+ *
+ * @author nibah
+ */
+final class ReplayKernel {
+    private static final int HOME = 0;
+    private static final int GUEST = 1;
+    private static final int RANDOM = 2;
+    private static final int DUEL = 0;
+    private static final int PENALTY = 1;
+    private static final int RED_CARD = 2;
+
+    private final int rounds;           // the rounds of every replay
+    private final int events;           // the number of events which can be rolled
+    private final int[] kind;           // DUEL, PENALTY or RED_CARD per event
+    private final int[] side;           // HOME, GUEST or RANDOM per penalty or red card
+    private final int[] homeGoal;       // 1 if the duel is won by the home team
+    private final int[] guestGoal;      // 1 if the duel is won by the guest team
+    private final boolean draws;        // true if at least one event draws random numbers
+    private final int[][] stars;        // stars of the players of each side, in tactic order
+    private final int[][] goalieStars;  // stars of the goalies of each side, in tactic order
+
+    private int[] home = new int[0];    // goals of the home team per lane
+    private int[] guest = new int[0];   // goals of the guest team per lane
+    private int[] event = new int[0];   // the event rolled in the current round per lane
+    private long[] seed = new long[0];  // SplitMix64 seed per lane
+    private long[] gamma = new long[0]; // SplitMix64 gamma per lane
+    private final SplittableRandomSource lane = new SplittableRandomSource(0);
+            /* the source split off for a lane, before its state is copied */
+
+    private ReplayKernel(int rounds, int[] kind, int[] side, int[] homeGoal, int[] guestGoal,
+            int[][] stars, int[][] goalieStars) {
+        this.rounds = rounds;
+        this.events = kind.length;
+        this.kind = kind;
+        this.side = side;
+        this.homeGoal = homeGoal;
+        this.guestGoal = guestGoal;
+        this.stars = stars;
+        this.goalieStars = goalieStars;
+        boolean draws = false;
+        for (int k : kind)
+            draws |= k != DUEL;
+        this.draws = draws;
+    }
+
+    /** Compiles the events of a fixture into a kernel.
+     *
+     * @param fixture           the fixture
+     * @param rules             the rules of the replays
+     * @param eventController   the event controller of the replays
+     * @return the kernel, or null if the replays have to be played by a Match
+     */
+    static ReplayKernel compile(Fixture fixture, MatchRules rules,
+            MatchEventController eventController) {
+        if (eventController.getClass() != StandardMatchEventController.class)
+            return null;
+        MatchTactic homeTactic = fixture.getHomeTactic();
+        MatchTactic guestTactic = fixture.getGuestTactic();
+        if (!rules.validate(homeTactic).isLegal() || !rules.validate(guestTactic).isLegal())
+            return null;
+        int[][] stars = {stars(homeTactic), stars(guestTactic)};
+        int[][] goalieStars = {goalieStars(homeTactic), goalieStars(guestTactic)};
+
+        // The probabilities are mapped in the order the controller rolls the events
+        Map<MatchEvent, Double> probabilities = eventController.getProbabilities();
+        int n = probabilities.size();
+        if (n == 0)
+            return null;
+        int[] kind = new int[n];
+        int[] side = new int[n];
+        int[] homeGoal = new int[n];
+        int[] guestGoal = new int[n];
+        int i = 0;
+        for (MatchEvent matchEvent : probabilities.keySet()) {
+            Class<?> type = matchEvent.getClass();
+            if (type == HomeVersusGuest.class) {
+                HomeVersusGuest duel = (HomeVersusGuest) matchEvent;
+                int homeStars = homeTactic.getStars(duel.getHomeFieldPosition());
+                int guestStars = guestTactic.getStars(duel.getGuestFieldPosition());
+                kind[i] = DUEL;
+                homeGoal[i] = homeStars > guestStars ? 1 : 0;
+                guestGoal[i] = guestStars > homeStars ? 1 : 0;
+            } else if (type == Penalty.class || type == HomePenalty.class || type == GuestPenalty.class) {
+                kind[i] = PENALTY;
+                side[i] = side(((Penalty) matchEvent).getSide());
+                // a penalty which would fail is left to the Match, which throws
+                if ((side[i] != GUEST && (stars[HOME].length == 0 || goalieStars[GUEST].length == 0))
+                        || (side[i] != HOME && (stars[GUEST].length == 0 || goalieStars[HOME].length == 0)))
+                    return null;
+            } else if (type == RedCard.class) {
+                kind[i] = RED_CARD;
+                side[i] = side(((RedCard) matchEvent).getSide());
+                if ((side[i] != GUEST && stars[HOME].length == 0)
+                        || (side[i] != HOME && stars[GUEST].length == 0))
+                    return null;
+            } else {
+                return null;
+            }
+            i++;
+        }
+
+        int rounds = 0;
+        while (rules.hasNextRound(rounds))
+            rounds++;
+        return new ReplayKernel(rounds, kind, side, homeGoal, guestGoal, stars, goalieStars);
+    }
+
+    private static int side(Side side) {
+        switch (side) {
+            case HOME   : return HOME;
+            case GUEST  : return GUEST;
+            default     : return RANDOM;
+        }
+    }
+
+    private static int[] stars(MatchTactic tactic) {
+        int[] stars = new int[tactic.numberOfPlayers()];
+        for (int i = 0; i < stars.length; i++)
+            stars[i] = tactic.getPlayer(i).getStars();
+        return stars;
+    }
+
+    private static int[] goalieStars(MatchTactic tactic) {
+        int[] stars = new int[tactic.numberOf(FieldPosition.GOALIE, true)];
+        for (int i = 0; i < stars.length; i++)
+            stars[i] = tactic.getPlayer(FieldPosition.GOALIE, i).getStars();
+        return stars;
+    }
+
+    /** Plays replays, each with its own source split off the given one, and
+     * records their outcomes. The given source is split as often and in the
+     * same order as if every replay was played by a Match with
+     * random.split().
+     *
+     * @param random        the source the replays are split off
+     * @param replays       the number of replays
+     * @param accumulator   where the outcomes are recorded
+     */
+    void play(SplittableRandomSource random, int replays, OutcomeAccumulator accumulator) {
+        ensureLanes(replays);
+        for (int k = 0; k < replays; k++) {
+            random.splitInto(lane);
+            seed[k] = lane.getSeed();
+            gamma[k] = lane.getGamma();
+            home[k] = 0;
+            guest[k] = 0;
+        }
+        for (int round = 0; round < rounds; round++) {
+            roll(replays);
+            score(replays);
+            if (draws)
+                drawEvents(replays);
+        }
+        for (int k = 0; k < replays; k++) {
+            int h = home[k];
+            int g = guest[k];
+            accumulator.add(h > g ? Winner.HOME : g > h ? Winner.GUEST : Winner.DRAW, h, g);
+        }
+    }
+
+    private void ensureLanes(int lanes) {
+        if (seed.length >= lanes)
+            return;
+        home = new int[lanes];
+        guest = new int[lanes];
+        event = new int[lanes];
+        seed = new long[lanes];
+        gamma = new long[lanes];
+    }
+
+    /* Rolls the event of every lane, see StandardMatchEventController */
+    private void roll(int lanes) {
+        int[] event = this.event;
+        long[] seed = this.seed;
+        long[] gamma = this.gamma;
+        int bound = events;
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            for (int k = 0; k < lanes; k++)
+                event[k] = mix32(seed[k] += gamma[k]) & m;
+        } else {
+            for (int k = 0; k < lanes; k++) {
+                int u = mix32(seed[k] += gamma[k]) >>> 1;
+                int r = u % bound;
+                if (u + m - r < 0)
+                    r = nextInt(k, bound);  // rejected, which is rare
+                event[k] = r;
+            }
+        }
+    }
+
+    /* Scores the duels of every lane; other events have no duel goals */
+    private void score(int lanes) {
+        int[] event = this.event;
+        int[] home = this.home;
+        int[] guest = this.guest;
+        int[] homeGoal = this.homeGoal;
+        int[] guestGoal = this.guestGoal;
+        for (int k = 0; k < lanes; k++) {
+            int e = event[k];
+            home[k] += homeGoal[e];
+            guest[k] += guestGoal[e];
+        }
+    }
+
+    /* Makes the draws of the penalties and red cards, see Penalty and RedCard */
+    private void drawEvents(int lanes) {
+        for (int k = 0; k < lanes; k++) {
+            int e = event[k];
+            if (kind[e] == DUEL)
+                continue;
+            boolean homeSide = side[e] == RANDOM ? mix32(seed[k] += gamma[k]) < 0 : side[e] == HOME;
+            if (kind[e] == RED_CARD) {
+                nextInt(k, stars[homeSide ? HOME : GUEST].length);
+                continue;
+            }
+            int[] goalies = goalieStars[homeSide ? GUEST : HOME];
+            int[] shooters = stars[homeSide ? HOME : GUEST];
+            int goalie = goalies.length == 1 ? goalies[0] : goalies[nextInt(k, goalies.length)];
+            int shooter = shooters[nextInt(k, shooters.length)];
+            if (shooter > goalie) {
+                if (homeSide)
+                    home[k]++;
+                else
+                    guest[k]++;
+            }
+        }
+    }
+
+    /* SplittableRandomSource.nextInt(bound) with the state of lane k */
+    private int nextInt(int k, int bound) {
+        int r = mix32(seed[k] += gamma[k]);
+        int m = bound - 1;
+        if ((bound & m) == 0)
+            return r & m;
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(seed[k] += gamma[k]) >>> 1)
+            ;
+        return r;
+    }
+
+    /* The same mix as SplittableRandomSource uses for its draws */
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+}
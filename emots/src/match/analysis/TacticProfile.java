@@ -0,0 +1,155 @@
+package match.analysis;
+
+import java.util.Map;
+import match.FieldPosition;
+import match.MatchEvent;
+import match.MatchEventController;
+import match.MatchTactic;
+import match.Player;
+import match.standard.events.GuestPenalty;
+import match.standard.events.HomePenalty;
+import match.standard.events.HomeVersusGuest;
+import match.standard.events.Penalty;
+import match.standard.events.RedCard;
+import match.standard.events.Side;
+
+/** What a single round of a match between two tactics can bring: the chances
+ * of a home goal, a guest goal or no goal at all. As the events of the standard
+ * events package never change the tactics during a match, every round has the
+ * same chances. They are computed from the probabilities of the event
+ * controller and the effect of each event:
+ *   HomeVersusGuest   scores for the team with more stars on its position
+ *   Penalty           scores if the randomly chosen shooter has more stars
+ *                     than the randomly chosen goalie
+ *   RedCard           never scores; the player sent off stays on the field
+ *                     until the suspensions are applied after the match
+ * Events of other classes, and penalties which would fail for lack of players,
+ * cannot be solved. The chance of rolling one of them is kept as the unsolved
+ * probability.
+ *
+ * Objects of this class are immutable.
+ *
+ * @author nibah
+ */
+public final class TacticProfile {
+    private final double homeGoal;      // chance of a home goal in a round
+    private final double guestGoal;     // chance of a guest goal in a round
+    private final double noGoal;        // chance of a solved round without a goal
+    private final double unsolved;      // chance of rolling an event which cannot be solved
+
+    private TacticProfile(double homeGoal, double guestGoal, double noGoal, double unsolved) {
+        this.homeGoal = homeGoal;
+        this.guestGoal = guestGoal;
+        this.noGoal = noGoal;
+        this.unsolved = unsolved;
+    }
+
+    /** Computes the profile of two tactics playing with the given events.
+     *
+     * @param homeTactic    the tactic of the home team
+     * @param guestTactic   the tactic of the guest team
+     * @param controller    the event controller of the match
+     * @return the profile, which is unsolved as a whole if the controller does
+     *          not know its probabilities or has no events
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public static TacticProfile of(MatchTactic homeTactic, MatchTactic guestTactic,
+            MatchEventController controller) {
+        if (homeTactic == null || guestTactic == null || controller == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        Map<MatchEvent, Double> probabilities = controller.getProbabilities();
+        if (probabilities == null || probabilities.isEmpty())
+            return new TacticProfile(0, 0, 0, 1);
+        double home = 0, guest = 0, none = 0, unsolved = 0;
+        for (Map.Entry<MatchEvent, Double> entry : probabilities.entrySet()) {
+            double probability = entry.getValue();
+            double[] chances = goalChances(entry.getKey(), homeTactic, guestTactic);
+            if (chances == null) {
+                unsolved += probability;
+            } else {
+                home += probability * chances[0];
+                guest += probability * chances[1];
+                none += probability * (1 - chances[0] - chances[1]);
+            }
+        }
+        return new TacticProfile(home, guest, none, unsolved);
+    }
+
+    /* The chances of a home and of a guest goal when the event is executed
+       once, or null if the event cannot be solved. Subclasses of the standard
+       events may behave differently, so only the exact classes are solved. */
+    static double[] goalChances(MatchEvent event, MatchTactic home, MatchTactic guest) {
+        Class<?> type = event.getClass();
+        if (type == HomeVersusGuest.class) {
+            HomeVersusGuest duel = (HomeVersusGuest) event;
+            int homeStars = home.getStars(duel.getHomeFieldPosition());
+            int guestStars = guest.getStars(duel.getGuestFieldPosition());
+            return new double[]{homeStars > guestStars ? 1 : 0, guestStars > homeStars ? 1 : 0};
+        }
+        if (type == Penalty.class || type == HomePenalty.class || type == GuestPenalty.class) {
+            Side side = ((Penalty) event).getSide();
+            boolean homeShoots = side != Side.GUEST;
+            boolean guestShoots = side != Side.HOME;
+            double share = homeShoots && guestShoots ? 0.5 : 1;
+            double homeChance = homeShoots ? penaltyChance(home, guest) : 0;
+            double guestChance = guestShoots ? penaltyChance(guest, home) : 0;
+            if (homeChance < 0 || guestChance < 0)
+                return null;
+            return new double[]{share * homeChance, share * guestChance};
+        }
+        if (type == RedCard.class)
+            return new double[2];
+        return null;
+    }
+
+    /* The chance of a randomly chosen shooter to beat a randomly chosen goalie,
+       or -1 if the penalty cannot be executed */
+    private static double penaltyChance(MatchTactic shooting, MatchTactic defending) {
+        Player[] goalies = defending.getPosition(FieldPosition.GOALIE);
+        Player[] shooters = shooting.getPlayers();
+        if (goalies.length == 0 || shooters.length == 0)
+            return -1;
+        long goals = 0;
+        for (Player goalie : goalies)
+            for (Player shooter : shooters)
+                if (shooter.getStars() > goalie.getStars())
+                    goals++;
+        return (double) goals / ((long) goalies.length * shooters.length);
+    }
+
+    /**
+     *
+     * @return the chance of a home goal in a round
+     */
+    public double getHomeGoalProbability() {return homeGoal;}
+
+    /**
+     *
+     * @return the chance of a guest goal in a round
+     */
+    public double getGuestGoalProbability() {return guestGoal;}
+
+    /**
+     *
+     * @return the chance of a round without a goal, unsolved events excluded
+     */
+    public double getNoGoalProbability() {return noGoal;}
+
+    /**
+     *
+     * @return the chance of rolling an event which cannot be solved
+     */
+    public double getUnsolvedProbability() {return unsolved;}
+
+    /**
+     *
+     * @return true if every event which can be rolled was solved
+     */
+    public boolean isExact() {return unsolved == 0;}
+
+    @Override
+    public String toString() {
+        return "Home goal: " + homeGoal + ", guest goal: " + guestGoal
+                + ", no goal: " + noGoal + ", unsolved: " + unsolved;
+    }
+}
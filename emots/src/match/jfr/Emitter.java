@@ -0,0 +1,98 @@
+package match.jfr;
+
+import match.Match;
+import match.MatchEvent;
+import match.MatchStatistics;
+import match.MatchTactic;
+import match.Team;
+import match.ValidationResult;
+
+/* Creates and commits the events for FlightEvents. Only loaded once a
+   recording enables match events. */
+final class Emitter {
+
+    private Emitter() {
+    }
+
+    static Object beginMatch() {
+        MatchPlayed event = new MatchPlayed();
+        event.begin();
+        return event;
+    }
+
+    static void endMatch(Object begun, Match match) {
+        MatchPlayed event = (MatchPlayed) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            MatchStatistics stats = match.getResult().getStatistics();
+            event.matchId = match.getId();
+            event.homeTeamId = match.getHomeTeam().getId();
+            event.homeTeam = match.getHomeTeam().getName();
+            event.guestTeamId = match.getGuestTeam().getId();
+            event.guestTeam = match.getGuestTeam().getName();
+            event.rounds = match.getCurrentRound();
+            event.homeGoals = stats.getHomeGoals();
+            event.guestGoals = stats.getGuestGoals();
+            event.winner = String.valueOf(match.getResult().getWinner());
+            event.commit();
+        }
+    }
+
+    static Object beginValidation() {
+        TacticValidated event = new TacticValidated();
+        event.begin();
+        return event;
+    }
+
+    static void endValidation(Object begun, Match match, boolean home, ValidationResult result) {
+        TacticValidated event = (TacticValidated) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            MatchTactic tactic = home ? match.getHomeTactic() : match.getGuestTactic();
+            event.matchId = match.getId();
+            Team team = home ? match.getHomeTeam() : match.getGuestTeam();
+            event.teamId = team.getId();
+            event.team = team.getName();
+            event.home = home;
+            event.players = tactic == null ? 0 : tactic.numberOfPlayers();
+            event.legal = result.isLegal();
+            event.violations = result.getViolations();
+            event.commit();
+        }
+    }
+
+    static Object beginExecution(Match match) {
+        EventExecuted event = new EventExecuted();
+        if (event.isEnabled()) {
+            MatchStatistics stats = match.getResult().getStatistics();
+            event.homeGoals = stats.getHomeGoals();
+            event.guestGoals = stats.getGuestGoals();
+            event.sentOff = match.getSentOffPlayers().length;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endExecution(Object begun, Match match, MatchEvent matchEvent) {
+        EventExecuted event = (EventExecuted) begun;
+        event.end();
+        if (event.shouldCommit()) {
+            MatchStatistics stats = match.getResult().getStatistics();
+            StringBuilder outcome = new StringBuilder();
+            if (stats.getHomeGoals() > event.homeGoals)
+                outcome.append("HOME_GOAL ");
+            if (stats.getGuestGoals() > event.guestGoals)
+                outcome.append("GUEST_GOAL ");
+            if (match.getSentOffPlayers().length > event.sentOff)
+                outcome.append("SENT_OFF ");
+            event.matchId = match.getId();
+            event.round = match.getCurrentRound();
+            event.eventName = matchEvent.getName();
+            event.eventClass = matchEvent.getClass();
+            event.outcome = outcome.length() == 0 ? "NONE" : outcome.substring(0, outcome.length() - 1);
+            event.homeGoals = stats.getHomeGoals();
+            event.guestGoals = stats.getGuestGoals();
+            event.commit();
+        }
+    }
+}
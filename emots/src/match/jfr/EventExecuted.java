@@ -0,0 +1,37 @@
+package match.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/* Spans the execution of a MatchEvent */
+@Name("match.EventExecuted")
+@Label("Match Event Executed")
+@Description("The execution of a match event and what came out of it")
+@Category("Match Simulation")
+@Enabled(false)
+@StackTrace(false)
+class EventExecuted extends Event {
+    @Label("Match Id")
+    int matchId;
+    @Label("Round")
+    int round;
+    @Label("Event Name")
+    String eventName;
+    @Label("Event Class")
+    Class<?> eventClass;
+    @Label("Outcome")
+    @Description("HOME_GOAL, GUEST_GOAL and SENT_OFF, or NONE")
+    String outcome;
+    @Label("Home Goals")
+    @Description("The goals of the home team after the event")
+    int homeGoals;
+    @Label("Guest Goals")
+    @Description("The goals of the guest team after the event")
+    int guestGoals;
+    transient int sentOff;      // the players sent off before the event
+}
@@ -0,0 +1,106 @@
+package match.jfr;
+
+import match.Match;
+import match.MatchEvent;
+import match.ValidationResult;
+
+/** Emits Java Flight Recorder events for matches played: MatchPlayed for
+ * every Match.play(), TacticValidated for the check of every tactic and
+ * EventExecuted for every executed MatchEvent.
+ *
+ * The events are disabled by default. They are recorded by a recording which
+ * enables them explicitly, with a .jfc file or, since JDK 17, with
+ *   jcmd &lt;pid&gt; JFR.start +match.MatchPlayed#enabled=true
+ *       +match.TacticValidated#enabled=true +match.EventExecuted#enabled=true
+ * Settings changed on a recording after it was started are not noticed.
+ *
+ * While no running recording enables one of the events, isActive() returns
+ * false and a match does not create any events, so the cost is a read of a
+ * volatile field. This class does not refer to jdk.jfr itself; in a JVM
+ * without Flight Recorder it stays inactive.
+ *
+ * @author nibah
+ */
+public final class FlightEvents {
+    private static volatile boolean active;     // a running recording enables match events
+
+    static {
+        try {
+            RecordingWatcher.install();
+        } catch (LinkageError | SecurityException e) {
+            // no Flight Recorder in this JVM, or not allowed to use it
+        }
+    }
+
+    private FlightEvents() {
+    }
+
+    /**
+     *
+     * @return true if a running recording enables one of the match events
+     */
+    public static boolean isActive() {
+        return active;
+    }
+
+    static void setActive(boolean active) {
+        FlightEvents.active = active;
+    }
+
+    /** Begins the MatchPlayed event of a match. Only call this if isActive().
+     *
+     * @return the event, to be passed to endMatch
+     */
+    public static Object beginMatch() {
+        return Emitter.beginMatch();
+    }
+
+    /** Commits the MatchPlayed event of a match which has ended.
+     *
+     * @param event     the event returned by beginMatch, or null
+     * @param match     the match
+     */
+    public static void endMatch(Object event, Match match) {
+        if (event != null)
+            Emitter.endMatch(event, match);
+    }
+
+    /** Begins a TacticValidated event. Only call this if isActive().
+     *
+     * @return the event, to be passed to endValidation
+     */
+    public static Object beginValidation() {
+        return Emitter.beginValidation();
+    }
+
+    /** Commits a TacticValidated event.
+     *
+     * @param event     the event returned by beginValidation
+     * @param match     the match
+     * @param home      true if the tactic of the home team was checked
+     * @param result    the result of the check
+     */
+    public static void endValidation(Object event, Match match, boolean home, ValidationResult result) {
+        Emitter.endValidation(event, match, home, result);
+    }
+
+    /** Begins an EventExecuted event and remembers the state of the match
+     * before the execution. Only call this if isActive().
+     *
+     * @param match     the match
+     * @return the event, to be passed to endExecution
+     */
+    public static Object beginExecution(Match match) {
+        return Emitter.beginExecution(match);
+    }
+
+    /** Commits an EventExecuted event with the outcome of the execution.
+     *
+     * @param event         the event returned by beginExecution
+     * @param match         the match
+     * @param matchEvent    the executed MatchEvent
+     */
+    public static void endExecution(Object event, Match match, MatchEvent matchEvent) {
+        Emitter.endExecution(event, match, matchEvent);
+    }
+}
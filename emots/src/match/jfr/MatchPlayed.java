@@ -0,0 +1,37 @@
+package match.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/* Spans a call of Match.play() */
+@Name("match.MatchPlayed")
+@Label("Match Played")
+@Description("A match played from the check of the tactics to the result")
+@Category("Match Simulation")
+@Enabled(false)
+@StackTrace(false)
+class MatchPlayed extends Event {
+    @Label("Match Id")
+    int matchId;
+    @Label("Home Team Id")
+    int homeTeamId;
+    @Label("Home Team")
+    String homeTeam;
+    @Label("Guest Team Id")
+    int guestTeamId;
+    @Label("Guest Team")
+    String guestTeam;
+    @Label("Rounds")
+    int rounds;
+    @Label("Home Goals")
+    int homeGoals;
+    @Label("Guest Goals")
+    int guestGoals;
+    @Label("Winner")
+    String winner;
+}
@@ -0,0 +1,45 @@
+package match.jfr;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/* Keeps track of the running recordings enabling match events and switches
+   FlightEvents on while there is one. Registering the listener does not
+   initialize Flight Recorder. Recordings which were already running when the
+   listener was installed, e.g. started with -XX:StartFlightRecording, are
+   taken into account as well. */
+final class RecordingWatcher implements FlightRecorderListener {
+    static final String PREFIX = "match.";
+    private final Set<Recording> recordings = new HashSet<>();
+
+    static void install() {
+        RecordingWatcher watcher = new RecordingWatcher();
+        FlightRecorder.addListener(watcher);
+        // the listener is only told about changes from now on
+        if (FlightRecorder.isInitialized())
+            for (Recording recording : FlightRecorder.getFlightRecorder().getRecordings())
+                watcher.recordingStateChanged(recording);
+    }
+
+    @Override
+    public synchronized void recordingStateChanged(Recording recording) {
+        if (recording.getState() == RecordingState.RUNNING && enablesMatchEvents(recording))
+            recordings.add(recording);
+        else
+            recordings.remove(recording);
+        FlightEvents.setActive(!recordings.isEmpty());
+    }
+
+    private static boolean enablesMatchEvents(Recording recording) {
+        for (Map.Entry<String, String> setting : recording.getSettings().entrySet())
+            if (setting.getKey().startsWith(PREFIX) && setting.getKey().endsWith("#enabled")
+                    && "true".equals(setting.getValue()))
+                return true;
+        return false;
+    }
+}
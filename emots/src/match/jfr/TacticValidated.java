@@ -0,0 +1,34 @@
+package match.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/* Spans the check of a tactic against the match rules */
+@Name("match.TacticValidated")
+@Label("Tactic Validated")
+@Description("The check of a tactic against the rules of a match")
+@Category("Match Simulation")
+@Enabled(false)
+@StackTrace(false)
+class TacticValidated extends Event {
+    @Label("Match Id")
+    int matchId;
+    @Label("Team Id")
+    int teamId;
+    @Label("Team")
+    String team;
+    @Label("Home")
+    boolean home;
+    @Label("Players")
+    int players;
+    @Label("Legal")
+    boolean legal;
+    @Label("Violations")
+    @Description("The violations as in ValidationResult.getViolations()")
+    int violations;
+}
@@ -0,0 +1,165 @@
+package match.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import match.Winner;
+
+/** Reads the records of a ResultJournal sequentially, straight from the
+ * mapped segments. The cursor is positioned before the first record; next()
+ * moves it to the following record, whose fields are then read with the
+ * getters. Nothing is allocated per record.
+ *
+ * @author nibah
+ */
+public final class JournalCursor {
+    private static final Winner[] WINNERS = Winner.values();
+
+    private final Path directory;
+    private final List<Long> segments;      // the first sequence number of every segment
+    private final long end;                 // the sequence number after the last record visited
+    private int segmentIndex = -1;
+    private ByteBuffer segment;
+    private long segmentFirst;
+    private int segmentCount;               // the number of records visited in the current segment
+    private int index = -1;                 // the index of the current record in the segment
+    private int position;                   // the offset of the current record in the segment
+
+    /* end is Long.MAX_VALUE if the cursor should find the last complete record itself */
+    JournalCursor(Path directory, List<Long> segments, long end) throws IOException {
+        this.directory = directory;
+        this.segments = segments;
+        if (end == Long.MAX_VALUE) {
+            end = 0;
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                ByteBuffer last = map(segments.get(i));
+                if (last != null) {
+                    end = segments.get(i) + ResultJournal.countValid(last, capacity(last), segments.get(i));
+                    break;
+                }
+            }
+        }
+        this.end = end;
+    }
+
+    /* Maps a segment, or returns null if its header is not complete */
+    private ByteBuffer map(long first) throws IOException {
+        try (FileChannel channel = FileChannel.open(ResultJournal.segmentPath(directory, first),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < ResultJournal.HEADER_SIZE)
+                return null;
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            int capacity = capacity(buffer);
+            if (buffer.getInt(0) != ResultJournal.MAGIC || buffer.getLong(16) != first
+                    || capacity <= 0 || ResultJournal.HEADER_SIZE + (long) capacity * ResultJournal.RECORD_SIZE != size)
+                return null;
+            return buffer;
+        }
+    }
+
+    private static int capacity(ByteBuffer segment) {
+        return segment.getInt(8);
+    }
+
+    /** Moves the cursor to the next record.
+     *
+     * @return true if there is a next record, false if all of the records have been visited
+     * @throws IOException if the next segment cannot be mapped
+     */
+    public boolean next() throws IOException {
+        while (segment == null || index + 1 >= segmentCount) {
+            if (segmentIndex + 1 >= segments.size())
+                return false;
+            long first = segments.get(++segmentIndex);
+            if (first >= end)
+                return false;
+            segment = map(first);
+            if (segment == null)
+                throw new IOException("Corrupt journal segment " + ResultJournal.segmentPath(directory, first));
+            segmentFirst = first;
+            segmentCount = (int) Math.min(capacity(segment), end - first);
+            index = -1;
+        }
+        index++;
+        position = ResultJournal.HEADER_SIZE + index * ResultJournal.RECORD_SIZE;
+        return true;
+    }
+
+    /**
+     *
+     * @return the sequence number of the current record
+     */
+    public long getSequence() {
+        return segmentFirst + index;
+    }
+
+    /**
+     *
+     * @return the id of the match
+     */
+    public int getMatchId() {
+        return segment.getInt(position + 8);
+    }
+
+    /**
+     *
+     * @return the id of the home team
+     */
+    public int getHomeTeamId() {
+        return segment.getInt(position + 12);
+    }
+
+    /**
+     *
+     * @return the id of the guest team
+     */
+    public int getGuestTeamId() {
+        return segment.getInt(position + 16);
+    }
+
+    /**
+     *
+     * @return the number of goals scored by the home team
+     */
+    public int getHomeGoals() {
+        return segment.getShort(position + 20) & 0xFFFF;
+    }
+
+    /**
+     *
+     * @return the number of goals scored by the guest team
+     */
+    public int getGuestGoals() {
+        return segment.getShort(position + 22) & 0xFFFF;
+    }
+
+    /**
+     *
+     * @return the number of rounds played
+     */
+    public int getRounds() {
+        return segment.getShort(position + 24) & 0xFFFF;
+    }
+
+    /**
+     *
+     * @return the winner of the match
+     */
+    public Winner getWinner() {
+        return WINNERS[segment.get(position + 26)];
+    }
+
+    /**
+     *
+     * @return the flags of the record (ResultJournal.ENDED, AUTOMATIC, SENT_OFF)
+     */
+    public int getFlags() {
+        return segment.get(position + 27);
+    }
+}
@@ -0,0 +1,382 @@
+package match.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import match.Match;
+import match.MatchStatistics;
+import match.Result;
+import match.Winner;
+
+/** An append-only journal of match results, kept in memory-mapped segment
+ * files in a directory. Every result is written as a fixed-size record and
+ * gets a sequence number, starting with 0.
+ *
+ * Appending only writes into the mapped segment; a record is durable once
+ * commit(long) returned for its sequence number or a later one. Concurrent
+ * commits are grouped: the thread forcing the segment to disk makes all of
+ * the records appended so far durable, and the threads waiting for it return
+ * without forcing again.
+ *
+ * On opening, the last segment is scanned and the journal continues after the
+ * last complete record. Torn or partly written records (bad checksum or
+ * unexpected sequence number) and everything after them are erased.
+ *
+ * Segment files are named by the sequence number of their first record, e.g.
+ * "00000000000000000000.seg". A segment starts with a header of HEADER_SIZE
+ * bytes (magic number, version, record size, capacity, first sequence number),
+ * followed by the records. All numbers are little endian. A record holds:
+ *
+ *   0  long  sequence number
+ *   8  int   match id
+ *  12  int   home team id
+ *  16  int   guest team id
+ *  20  short home goals
+ *  22  short guest goals
+ *  24  short rounds played
+ *  26  byte  Winner ordinal
+ *  27  byte  flags (ENDED, AUTOMATIC, SENT_OFF)
+ *  28  int   CRC32 of the bytes 0 to 27
+ *
+ * @author nibah
+ */
+public class ResultJournal implements Closeable {
+    /** "EMOJ" */
+    static final int MAGIC = 0x4A4F4D45;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 32;
+    static final int CHECKSUM_OFFSET = 28;
+    static final String SUFFIX = ".seg";
+    /** Flag of a result which has ended */
+    public static final int ENDED = 1;
+    /** Flag of an automatic result set with Result.setWinner(Winner) */
+    public static final int AUTOMATIC = 2;
+    /** Flag of a match in which at least one player was sent off */
+    public static final int SENT_OFF = 4;
+    /** The number of records of a segment, unless given in the constructor */
+    public static final int DEFAULT_SEGMENT_CAPACITY = 1 << 16;
+
+    private final Path directory;
+    private final int segmentCapacity;          // records per new segment
+    private final List<Long> segments = new ArrayList<>();
+            /* the first sequence number of every segment, ascending */
+    private FileChannel channel;                // the channel of the current segment
+    private MappedByteBuffer segment;           // the current segment, null if there is none
+    private long segmentFirst;                  // the first sequence number of the current segment
+    private int segmentLength;                  // the number of records the current segment can hold
+    private long next;                          // the sequence number of the next record
+    private volatile long durable;              // the records before this sequence number are durable
+    private final Object commitLock = new Object();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final CRC32 crc = new CRC32();
+    private boolean closed;
+
+    /** Opens or creates the journal in the given directory, using segments of
+     * DEFAULT_SEGMENT_CAPACITY records.
+     *
+     * @param directory     the directory holding the segment files
+     * @throws IOException if the journal cannot be read or recovered
+     */
+    public ResultJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_CAPACITY);
+    }
+
+    /** Opens or creates the journal in the given directory. Existing segments
+     * keep the capacity they were created with.
+     *
+     * @param directory         the directory holding the segment files
+     * @param segmentCapacity   the number of records of a new segment
+     * @throws IOException if the journal cannot be read or recovered
+     * @throws IllegalArgumentException if directory is null or segmentCapacity is not positive
+     */
+    public ResultJournal(Path directory, int segmentCapacity) throws IOException {
+        if (directory == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        if (segmentCapacity <= 0 || segmentCapacity > (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE)
+            throw new IllegalArgumentException("segmentCapacity is out of range.");
+        this.directory = directory;
+        this.segmentCapacity = segmentCapacity;
+        Files.createDirectories(directory);
+        segments.addAll(listSegments(directory));
+        if (!segments.isEmpty())
+            recover(segments.get(segments.size() - 1));
+        durable = next;
+    }
+
+    /* Returns the first sequence numbers of the segments in the directory, ascending */
+    static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> firsts = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    firsts.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not a segment of this journal
+                }
+            }
+        }
+        Collections.sort(firsts);
+        return firsts;
+    }
+
+    static Path segmentPath(Path directory, long first) {
+        return directory.resolve(String.format("%020d", first) + SUFFIX);
+    }
+
+    /* Maps the last segment and finds the last complete record */
+    private void recover(long first) throws IOException {
+        channel = FileChannel.open(segmentPath(directory, first),
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        int capacity = header.getInt(8);
+        if (size < HEADER_SIZE || header.getInt(0) != MAGIC || header.getShort(4) != VERSION
+                || header.getShort(6) != RECORD_SIZE || header.getLong(16) != first
+                || capacity <= 0 || HEADER_SIZE + (long) capacity * RECORD_SIZE != size) {
+            // the segment was not completely created; no record can have been committed to it
+            channel.close();
+            segments.remove(segments.size() - 1);
+            Files.delete(segmentPath(directory, first));
+            if (segments.isEmpty())
+                return;
+            recover(segments.get(segments.size() - 1));
+            return;
+        }
+        map(first, capacity);
+        int count = countValid(segment, capacity, first);
+        boolean dirty = false;
+        for (int i = HEADER_SIZE + count * RECORD_SIZE; i < segment.limit(); i += 8)
+            if (segment.getLong(i) != 0) {
+                segment.putLong(i, 0);
+                dirty = true;
+            }
+        if (dirty)
+            segment.force();
+        next = first + count;
+    }
+
+    /* Returns the number of complete records at the start of a segment */
+    static int countValid(ByteBuffer segment, int capacity, long first) {
+        CRC32 crc = new CRC32();
+        byte[] bytes = new byte[CHECKSUM_OFFSET];
+        for (int index = 0; index < capacity; index++) {
+            int position = HEADER_SIZE + index * RECORD_SIZE;
+            if (segment.getLong(position) != first + index)
+                return index;
+            for (int i = 0; i < CHECKSUM_OFFSET; i++)
+                bytes[i] = segment.get(position + i);
+            crc.reset();
+            crc.update(bytes, 0, CHECKSUM_OFFSET);
+            if ((int) crc.getValue() != segment.getInt(position + CHECKSUM_OFFSET))
+                return index;
+        }
+        return capacity;
+    }
+
+    private void map(long first, int capacity) throws IOException {
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segmentFirst = first;
+        segmentLength = capacity;
+    }
+
+    /* Forces and closes the current segment and creates the next one */
+    private void roll() throws IOException {
+        if (segment != null) {
+            segment.force();
+            channel.close();
+        }
+        channel = FileChannel.open(segmentPath(directory, next), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map(next, segmentCapacity);
+        segment.putInt(0, MAGIC).putShort(4, (short) VERSION).putShort(6, (short) RECORD_SIZE)
+                .putInt(8, segmentCapacity).putLong(16, next);
+        segment.force();
+        segments.add(next);
+    }
+
+    /** Appends the result of a match to the journal. The record is not
+     * durable before it is committed.
+     *
+     * @param match     a played match
+     * @return the sequence number of the record
+     * @throws IOException if a new segment cannot be created
+     * @throws IllegalArgumentException if match is null
+     */
+    public long append(Match match) throws IOException {
+        if (match == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        return append(match.getResult());
+    }
+
+    /** Appends a result to the journal. The record is not durable before it
+     * is committed.
+     *
+     * @param result    the result of a played match
+     * @return the sequence number of the record
+     * @throws IOException if a new segment cannot be created
+     * @throws IllegalArgumentException if result is null
+     */
+    public synchronized long append(Result result) throws IOException {
+        if (result == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        if (closed)
+            throw new IllegalStateException("The journal is closed.");
+        if (segment == null || next - segmentFirst == segmentLength)
+            roll();
+        Match match = result.getMatch();
+        MatchStatistics stats = result.getStatistics();
+        Winner winner = result.getWinner();
+        int flags = (result.isEnded() ? ENDED : 0)
+                | (winner == Winner.AUTOMATIC_HOME || winner == Winner.AUTOMATIC_GUEST
+                        || winner == Winner.AUTOMATIC_DRAW ? AUTOMATIC : 0)
+                | (match.getSentOffPlayers().length > 0 ? SENT_OFF : 0);
+        record.clear();
+        record.putLong(next).putInt(match.getId())
+                .putInt(match.getHomeTeam().getId()).putInt(match.getGuestTeam().getId())
+                .putShort((short) stats.getHomeGoals()).putShort((short) stats.getGuestGoals())
+                .putShort((short) match.getCurrentRound())
+                .put((byte) winner.ordinal()).put((byte) flags);
+        crc.reset();
+        crc.update(record.array(), 0, CHECKSUM_OFFSET);
+        record.putInt((int) crc.getValue());
+        int position = HEADER_SIZE + (int) (next - segmentFirst) * RECORD_SIZE;
+        for (int i = 0; i < RECORD_SIZE; i += 8)
+            segment.putLong(position + i, record.getLong(i));
+        return next++;
+    }
+
+    /** Appends the results of the given matches and commits them with a
+     * single force.
+     *
+     * @param matches   played matches
+     * @return the sequence number of the last record, or -1 if there were no matches
+     * @throws IOException if the records cannot be written
+     * @throws IllegalArgumentException if matches or one of its elements is null
+     */
+    public long appendAll(Iterable<Match> matches) throws IOException {
+        if (matches == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        long last = -1;
+        synchronized (this) {
+            for (Match match : matches)
+                last = append(match);
+        }
+        if (last >= 0)
+            commit(last);
+        return last;
+    }
+
+    /** Makes all of the records up to the given sequence number durable. If
+     * another thread is already forcing the segment, the call waits for it and
+     * only forces again if the record was appended after that force started.
+     *
+     * @param sequence  the sequence number of an appended record
+     * @throws IOException if the segment cannot be forced
+     */
+    public void commit(long sequence) throws IOException {
+        if (sequence < durable)
+            return;
+        synchronized (commitLock) {
+            if (sequence < durable)
+                return;
+            long upTo;
+            MappedByteBuffer current;
+            synchronized (this) {
+                upTo = next;
+                current = segment;
+            }
+            if (current != null)
+                current.force();    // earlier segments were forced when they were full
+            durable = upTo;
+        }
+    }
+
+    /** Makes all of the records appended so far durable.
+     *
+     * @throws IOException if the segment cannot be forced
+     */
+    public void commit() throws IOException {
+        long last;
+        synchronized (this) {
+            last = next - 1;
+        }
+        if (last >= 0)
+            commit(last);
+    }
+
+    /**
+     *
+     * @return the number of records in the journal, which is the sequence
+     *          number of the next record
+     */
+    public synchronized long size() {
+        return next;
+    }
+
+    /**
+     *
+     * @return the number of records which are durable
+     */
+    public long durableSize() {
+        return durable;
+    }
+
+    /** Returns a cursor over the records appended so far. Records appended
+     * later are not visited.
+     *
+     * @return a new cursor positioned before the first record
+     * @throws IOException if the segments cannot be mapped
+     */
+    public JournalCursor cursor() throws IOException {
+        List<Long> firsts;
+        long end;
+        synchronized (this) {
+            firsts = new ArrayList<>(segments);
+            end = next;
+        }
+        return new JournalCursor(directory, firsts, end);
+    }
+
+    /** Opens a cursor over the complete records of a journal directory
+     * without opening the journal for writing. Torn records at the end are
+     * skipped, but not erased.
+     *
+     * @param directory     the directory holding the segment files
+     * @return a new cursor positioned before the first record
+     * @throws IOException if the segments cannot be mapped
+     */
+    public static JournalCursor read(Path directory) throws IOException {
+        if (directory == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        return new JournalCursor(directory, listSegments(directory), Long.MAX_VALUE);
+    }
+
+    /** Commits all of the records and closes the journal. */
+    @Override
+    public void close() throws IOException {
+        commit();
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            if (channel != null)
+                channel.close();
+            segment = null;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package match.league;
+
+import match.MatchTactic;
+import match.Team;
+
+/** Represents a single pairing of a home and a guest team together with the
+ * tactics both teams are going to play with.
+ *
+ * @author nibah
+ */
+public class Fixture {
+    private final Team home;                // the home team
+    private final Team guest;               // the guest team
+    private final MatchTactic homeTactic;   // tactic of the home team
+    private final MatchTactic guestTactic;  // tactic of the guest team
+    
+    /** Constructs a fixture.
+     * 
+     * @param home          the home team
+     * @param guest         the guest team
+     * @param homeTactic    the tactic of the home team
+     * @param guestTactic   the tactic of the guest team
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public Fixture(Team home, Team guest, MatchTactic homeTactic, MatchTactic guestTactic) {
+        if (home == null || guest == null || homeTactic == null || guestTactic == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        this.home = home;
+        this.guest = guest;
+        this.homeTactic = homeTactic;
+        this.guestTactic = guestTactic;
+    }
+    
+    /** Returns the home team
+     * 
+     * @return the home team
+     */
+    public Team getHomeTeam() {return home;}
+    
+    /** Returns the guest team
+     * 
+     * @return the guest team
+     */
+    public Team getGuestTeam() {return guest;}
+    
+    /** Returns the tactic of the home team
+     * 
+     * @return the tactic of the home team
+     */
+    public MatchTactic getHomeTactic() {return homeTactic;}
+    
+    /** Returns the tactic of the guest team
+     * 
+     * @return the tactic of the guest team
+     */
+    public MatchTactic getGuestTactic() {return guestTactic;}
+    
+    @Override
+    public String toString() {
+        return home.getName() + " - " + guest.getName();
+    }
+}
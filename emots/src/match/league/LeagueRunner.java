@@ -0,0 +1,123 @@
+package match.league;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+import match.Match;
+import match.MatchEventController;
+import match.MatchRules;
+
+/** Plays a list of fixtures in parallel on a work-stealing ForkJoinPool.
+ * Every match gets its MatchRules and its own MatchEventController from the
+ * factories given in the constructor, so no per-match state is shared between
+ * threads; rules keep no such state and may be shared. Players sent off are
+ * only made ineligible after all of the fixtures have been played, in fixture
+ * order.
+ *
+ * @author nibah
+ */
+public class LeagueRunner {
+    private final ForkJoinPool pool;
+    private final Supplier<? extends MatchRules> rulesFactory;
+            /* supplies the rules for every single match */
+    private final Supplier<? extends MatchEventController> controllerFactory;
+            /* creates the event controller for every single match */
+    
+    /** Constructs a LeagueRunner using the common ForkJoinPool.
+     * 
+     * @param rulesFactory          supplies the MatchRules of each match, which
+     *                              may be one shared instance
+     * @param controllerFactory     creates a new MatchEventController for each match
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public LeagueRunner(Supplier<? extends MatchRules> rulesFactory,
+            Supplier<? extends MatchEventController> controllerFactory) {
+        this(ForkJoinPool.commonPool(), rulesFactory, controllerFactory);
+    }
+    
+    /** Constructs a LeagueRunner playing the matches on the given pool.
+     * 
+     * @param pool                  the pool the matches are played on
+     * @param rulesFactory          supplies the MatchRules of each match, which
+     *                              may be one shared instance
+     * @param controllerFactory     creates a new MatchEventController for each match
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public LeagueRunner(ForkJoinPool pool, Supplier<? extends MatchRules> rulesFactory,
+            Supplier<? extends MatchEventController> controllerFactory) {
+        if (pool == null || rulesFactory == null || controllerFactory == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        this.pool = pool;
+        this.rulesFactory = rulesFactory;
+        this.controllerFactory = controllerFactory;
+    }
+    
+    /** Plays all of the given fixtures and applies the suspensions afterwards.
+     * 
+     * @param fixtures      the fixtures that should be played
+     * @return an array containing the played matches in the order of the fixtures
+     * @throws IllegalArgumentException if fixtures is null
+     */
+    public Match[] play(List<Fixture> fixtures) {
+        if (fixtures == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        Fixture[] input = fixtures.toArray(new Fixture[0]);
+        Match[] matches = new Match[input.length];
+        if (input.length == 0)
+            return matches;
+        int batchSize = Math.max(1, input.length / (pool.getParallelism() * 8));
+        pool.invoke(new PlayTask(input, matches, 0, input.length, batchSize));
+        
+        //Suspensions are applied after every match ended, so the result does
+        //not depend on the order the matches were played in.
+        for (Match match : matches)
+            match.applySuspensions();
+        return matches;
+    }
+    
+    /** Creates a Match for a fixture. The match gets its own rules and event
+     * controller.
+     * 
+     * @param fixture   the fixture
+     * @return the new Match
+     */
+    private Match createMatch(Fixture fixture) {
+        return new Match(fixture.getHomeTeam(), fixture.getGuestTeam(),
+                         fixture.getHomeTactic(), fixture.getGuestTactic(),
+                         rulesFactory.get(), controllerFactory.get());
+    }
+    
+    /** Plays the fixtures in the interval [begin, end) by splitting it until
+     * the interval is not bigger than batchSize. */
+    private class PlayTask extends RecursiveAction {
+        private final Fixture[] fixtures;
+        private final Match[] matches;
+        private final int begin;
+        private final int end;
+        private final int batchSize;
+        
+        PlayTask(Fixture[] fixtures, Match[] matches, int begin, int end, int batchSize) {
+            this.fixtures = fixtures;
+            this.matches = matches;
+            this.begin = begin;
+            this.end = end;
+            this.batchSize = batchSize;
+        }
+        
+        @Override
+        protected void compute() {
+            if (end - begin <= batchSize) {
+                for (int i = begin; i < end; i++) {
+                    Match match = createMatch(fixtures[i]);
+                    match.play(false);
+                    matches[i] = match;
+                }
+                return;
+            }
+            int middle = (begin + end) >>> 1;
+            invokeAll(new PlayTask(fixtures, matches, begin, middle, batchSize),
+                      new PlayTask(fixtures, matches, middle, end, batchSize));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package match.league;
+
+import match.Team;
+
+/** Represents a scheduled pairing of a home and a guest team, before the
+ * tactics of the teams are known.
+ *
+ * @author nibah
+ */
+public class Pairing {
+    private final Team home;        // the home team
+    private final Team guest;       // the guest team
+
+    /** Constructs a pairing.
+     *
+     * @param home          the home team
+     * @param guest         the guest team
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public Pairing(Team home, Team guest) {
+        if (home == null || guest == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        this.home = home;
+        this.guest = guest;
+    }
+
+    /** Returns the home team
+     *
+     * @return the home team
+     */
+    public Team getHomeTeam() {return home;}
+
+    /** Returns the guest team
+     *
+     * @return the guest team
+     */
+    public Team getGuestTeam() {return guest;}
+
+    @Override
+    public String toString() {
+        return home.getName() + " - " + guest.getName();
+    }
+}
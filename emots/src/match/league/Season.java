@@ -0,0 +1,257 @@
+package match.league;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import match.Match;
+import match.MatchTactic;
+import match.Player;
+import match.Team;
+import match.Winner;
+
+/** Plays a round-robin season between a number of teams. Every team plays
+ * every other team once, or twice with return legs. The schedule is split
+ * into matchdays on which every team plays at most one match.
+ *
+ * The matches of a matchday are played in parallel by a LeagueRunner. As the
+ * teams of a matchday are all different, the matches do not share any
+ * mutable state and no locking is needed while they are played. Between two
+ * matchdays, the players sent off are suspended, so the tactics of the next
+ * matchday are selected and checked by the match rules with the updated
+ * eligibility. A suspension lasts for a given number of matchdays, after
+ * which the player is eligible again.
+ *
+ * A win is worth 3 points and a draw 1 point. Automatic wins are worth 3
+ * points as well, automatic draws do not give any points.
+ *
+ * @author nibah
+ */
+public class Season {
+    private final List<Team> teams;
+    private final List<List<Pairing>> schedule;     // the pairings of every matchday
+    private final TacticSelector selector;
+    private final LeagueRunner runner;
+    private final int suspensionLength;             // number of matchdays a player sent off misses
+    private final List<Match[]> played = new ArrayList<>();
+    private final Map<Player, Integer> suspended = new HashMap<>();
+            /* the players sent off during the season and the matchday they
+               are eligible again */
+    private final Map<Team, Integer> points = new HashMap<>();
+
+    /** Constructs a season in which every team plays every other team once
+     * and players sent off miss the next matchday.
+     *
+     * @param teams     the teams of the season
+     * @param selector  chooses the tactics of the teams for every matchday
+     * @param runner    plays the matches of a matchday
+     * @throws IllegalArgumentException if a parameter is null or a team is
+     *          listed twice
+     */
+    public Season(List<Team> teams, TacticSelector selector, LeagueRunner runner) {
+        this(teams, selector, runner, false, 1);
+    }
+
+    /** Constructs a season.
+     *
+     * @param teams             the teams of the season
+     * @param selector          chooses the tactics of the teams for every matchday
+     * @param runner            plays the matches of a matchday
+     * @param returnLegs        true if every team should play every other team
+     *                          twice, once at home and once as guest
+     * @param suspensionLength  the number of matchdays a player sent off misses
+     * @throws IllegalArgumentException if a parameter is null, a team is
+     *          listed twice or suspensionLength is not positive
+     */
+    public Season(List<Team> teams, TacticSelector selector, LeagueRunner runner,
+            boolean returnLegs, int suspensionLength) {
+        if (teams == null || selector == null || runner == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        if (suspensionLength <= 0)
+            throw new IllegalArgumentException("suspensionLength should be a positive integer");
+        this.teams = Collections.unmodifiableList(new ArrayList<>(teams));
+        this.schedule = roundRobin(this.teams, returnLegs);
+        this.selector = selector;
+        this.runner = runner;
+        this.suspensionLength = suspensionLength;
+        for (Team team : this.teams)
+            points.put(team, 0);
+    }
+
+    /** Builds a round-robin schedule with the circle method. With an odd
+     * number of teams, one team has a bye on every matchday. Home and guest
+     * are swapped on every other board, so that every team plays about half of
+     * its matches at home.
+     *
+     * @param teams         the teams
+     * @param returnLegs    true if the schedule should be repeated with home
+     *                      and guest swapped
+     * @return the pairings of every matchday
+     * @throws IllegalArgumentException if teams is null, contains null or
+     *          contains a team twice
+     */
+    public static List<List<Pairing>> roundRobin(List<Team> teams, boolean returnLegs) {
+        if (teams == null || teams.contains(null))
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        if (new HashSet<>(teams).size() != teams.size())
+            throw new IllegalArgumentException("A team cannot be listed twice.");
+        List<Team> circle = new ArrayList<>(teams);
+        if (circle.size() % 2 == 1)
+            circle.add(null);   // bye
+        int n = circle.size();
+        List<List<Pairing>> schedule = new ArrayList<>();
+        for (int day = 0; day < n - 1; day++) {
+            List<Pairing> pairings = new ArrayList<>();
+            for (int i = 0; i < n / 2; i++) {
+                Team first = circle.get(i);
+                Team second = circle.get(n - 1 - i);
+                if (first == null || second == null)
+                    continue;
+                boolean swap = i == 0 ? day % 2 == 1 : i % 2 == 1;
+                pairings.add(swap ? new Pairing(second, first) : new Pairing(first, second));
+            }
+            schedule.add(Collections.unmodifiableList(pairings));
+            circle.add(1, circle.remove(n - 1));    // rotate all but the first team
+        }
+        if (returnLegs)
+            for (int day = 0; day < n - 1; day++) {
+                List<Pairing> pairings = new ArrayList<>();
+                for (Pairing pairing : schedule.get(day))
+                    pairings.add(new Pairing(pairing.getGuestTeam(), pairing.getHomeTeam()));
+                schedule.add(Collections.unmodifiableList(pairings));
+            }
+        return Collections.unmodifiableList(schedule);
+    }
+
+    /**
+     *
+     * @return the teams of the season
+     */
+    public List<Team> getTeams() {
+        return teams;
+    }
+
+    /**
+     *
+     * @return the number of matchdays of the season
+     */
+    public int numberOfMatchdays() {
+        return schedule.size();
+    }
+
+    /**
+     *
+     * @return the number of matchdays played so far, which is the index of
+     *          the next matchday
+     */
+    public int getCurrentMatchday() {
+        return played.size();
+    }
+
+    /**
+     *
+     * @return true if not all of the matchdays have been played yet
+     */
+    public boolean hasNextMatchday() {
+        return played.size() < schedule.size();
+    }
+
+    /**
+     *
+     * @param matchday  the index of a matchday
+     * @return the pairings of the matchday
+     */
+    public List<Pairing> getPairings(int matchday) {
+        return schedule.get(matchday);
+    }
+
+    /**
+     *
+     * @param matchday  the index of a matchday which has been played
+     * @return the matches of the matchday in the order of its pairings
+     */
+    public Match[] getMatches(int matchday) {
+        return played.get(matchday).clone();
+    }
+
+    /** Plays the next matchday. The players whose suspension is over are made
+     * eligible first, then the tactics are selected and the matches are
+     * played in parallel. Afterwards the players sent off are suspended.
+     *
+     * @return the matches of the matchday in the order of its pairings
+     * @throws IllegalStateException if all of the matchdays have been played
+     */
+    public Match[] playMatchday() {
+        if (!hasNextMatchday())
+            throw new IllegalStateException("All of the matchdays have been played.");
+        int matchday = played.size();
+        for (Iterator<Map.Entry<Player, Integer>> it = suspended.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Player, Integer> suspension = it.next();
+            if (suspension.getValue() <= matchday) {
+                suspension.getKey().setEligible(true);
+                it.remove();
+            }
+        }
+
+        List<Fixture> fixtures = new ArrayList<>();
+        for (Pairing pairing : schedule.get(matchday)) {
+            MatchTactic homeTactic = selector.selectTactic(pairing.getHomeTeam(), matchday);
+            MatchTactic guestTactic = selector.selectTactic(pairing.getGuestTeam(), matchday);
+            fixtures.add(new Fixture(pairing.getHomeTeam(), pairing.getGuestTeam(), homeTactic, guestTactic));
+        }
+        //The runner returns after every match of the matchday ended and the
+        //players sent off have been made uneligible.
+        Match[] matches = runner.play(fixtures);
+        for (Match match : matches) {
+            for (Player player : match.getSentOffPlayers())
+                suspended.put(player, matchday + suspensionLength + 1);
+            award(match);
+        }
+        played.add(matches);
+        return matches.clone();
+    }
+
+    /** Plays all of the remaining matchdays. */
+    public void play() {
+        while (hasNextMatchday())
+            playMatchday();
+    }
+
+    private void award(Match match) {
+        Winner winner = match.getResult().getWinner();
+        if (winner == Winner.HOME || winner == Winner.AUTOMATIC_HOME)
+            points.merge(match.getHomeTeam(), 3, Integer::sum);
+        else if (winner == Winner.GUEST || winner == Winner.AUTOMATIC_GUEST)
+            points.merge(match.getGuestTeam(), 3, Integer::sum);
+        else if (winner == Winner.DRAW) {
+            points.merge(match.getHomeTeam(), 1, Integer::sum);
+            points.merge(match.getGuestTeam(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     *
+     * @param team      a team of the season
+     * @return the points the team has won so far
+     * @throws IllegalArgumentException if the team does not play in this season
+     */
+    public int getPoints(Team team) {
+        Integer teamPoints = points.get(team);
+        if (teamPoints == null)
+            throw new IllegalArgumentException("The team does not play in this season.");
+        return teamPoints;
+    }
+
+    /**
+     *
+     * @param player    a player
+     * @return true if the player is suspended for the next matchday
+     */
+    public boolean isSuspended(Player player) {
+        Integer eligibleAgain = suspended.get(player);
+        return eligibleAgain != null && eligibleAgain > played.size();
+    }
+}
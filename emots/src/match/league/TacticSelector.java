@@ -0,0 +1,21 @@
+package match.league;
+
+import match.MatchTactic;
+import match.Team;
+
+/** Chooses the tactic a team plays with on a matchday of a Season. The
+ * selector is called after the suspensions of the previous matchdays have been
+ * applied, so it can leave out players who are not eligible.
+ *
+ * @author nibah
+ */
+public interface TacticSelector {
+
+    /** Returns the tactic of a team for a matchday.
+     *
+     * @param team      the team
+     * @param matchday  the index of the matchday, starting with 0
+     * @return the tactic the team plays with
+     */
+    MatchTactic selectTactic(Team team, int matchday);
+}
@@ -0,0 +1,153 @@
+package match.live;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import match.Match;
+import match.MatchEvent;
+import match.MatchListener;
+import match.MatchStatistics;
+
+/** A preallocated ring buffer publishing the events of matches to any number
+ * of subscribers while they are played. Add the ring to a Match with
+ * Match.addListener(MatchListener): after every executed MatchEvent a record
+ * with the match id, the round, the event, the score and the number of match
+ * messages is published, and a last record when the match has ended.
+ *
+ * The ring has a single producer: all of the matches publishing into one ring
+ * have to be played on the same thread. Publishing never waits for the
+ * subscribers. A subscriber which falls behind by more than the capacity of
+ * the ring loses the oldest records; it notices this when polling, skips to
+ * the oldest record still available and counts the records it dropped.
+ *
+ * Every slot is guarded by a sequence lock: its version is odd while the
+ * producer writes the slot and 2 * sequence + 2 once the record with the
+ * given sequence number is complete. A subscriber copies a record and checks
+ * that the version did not change in the meantime.
+ *
+ * @author nibah
+ */
+public class MatchEventRing implements MatchListener {
+    static final int STRIDE = 4;        // longs per slot: version and three data words
+    /** Flag of the record published when a match has ended */
+    public static final int MATCH_END = 1;
+
+    private final int capacity;
+    private final int mask;
+    final AtomicLongArray slots;
+    final AtomicReferenceArray<MatchEvent> events;
+    final AtomicLong published = new AtomicLong();  // the number of records published
+    private long next;                              // the sequence of the next record, producer only
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /** Constructs a ring.
+     *
+     * @param capacity  the number of records kept, a power of two
+     * @throws IllegalArgumentException if capacity is not a positive power of two
+     */
+    public MatchEventRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1 || capacity > Integer.MAX_VALUE / STRIDE)
+            throw new IllegalArgumentException("capacity should be a positive power of two");
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new AtomicLongArray(capacity * STRIDE);
+        this.events = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     *
+     * @return the number of records kept
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     *
+     * @return the number of records published so far
+     */
+    public long getPublished() {
+        return published.get();
+    }
+
+    @Override
+    public void eventExecuted(Match match, MatchEvent event) {
+        publish(match, event, 0);
+    }
+
+    @Override
+    public void matchEnded(Match match) {
+        publish(match, null, MATCH_END);
+    }
+
+    private void publish(Match match, MatchEvent event, int flags) {
+        MatchStatistics stats = match.getResult().getStatistics();
+        long sequence = next;
+        int slot = (int) sequence & mask;
+        int base = slot * STRIDE;
+        slots.set(base, 2 * sequence + 1);
+        slots.lazySet(base + 1, (long) match.getId() << 32 | match.getCurrentRound() & 0xFFFFFFFFL);
+        slots.lazySet(base + 2, (long) stats.getHomeGoals() << 32 | stats.getGuestGoals() & 0xFFFFFFFFL);
+        slots.lazySet(base + 3, (long) stats.getMatchMessages().numberOfMessages() << 32 | flags & 0xFFFFFFFFL);
+        events.lazySet(slot, event);
+        slots.lazySet(base, 2 * sequence + 2);
+        next = sequence + 1;
+        published.lazySet(next);
+    }
+
+    /** Subscribes to the records published from now on.
+     *
+     * @return the new subscription
+     */
+    public Subscription subscribe() {
+        return subscribe(published.get());
+    }
+
+    /** Subscribes to all of the records still kept in the ring and the ones
+     * published later on.
+     *
+     * @return the new subscription
+     */
+    public Subscription subscribeFromOldest() {
+        return subscribe(Math.max(0, published.get() - capacity + 1));
+    }
+
+    private Subscription subscribe(long first) {
+        Subscription subscription = new Subscription(this, first);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     *
+     * @return the subscriptions which have not been closed
+     */
+    public List<Subscription> getSubscriptions() {
+        return new ArrayList<>(subscriptions);
+    }
+
+    /** Returns the subscriptions which are further behind than the given
+     * number of records or have dropped records.
+     *
+     * @param maxLag    the number of unread records a subscriber may have
+     * @return the lagging subscriptions
+     */
+    public List<Subscription> getLaggingSubscriptions(long maxLag) {
+        List<Subscription> lagging = new ArrayList<>();
+        for (Subscription subscription : subscriptions)
+            if (subscription.getLag() > maxLag || subscription.getDropped() > 0)
+                lagging.add(subscription);
+        return lagging;
+    }
+
+    int mask() {
+        return mask;
+    }
+}
@@ -0,0 +1,158 @@
+package match.live;
+
+import match.MatchEvent;
+
+/** A subscriber's position in a MatchEventRing. poll() copies the next
+ * record, whose fields are then read with the getters. A subscription is used
+ * by one thread; different subscriptions of a ring can be polled concurrently.
+ *
+ * @author nibah
+ */
+public final class Subscription implements AutoCloseable {
+    private final MatchEventRing ring;
+    private volatile long next;             // the sequence of the next record to read
+    private volatile long dropped;          // the number of records lost by falling behind
+    // the record read last
+    private long sequence = -1;
+    private int matchId, round, homeGoals, guestGoals, messageCount, flags;
+    private MatchEvent event;
+
+    Subscription(MatchEventRing ring, long first) {
+        this.ring = ring;
+        this.next = first;
+    }
+
+    /** Reads the next record, if one has been published. If records were
+     * overwritten before they could be read, they are skipped and counted as
+     * dropped.
+     *
+     * @return true if a record was read, false if there is no new record
+     */
+    public boolean poll() {
+        long position = next;
+        while (true) {
+            long published = ring.published.get();
+            if (position >= published)
+                return false;
+            long oldest = published - ring.capacity() + 1;
+            if (position < oldest) {
+                dropped += oldest - position;
+                position = oldest;
+                next = position;
+            }
+            int slot = (int) position & ring.mask();
+            int base = slot * MatchEventRing.STRIDE;
+            long version = ring.slots.get(base);
+            if (version == 2 * position + 2) {
+                long ids = ring.slots.get(base + 1);
+                long score = ring.slots.get(base + 2);
+                long info = ring.slots.get(base + 3);
+                MatchEvent read = ring.events.get(slot);
+                if (ring.slots.get(base) == version) {
+                    sequence = position;
+                    matchId = (int) (ids >>> 32);
+                    round = (int) ids;
+                    homeGoals = (int) (score >>> 32);
+                    guestGoals = (int) score;
+                    messageCount = (int) (info >>> 32);
+                    flags = (int) info;
+                    event = read;
+                    next = position + 1;
+                    return true;
+                }
+            }
+            // the slot has been overwritten in the meantime; look at the
+            // published count again to skip the lost records
+            position = Math.max(position + 1, ring.published.get() - ring.capacity() + 1);
+            dropped += position - next;
+            next = position;
+        }
+    }
+
+    /**
+     *
+     * @return the number of published records which have not been read yet
+     */
+    public long getLag() {
+        return Math.max(0, ring.published.get() - next);
+    }
+
+    /**
+     *
+     * @return the number of records which were overwritten before they could be read
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     *
+     * @return the sequence number of the record read last, or -1
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     *
+     * @return the id of the match
+     */
+    public int getMatchId() {
+        return matchId;
+    }
+
+    /**
+     *
+     * @return the round of the event, or the number of rounds played for the
+     *          end of a match
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     *
+     * @return the executed event, or null for the end of a match
+     */
+    public MatchEvent getEvent() {
+        return event;
+    }
+
+    /**
+     *
+     * @return the goals of the home team after the event
+     */
+    public int getHomeGoals() {
+        return homeGoals;
+    }
+
+    /**
+     *
+     * @return the goals of the guest team after the event
+     */
+    public int getGuestGoals() {
+        return guestGoals;
+    }
+
+    /**
+     *
+     * @return the number of match messages recorded after the event
+     */
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     *
+     * @return true if the record marks the end of a match
+     */
+    public boolean isMatchEnd() {
+        return (flags & MatchEventRing.MATCH_END) != 0;
+    }
+
+    /** Stops the subscription. The ring does not report it anymore. */
+    @Override
+    public void close() {
+        ring.unsubscribe(this);
+    }
+}
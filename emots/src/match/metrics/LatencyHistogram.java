@@ -0,0 +1,146 @@
+package match.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** A histogram of latencies which can be recorded concurrently without
+ * locking. Values are counted in log-linear buckets: every power of two is
+ * split into SUB_BUCKETS buckets, so a percentile is accurate to 1/SUB_BUCKETS
+ * of its value. Values up to Long.MAX_VALUE can be recorded; negative values
+ * are counted as 0.
+ *
+ * The counts are striped like a LongAdder: every thread records into one of
+ * a fixed number of arrays of buckets, chosen by its id, so concurrent threads
+ * rarely update the same array. A stripe is created when it is first used;
+ * the reading methods sum up all of them.
+ *
+ * @author nibah
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    /** The number of buckets every power of two is split into */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final int STRIPES = Math.min(64,
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+            /* a power of two, at least the number of processors */
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+
+    /** Records a value.
+     *
+     * @param value     the value, usually a duration in nanoseconds
+     */
+    public void record(long value) {
+        stripe().incrementAndGet(bucket(Math.max(0, value)));
+    }
+
+    /* The stripe of the current thread, created if it is used for the first time */
+    private AtomicLongArray stripe() {
+        int i = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        AtomicLongArray stripe = stripes.get(i);
+        if (stripe == null) {
+            stripes.compareAndSet(i, null, new AtomicLongArray(BUCKETS));
+            stripe = stripes.get(i);
+        }
+        return stripe;
+    }
+
+    /* The counts of all stripes added up */
+    private long[] counts() {
+        long[] counts = new long[BUCKETS];
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe != null)
+                for (int i = 0; i < BUCKETS; i++)
+                    counts[i] += stripe.get(i);
+        }
+        return counts;
+    }
+
+    /* Values below SUB_BUCKETS get a bucket of their own, all others share
+       a bucket with the values having the same highest SUB_BUCKET_BITS + 1 bits */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /* The smallest value counted in a bucket */
+    static long lowestValue(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    /* The largest value counted in a bucket */
+    static long highestValue(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowestValue(bucket + 1) - 1;
+    }
+
+    /**
+     *
+     * @return the number of values recorded
+     */
+    public long getCount() {
+        long count = 0;
+        for (long bucketCount : counts())
+            count += bucketCount;
+        return count;
+    }
+
+    /** Returns an upper bound of the given percentile: at least the given
+     * share of the values recorded is not greater than the returned value.
+     * Values recorded concurrently may or may not be taken into account.
+     *
+     * @param percentile    the percentile, between 0 and 100
+     * @return the highest value of the bucket containing the percentile, or 0
+     *          if no value was recorded
+     * @throws IllegalArgumentException if percentile is not between 0 and 100
+     */
+    public long getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100))
+            throw new IllegalArgumentException("percentile should be between 0 and 100");
+        long[] snapshot = counts();
+        long total = 0;
+        for (long bucketCount : snapshot)
+            total += bucketCount;
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return highestValue(i);
+        }
+        return highestValue(BUCKETS - 1);
+    }
+
+    /**
+     *
+     * @return an upper bound of the largest value recorded, or 0 if no value was recorded
+     */
+    public long getMax() {
+        long[] counts = counts();
+        for (int i = BUCKETS - 1; i >= 0; i--)
+            if (counts[i] != 0)
+                return highestValue(i);
+        return 0;
+    }
+
+    /** Removes all of the values recorded. Values recorded concurrently may
+     * or may not be kept.
+     */
+    public void reset() {
+        for (int s = 0; s < STRIPES; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe != null)
+                for (int i = 0; i < BUCKETS; i++)
+                    stripe.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package match.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Counts the executions of something and how long they took. The count and
+ * the total time are kept in striped counters, so concurrent threads do not
+ * compete for them; the distribution is kept in a LatencyHistogram.
+ *
+ * @author nibah
+ */
+public class LatencyTimer {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /** Records an execution.
+     *
+     * @param nanos     the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        count.increment();
+        totalNanos.add(nanos);
+        histogram.record(nanos);
+    }
+
+    /**
+     *
+     * @return the number of executions recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     *
+     * @return the sum of the durations recorded in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     *
+     * @return the distribution of the durations recorded
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /** Takes a snapshot of the timer.
+     *
+     * @param name          the name of the snapshot
+     * @param elapsedNanos  the time the timer has been recording, used for the
+     *                      throughput
+     * @return the snapshot
+     */
+    public TimerSnapshot snapshot(String name, long elapsedNanos) {
+        return new TimerSnapshot(name, count.sum(), totalNanos.sum(), elapsedNanos,
+                histogram.getPercentile(50), histogram.getPercentile(90),
+                histogram.getPercentile(99), histogram.getPercentile(99.9), histogram.getMax());
+    }
+
+    /** Removes all of the executions recorded. Executions recorded
+     * concurrently may or may not be kept.
+     */
+    public void reset() {
+        count.reset();
+        totalNanos.reset();
+        histogram.reset();
+    }
+}
@@ -0,0 +1,239 @@
+package match.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import match.MatchEvent;
+
+/** Times the phases of Match.play() and the execution of every MatchEvent
+ * class. A match records into the metrics set with Match.setMetrics, which
+ * are the default metrics unless changed. There are no default metrics until
+ * register() is called, and matches without metrics do not measure anything.
+ *
+ * The tactic validation and the winner evaluation are timed once per match.
+ * Rounds are sampled: only every SAMPLE_INTERVAL-th round is timed (see
+ * isSampled), so the EVENT_ROLL, EVENT_EXECUTION and event class timers count
+ * about 1/SAMPLE_INTERVAL of the rounds, while getRounds() counts all of them.
+ * A timed round takes a few striped counter updates and one update of a
+ * striped histogram per timer; the other rounds only check isSampled. This
+ * keeps the metrics cheap enough to stay switched on in production.
+ *
+ * @author nibah
+ */
+public class MatchMetrics implements MatchMetricsMXBean {
+    /** The name the default metrics are registered under */
+    public static final String OBJECT_NAME = "match.metrics:type=MatchMetrics";
+    private static volatile MatchMetrics defaultMetrics;
+
+    /** The phases of Match.play() */
+    public enum Phase {
+        /** checking both tactics against the match rules */
+        TACTIC_VALIDATION,
+        /** rolling the event of a sampled round */
+        EVENT_ROLL,
+        /** executing the event of a sampled round, whatever its class */
+        EVENT_EXECUTION,
+        /** evaluating the winner after the last round */
+        WINNER_EVALUATION
+    }
+
+    /** Every how many rounds one round is timed, a power of two */
+    public static final int SAMPLE_INTERVAL = 16;
+    private static final Phase[] PHASES = Phase.values();
+
+    private final LatencyTimer[] phases = new LatencyTimer[PHASES.length];
+    private final Map<Class<?>, LatencyTimer> eventTimers = new ConcurrentHashMap<>();
+    private final ClassValue<LatencyTimer> events = new ClassValue<LatencyTimer>() {
+        @Override
+        protected LatencyTimer computeValue(Class<?> type) {
+            return eventTimers.computeIfAbsent(type, t -> new LatencyTimer());
+        }
+    };
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder rounds = new LongAdder();
+    private volatile long since = System.nanoTime();    // when the metrics were created or reset
+
+    /** Constructs metrics which have not recorded anything. */
+    public MatchMetrics() {
+        for (int i = 0; i < phases.length; i++)
+            phases[i] = new LatencyTimer();
+    }
+
+    /** Creates the default metrics and registers them with the platform
+     * MBeanServer under OBJECT_NAME, if this has not been done before.
+     *
+     * @return the default metrics
+     * @throws IllegalStateException if the metrics could not be registered
+     */
+    public static synchronized MatchMetrics register() {
+        if (defaultMetrics == null) {
+            MatchMetrics metrics = new MatchMetrics();
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(metrics, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                throw new IllegalStateException("the match metrics could not be registered", e);
+            }
+            defaultMetrics = metrics;
+        }
+        return defaultMetrics;
+    }
+
+    /** Unregisters the default metrics. Matches created afterwards do not
+     * record metrics anymore unless they are given some.
+     *
+     * @throws IllegalStateException if the metrics could not be unregistered
+     */
+    public static synchronized void unregister() {
+        if (defaultMetrics == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            throw new IllegalStateException("the match metrics could not be unregistered", e);
+        }
+        defaultMetrics = null;
+    }
+
+    /**
+     *
+     * @return the metrics new matches record into, or null if register() has
+     *          not been called
+     */
+    public static MatchMetrics getDefault() {
+        return defaultMetrics;
+    }
+
+    /** Returns true if a round of a match should be timed. As the timed
+     * rounds are shifted by the id of the match, every round number is timed
+     * equally often over many matches, even in matches shorter than
+     * SAMPLE_INTERVAL rounds.
+     *
+     * @param matchId   the id of the match
+     * @param round     the round, counted from 0
+     * @return true if the round should be timed
+     */
+    public static boolean isSampled(int matchId, int round) {
+        return ((matchId + round) & (SAMPLE_INTERVAL - 1)) == 0;
+    }
+
+    /** Records a phase which started at the given time and ended now.
+     *
+     * @param phase     the phase
+     * @param start     the System.nanoTime() when the phase started
+     * @return the current System.nanoTime(), the start of the next phase
+     */
+    public long recordPhase(Phase phase, long start) {
+        long now = System.nanoTime();
+        phases[phase.ordinal()].record(now - start);
+        return now;
+    }
+
+    /** Records the execution of an event which started at the given time and
+     * ended now, both for the EVENT_EXECUTION phase and the class of the event.
+     *
+     * @param event     the executed event
+     * @param start     the System.nanoTime() when the execution started
+     * @return the current System.nanoTime()
+     */
+    public long recordEvent(MatchEvent event, long start) {
+        long now = System.nanoTime();
+        long nanos = now - start;
+        phases[Phase.EVENT_EXECUTION.ordinal()].record(nanos);
+        events.get(event.getClass()).record(nanos);
+        return now;
+    }
+
+    /** Records that a match has ended.
+     *
+     * @param rounds    the number of rounds played
+     */
+    public void recordMatch(int rounds) {
+        matches.increment();
+        this.rounds.add(rounds);
+    }
+
+    /**
+     *
+     * @param phase     the phase
+     * @return the timer of the phase
+     */
+    public LatencyTimer getTimer(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    /**
+     *
+     * @param eventClass    the class of a MatchEvent
+     * @return the timer of the class, or null if no event of it was executed
+     */
+    public LatencyTimer getTimer(Class<? extends MatchEvent> eventClass) {
+        return eventTimers.get(eventClass);
+    }
+
+    @Override
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    @Override
+    public long getRounds() {
+        return rounds.sum();
+    }
+
+    @Override
+    public double getMatchesPerSecond() {
+        long elapsed = System.nanoTime() - since;
+        return elapsed <= 0 ? 0 : matches.sum() * 1e9 / elapsed;
+    }
+
+    @Override
+    public TimerSnapshot[] getPhases() {
+        long elapsed = System.nanoTime() - since;
+        TimerSnapshot[] snapshots = new TimerSnapshot[PHASES.length];
+        for (int i = 0; i < snapshots.length; i++)
+            snapshots[i] = phases[i].snapshot(PHASES[i].name(), elapsed);
+        return snapshots;
+    }
+
+    @Override
+    public TimerSnapshot[] getEvents() {
+        long elapsed = System.nanoTime() - since;
+        List<TimerSnapshot> snapshots = new ArrayList<>(eventTimers.size());
+        for (Map.Entry<Class<?>, LatencyTimer> entry : eventTimers.entrySet())
+            snapshots.add(entry.getValue().snapshot(entry.getKey().getName(), elapsed));
+        snapshots.sort(Comparator.comparing(TimerSnapshot::getName));
+        return snapshots.toArray(new TimerSnapshot[0]);
+    }
+
+    @Override
+    public TimerSnapshot[] snapshot() {
+        TimerSnapshot[] phaseSnapshots = getPhases();
+        TimerSnapshot[] eventSnapshots = getEvents();
+        TimerSnapshot[] all = Arrays.copyOf(phaseSnapshots, phaseSnapshots.length + eventSnapshots.length);
+        System.arraycopy(eventSnapshots, 0, all, phaseSnapshots.length, eventSnapshots.length);
+        return all;
+    }
+
+    /** Removes everything recorded so far. The timers stay the same objects.
+     * Values recorded concurrently may or may not be kept.
+     */
+    @Override
+    public void reset() {
+        for (LatencyTimer timer : phases)
+            timer.reset();
+        for (LatencyTimer timer : eventTimers.values())
+            timer.reset();
+        matches.reset();
+        rounds.reset();
+        since = System.nanoTime();
+    }
+}
@@ -0,0 +1,48 @@
+package match.metrics;
+
+/** The management interface of MatchMetrics. Durations are in nanoseconds,
+ * rates are per second since the metrics were created or last reset.
+ *
+ * @author nibah
+ */
+public interface MatchMetricsMXBean {
+
+    /**
+     *
+     * @return the number of matches played
+     */
+    long getMatches();
+
+    /**
+     *
+     * @return the number of rounds played
+     */
+    long getRounds();
+
+    /**
+     *
+     * @return the matches played per second
+     */
+    double getMatchesPerSecond();
+
+    /**
+     *
+     * @return the timers of the phases of Match.play()
+     */
+    TimerSnapshot[] getPhases();
+
+    /**
+     *
+     * @return the execution timers of every MatchEvent class executed so far
+     */
+    TimerSnapshot[] getEvents();
+
+    /** Takes a snapshot of all timers at once.
+     *
+     * @return the timers of the phases followed by the ones of the event classes
+     */
+    TimerSnapshot[] snapshot();
+
+    /** Removes everything recorded so far. */
+    void reset();
+}
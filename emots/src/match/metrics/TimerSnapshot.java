@@ -0,0 +1,97 @@
+package match.metrics;
+
+/** The state of a LatencyTimer at some point in time. It is mapped to a
+ * CompositeData by JMX, so every getter becomes an item of it.
+ *
+ * @author nibah
+ */
+public class TimerSnapshot {
+    private final String name;
+    private final long count;
+    private final long totalNanos;
+    private final long elapsedNanos;    // the time the timer has been recording
+    private final long p50Nanos, p90Nanos, p99Nanos, p999Nanos, maxNanos;
+
+    TimerSnapshot(String name, long count, long totalNanos, long elapsedNanos,
+            long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+        this.name = name;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.elapsedNanos = elapsedNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    /**
+     *
+     * @return the name of the phase or event class
+     */
+    public String getName() {return name;}
+
+    /**
+     *
+     * @return the number of executions
+     */
+    public long getCount() {return count;}
+
+    /**
+     *
+     * @return the sum of the durations in nanoseconds
+     */
+    public long getTotalNanos() {return totalNanos;}
+
+    /**
+     *
+     * @return the mean duration in nanoseconds, or 0 without executions
+     */
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     *
+     * @return the executions per second since the timer was created or reset
+     */
+    public double getPerSecond() {
+        return elapsedNanos <= 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+
+    /**
+     *
+     * @return an upper bound of the median duration in nanoseconds
+     */
+    public long getP50Nanos() {return p50Nanos;}
+
+    /**
+     *
+     * @return an upper bound of the 90th percentile in nanoseconds
+     */
+    public long getP90Nanos() {return p90Nanos;}
+
+    /**
+     *
+     * @return an upper bound of the 99th percentile in nanoseconds
+     */
+    public long getP99Nanos() {return p99Nanos;}
+
+    /**
+     *
+     * @return an upper bound of the 99.9th percentile in nanoseconds
+     */
+    public long getP999Nanos() {return p999Nanos;}
+
+    /**
+     *
+     * @return an upper bound of the longest duration in nanoseconds
+     */
+    public long getMaxNanos() {return maxNanos;}
+
+    @Override
+    public String toString() {
+        return name + ": " + count + " x, mean " + Math.round(getMeanNanos()) + " ns, p99 "
+                + p99Nanos + " ns, max " + maxNanos + " ns";
+    }
+}
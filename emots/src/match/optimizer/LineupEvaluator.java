@@ -0,0 +1,161 @@
+package match.optimizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import match.FieldPosition;
+import match.MatchEvent;
+import match.MatchEventController;
+import match.MatchTactic;
+import match.Player;
+import match.standard.events.GuestPenalty;
+import match.standard.events.HomePenalty;
+import match.standard.events.HomeVersusGuest;
+import match.standard.events.Penalty;
+import match.standard.events.RedCard;
+import match.standard.events.Side;
+
+/* Scores lineups of one team against a fixed opponent tactic and event deck
+   without building MatchTactics. A lineup is described by what the standard
+   events look at: the stars per FieldPosition (sub-FieldPositions included),
+   how many of the opposing goalies each shooter beats and how many of the
+   opposing players each goalie lets score. The score is the expected number of
+   points (3 for a win, 1 for a draw), computed over the goal difference the
+   same way OutcomeCalculator does over the scorelines.
+
+   More stars never make a lineup worse, so evaluating the best stars still
+   available for the open slots gives an upper bound for a partial lineup. */
+final class LineupEvaluator {
+    private static final FieldPosition[] POSITIONS = FieldPosition.values();
+
+    private final int rounds;
+    private final int[] duelPositions;      // the own FieldPosition (ordinal) of every duel
+    private final int[] duelOpponentStars;  // the stars of the opponent in every duel
+    private final double[] duelChances;     // the chance of every duel to be rolled
+    private final double shootChance;       // the chance of an own penalty in a round
+    private final double defendChance;      // the chance of an opposing penalty in a round
+    private final int[] opponentGoalies;    // the stars of the opposing goalies
+    private final int[] opponentPlayers;    // the stars of all opposing players
+
+    /* Throws IllegalArgumentException if the deck cannot be solved */
+    LineupEvaluator(boolean home, MatchTactic opponent, MatchEventController controller, int rounds) {
+        Map<MatchEvent, Double> probabilities = controller.getProbabilities();
+        if (probabilities == null)
+            throw new IllegalArgumentException("the event controller does not know its probabilities");
+        if (probabilities.isEmpty() && rounds > 0)
+            throw new IllegalArgumentException("the event controller has no events");
+        this.rounds = rounds;
+        opponentGoalies = stars(opponent.getPosition(FieldPosition.GOALIE));
+        opponentPlayers = stars(opponent.getPlayers());
+        List<double[]> duels = new ArrayList<>();
+        double shoot = 0, defend = 0;
+        for (Map.Entry<MatchEvent, Double> entry : probabilities.entrySet()) {
+            MatchEvent event = entry.getKey();
+            double probability = entry.getValue();
+            Class<?> type = event.getClass();
+            if (type == HomeVersusGuest.class) {
+                HomeVersusGuest duel = (HomeVersusGuest) event;
+                FieldPosition own = home ? duel.getHomeFieldPosition() : duel.getGuestFieldPosition();
+                FieldPosition other = home ? duel.getGuestFieldPosition() : duel.getHomeFieldPosition();
+                duels.add(new double[]{own.ordinal(), opponent.getStars(other), probability});
+            } else if (type == Penalty.class || type == HomePenalty.class || type == GuestPenalty.class) {
+                Side side = ((Penalty) event).getSide();
+                double homeShare = side == Side.HOME ? 1 : side == Side.GUEST ? 0 : 0.5;
+                shoot += probability * (home ? homeShare : 1 - homeShare);
+                defend += probability * (home ? 1 - homeShare : homeShare);
+            } else if (type != RedCard.class) {
+                throw new IllegalArgumentException(event.getClass().getName() + " cannot be solved analytically");
+            }
+        }
+        if (shoot > 0 && opponentGoalies.length == 0)
+            throw new IllegalArgumentException("the opponent has no goalie for a penalty");
+        duelPositions = new int[duels.size()];
+        duelOpponentStars = new int[duels.size()];
+        duelChances = new double[duels.size()];
+        for (int i = 0; i < duels.size(); i++) {
+            duelPositions[i] = (int) duels.get(i)[0];
+            duelOpponentStars[i] = (int) duels.get(i)[1];
+            duelChances[i] = duels.get(i)[2];
+        }
+        shootChance = shoot;
+        defendChance = defend;
+    }
+
+    private static int[] stars(Player[] players) {
+        int[] stars = new int[players.length];
+        for (int i = 0; i < players.length; i++)
+            stars[i] = players[i].getStars();
+        return stars;
+    }
+
+    /* true if the lineup needs a goalie to face the opposing penalties */
+    boolean needsGoalie() {
+        return defendChance > 0;
+    }
+
+    /* The number of opposing goalies a shooter with the given stars beats */
+    int beatenGoalies(int stars) {
+        int beaten = 0;
+        for (int goalie : opponentGoalies)
+            if (stars > goalie)
+                beaten++;
+        return beaten;
+    }
+
+    /* The number of opposing players who beat a goalie with the given stars */
+    int conceded(int stars) {
+        int conceded = 0;
+        for (int player : opponentPlayers)
+            if (player > stars)
+                conceded++;
+        return conceded;
+    }
+
+    /* The expected points of a lineup.
+       stars:       the stars per FieldPosition ordinal, sub-FieldPositions included
+       beaten:      the sum of beatenGoalies over all players
+       players:     the number of players
+       conceded:    the sum of conceded over all goalies
+       goalies:     the number of goalies */
+    double score(int[] stars, long beaten, int players, long conceded, int goalies) {
+        double own = 0, other = 0;
+        for (int i = 0; i < duelPositions.length; i++) {
+            int ownStars = stars[duelPositions[i]];
+            if (ownStars > duelOpponentStars[i])
+                own += duelChances[i];
+            else if (ownStars < duelOpponentStars[i])
+                other += duelChances[i];
+        }
+        if (shootChance > 0 && players > 0)
+            own += shootChance * beaten / ((double) players * opponentGoalies.length);
+        if (defendChance > 0 && goalies > 0 && opponentPlayers.length > 0)
+            other += defendChance * conceded / ((double) goalies * opponentPlayers.length);
+        return expectedPoints(own, other);
+    }
+
+    /* Plays the rounds on the distribution of the goal difference, where
+       index rounds + d holds the chance of the own team leading by d goals */
+    private double expectedPoints(double own, double other) {
+        double none = Math.max(0, 1 - own - other);
+        double[] difference = new double[2 * rounds + 1];
+        double[] next = new double[2 * rounds + 1];
+        difference[rounds] = 1;
+        for (int round = 0; round < rounds; round++) {
+            Arrays.fill(next, rounds - round - 1, rounds + round + 2, 0);
+            for (int i = rounds - round; i <= rounds + round; i++) {
+                double probability = difference[i];
+                next[i - 1] += probability * other;
+                next[i] += probability * none;
+                next[i + 1] += probability * own;
+            }
+            double[] swap = difference;
+            difference = next;
+            next = swap;
+        }
+        double win = 0;
+        for (int i = rounds + 1; i < difference.length; i++)
+            win += difference[i];
+        return 3 * win + difference[rounds];
+    }
+}
@@ -0,0 +1,463 @@
+package match.optimizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import match.FieldPosition;
+import match.FormationPattern;
+import match.MatchEventController;
+import match.MatchTactic;
+import match.Player;
+import match.StandardMatchRules;
+import match.Team;
+import match.analysis.OutcomeCalculator;
+import match.analysis.OutcomeDistribution;
+import match.analysis.TacticProfile;
+
+/** Searches the lineup of a team with the most expected points against a
+ * known opponent tactic. Every allowed FormationPattern of the rules is tried;
+ * for each of its FieldPositions the optimizer chooses how many players of
+ * every star value play there. Players with the same stars are
+ * interchangeable for the standard events, so this covers every lineup.
+ *
+ * The search is a branch and bound: a partial lineup is scored as if the open
+ * FieldPositions got the best players still available, and dropped if even
+ * that cannot beat the best lineup found so far. The branches are searched in
+ * parallel on a ForkJoinPool until the time budget runs out. Ties are broken
+ * by the order of the patterns and of the branches, so a complete search
+ * always returns the same lineup.
+ *
+ * Only event decks which can be solved exactly are supported (see
+ * TacticProfile): the event controller has to know its probabilities and
+ * every event has to be one of the standard duels, penalties or red cards.
+ *
+ * @author nibah
+ */
+public class LineupOptimizer {
+    private static final FieldPosition[] POSITIONS = FieldPosition.values();
+    private static final int[][] PARENTS = new int[POSITIONS.length][];
+            /* the ordinals of every FieldPosition the FieldPosition is a part of */
+    private static final int SPLIT_SLOTS = 2;
+            /* the number of FieldPositions decided before the branches are
+               searched as tasks of their own */
+
+    static {
+        for (FieldPosition position : POSITIONS) {
+            int[] parents = new int[POSITIONS.length];
+            int count = 0;
+            for (FieldPosition parent : POSITIONS)
+                if (position.isA(parent))
+                    parents[count++] = parent.ordinal();
+            PARENTS[position.ordinal()] = Arrays.copyOf(parents, count);
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final StandardMatchRules rules;
+    private final MatchEventController eventController;
+
+    /** Constructs an optimizer searching on the common ForkJoinPool.
+     *
+     * @param rules             the rules the lineups have to follow
+     * @param eventController   the event deck of the match
+     */
+    public LineupOptimizer(StandardMatchRules rules, MatchEventController eventController) {
+        this(ForkJoinPool.commonPool(), rules, eventController);
+    }
+
+    /** Constructs an optimizer.
+     *
+     * @param pool              the pool the search runs on
+     * @param rules             the rules the lineups have to follow
+     * @param eventController   the event deck of the match
+     * @throws IllegalArgumentException if a parameter is null
+     */
+    public LineupOptimizer(ForkJoinPool pool, StandardMatchRules rules,
+            MatchEventController eventController) {
+        if (pool == null || rules == null || eventController == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        this.pool = pool;
+        this.rules = rules;
+        this.eventController = eventController;
+    }
+
+    /** Searches the best lineup of the eligible players of a team.
+     *
+     * @param team              the team
+     * @param home              true if the team plays at home
+     * @param opponentTactic    the tactic of the opponent
+     * @param timeBudget        the time the search may take
+     * @param unit              the unit of timeBudget
+     * @return the best lineup found, or null if the eligible players cannot
+     *          form a legal lineup (or none was found in time)
+     * @throws IllegalArgumentException if a parameter is null, timeBudget is
+     *          negative, the rules play more than OutcomeCalculator.MAX_EXACT_ROUNDS
+     *          rounds or the event deck cannot be solved exactly
+     */
+    public OptimizedLineup optimize(Team team, boolean home, MatchTactic opponentTactic,
+            long timeBudget, TimeUnit unit) {
+        if (team == null || opponentTactic == null || unit == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        if (timeBudget < 0)
+            throw new IllegalArgumentException("timeBudget should not be negative");
+        int rounds = 0;
+        while (rounds <= OutcomeCalculator.MAX_EXACT_ROUNDS && rules.hasNextRound(rounds))
+            rounds++;
+        if (rounds > OutcomeCalculator.MAX_EXACT_ROUNDS)
+            throw new IllegalArgumentException("the rules play too many rounds");
+        LineupEvaluator evaluator = new LineupEvaluator(home, opponentTactic, eventController, rounds);
+
+        List<Player> eligible = new ArrayList<>();
+        for (Player player : team.getPlayers())
+            if (player != null && player.isEligible())
+                eligible.add(player);
+        eligible.sort((a, b) -> Integer.compare(b.getStars(), a.getStars()));
+        Search search = new Search(evaluator, eligible, System.nanoTime() + unit.toNanos(timeBudget));
+
+        FormationPattern[] patterns = rules.getFormationPatterns();
+        List<SearchTask> roots = new ArrayList<>();
+        for (int i = 0; i < patterns.length; i++) {
+            Branch root = search.root(i, patterns[i]);
+            if (root != null)
+                roots.add(new SearchTask(root, 0));
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(roots);
+            }
+        });
+
+        if (search.bestTactic == null)
+            return null;
+        MatchTactic tactic = search.bestTactic;
+        TacticProfile profile = home ? TacticProfile.of(tactic, opponentTactic, eventController)
+                                     : TacticProfile.of(opponentTactic, tactic, eventController);
+        OutcomeDistribution distribution = OutcomeCalculator.exact(profile, rounds);
+        return new OptimizedLineup(tactic, patterns[search.bestPattern], search.bestScore,
+                distribution, !search.expired, search.evaluated.sum(), search.pruned.sum());
+    }
+
+    /* The state shared by all branches of one optimize call */
+    private final class Search {
+        final LineupEvaluator evaluator;
+        final List<Player> eligible;    // sorted by stars, descending
+        final int[] values;             // the distinct star values, descending
+        final int[] available;          // the number of eligible players per value
+        final int[] beaten;             // beatenGoalies per value
+        final int[] conceded;           // conceded per value
+        final long deadline;            // in System.nanoTime()
+        volatile boolean expired;
+        final LongAdder evaluated = new LongAdder();
+        final LongAdder pruned = new LongAdder();
+        // the incumbent, written under the lock of this object
+        volatile double bestScore = Double.NEGATIVE_INFINITY;
+        int bestPattern;
+        int[][] bestChoice;
+        MatchTactic bestTactic;
+
+        Search(LineupEvaluator evaluator, List<Player> eligible, long deadline) {
+            this.evaluator = evaluator;
+            this.eligible = eligible;
+            this.deadline = deadline;
+            int[] distinct = new int[eligible.size()];
+            int[] counts = new int[eligible.size()];
+            int n = 0;
+            for (Player player : eligible) {
+                if (n == 0 || distinct[n - 1] != player.getStars())
+                    distinct[n++] = player.getStars();
+                counts[n - 1]++;
+            }
+            values = Arrays.copyOf(distinct, n);
+            available = Arrays.copyOf(counts, n);
+            beaten = new int[n];
+            conceded = new int[n];
+            for (int i = 0; i < n; i++) {
+                beaten[i] = evaluator.beatenGoalies(values[i]);
+                conceded[i] = evaluator.conceded(values[i]);
+            }
+        }
+
+        /* The empty lineup of a pattern, or null if the pattern cannot be
+           filled or cannot face the penalties of the deck */
+        Branch root(int patternIndex, FormationPattern pattern) {
+            List<FieldPosition> positions = new ArrayList<>();
+            List<Integer> counts = new ArrayList<>();
+            int players = 0, goalies = 0;
+            for (Map.Entry<FieldPosition, Integer> entry : pattern.getPattern().entrySet())
+                if (entry.getValue() > 0) {
+                    positions.add(entry.getKey());
+                    counts.add(entry.getValue());
+                    players += entry.getValue();
+                    if (entry.getKey() == FieldPosition.GOALIE)
+                        goalies += entry.getValue();
+                }
+            if (players > eligible.size() || players < rules.getMinPlayers()
+                    || players > rules.getMaxPlayers() || goalies == 0 && evaluator.needsGoalie())
+                return null;
+            int[] slotCounts = new int[counts.size()];
+            for (int i = 0; i < slotCounts.length; i++)
+                slotCounts[i] = counts.get(i);
+            return new Branch(this, patternIndex, positions.toArray(new FieldPosition[0]),
+                    slotCounts, players, goalies);
+        }
+
+        boolean expired() {
+            if (expired)
+                return true;
+            if (System.nanoTime() - deadline < 0)
+                return false;
+            expired = true;
+            return true;
+        }
+
+        /* true if no lineup below the branch can beat the incumbent, given the
+           bound of the branch and the first slots already decided */
+        boolean cannotImprove(double bound, Branch branch, int slots) {
+            double best = bestScore;
+            if (bound != best)
+                return bound < best;
+            synchronized (this) {
+                return !precedes(branch, slots);
+            }
+        }
+
+        /* Offers a complete lineup; it becomes the incumbent if it scores
+           better, or equally but comes first */
+        void offer(double score, Branch branch) {
+            if (score < bestScore)
+                return;
+            synchronized (this) {
+                if (score < bestScore || score == bestScore && !precedes(branch, branch.slots()))
+                    return;
+                MatchTactic tactic = branch.tactic();
+                if (!rules.validate(tactic).isLegal())
+                    return;
+                bestPattern = branch.patternIndex;
+                bestChoice = new int[branch.chosen.length][];
+                for (int i = 0; i < bestChoice.length; i++)
+                    bestChoice[i] = branch.chosen[i].clone();
+                bestTactic = tactic;
+                bestScore = score;
+            }
+        }
+
+        /* true if the first slots of the branch may come before the
+           incumbent in the search order; taking more of the better players
+           comes first. Called under the lock. */
+        private boolean precedes(Branch branch, int slots) {
+            if (bestChoice == null || branch.patternIndex != bestPattern)
+                return bestChoice == null || branch.patternIndex < bestPattern;
+            for (int slot = 0; slot < slots; slot++)
+                for (int value = 0; value < values.length; value++)
+                    if (branch.chosen[slot][value] != bestChoice[slot][value])
+                        return branch.chosen[slot][value] > bestChoice[slot][value];
+            return true;
+        }
+    }
+
+    /* A partial lineup of one pattern: the players chosen per slot and star
+       value and the sums LineupEvaluator.score needs. The first slots are
+       filled in by the search; a branch is searched by one thread. */
+    private static final class Branch {
+        final Search search;
+        final int patternIndex;
+        final FieldPosition[] positions;    // the FieldPosition of every slot
+        final int[] counts;                 // the number of players of every slot
+        final int totalPlayers, totalGoalies;
+        final int[][] chosen;               // the players per slot and star value
+        final int[] remaining;              // the players left per star value
+        final int[] stars;                  // per FieldPosition ordinal, sub-positions included
+        long beaten, conceded;
+        int players, goalies;
+        List<Branch> children;              // collects the branches while splitting
+
+        Branch(Search search, int patternIndex, FieldPosition[] positions, int[] counts,
+                int totalPlayers, int totalGoalies) {
+            this.search = search;
+            this.patternIndex = patternIndex;
+            this.positions = positions;
+            this.counts = counts;
+            this.totalPlayers = totalPlayers;
+            this.totalGoalies = totalGoalies;
+            this.chosen = new int[positions.length][search.values.length];
+            this.remaining = search.available.clone();
+            this.stars = new int[POSITIONS.length];
+        }
+
+        private Branch(Branch branch) {
+            search = branch.search;
+            patternIndex = branch.patternIndex;
+            positions = branch.positions;
+            counts = branch.counts;
+            totalPlayers = branch.totalPlayers;
+            totalGoalies = branch.totalGoalies;
+            chosen = new int[branch.chosen.length][];
+            for (int i = 0; i < chosen.length; i++)
+                chosen[i] = branch.chosen[i].clone();
+            remaining = branch.remaining.clone();
+            stars = branch.stars.clone();
+            beaten = branch.beaten;
+            conceded = branch.conceded;
+            players = branch.players;
+            goalies = branch.goalies;
+        }
+
+        int slots() {
+            return positions.length;
+        }
+
+        /* Returns a copy of the branch for every choice of the given slot
+           which survives the bound */
+        List<Branch> split(int slot) {
+            children = new ArrayList<>();
+            if (!prune(slot))
+                fill(slot, 0, counts[slot]);
+            List<Branch> split = children;
+            children = null;
+            return split;
+        }
+
+        /* Searches every lineup with the first slots as chosen */
+        void search(int slot) {
+            if (search.expired())
+                return;
+            if (slot == positions.length) {
+                search.evaluated.increment();
+                search.offer(search.evaluator.score(stars, beaten, players, conceded, goalies), this);
+                return;
+            }
+            if (!prune(slot))
+                fill(slot, 0, counts[slot]);
+        }
+
+        /* Chooses the players of a slot from the given star value on, the
+           better players first */
+        private void fill(int slot, int value, int left) {
+            if (left == 0) {
+                if (children != null)
+                    children.add(new Branch(this));
+                else
+                    search(slot + 1);
+                return;
+            }
+            int available = 0;
+            for (int i = value; i < remaining.length; i++)
+                available += remaining[i];
+            if (available < left)
+                return;
+            for (int take = Math.min(left, remaining[value]); take >= 0; take--) {
+                add(slot, value, take);
+                fill(slot, value + 1, left - take);
+                add(slot, value, -take);
+            }
+        }
+
+        private void add(int slot, int value, int number) {
+            if (number == 0)
+                return;
+            int sum = number * search.values[value];
+            chosen[slot][value] += number;
+            remaining[value] -= number;
+            for (int parent : PARENTS[positions[slot].ordinal()])
+                stars[parent] += sum;
+            beaten += (long) number * search.beaten[value];
+            players += number;
+            if (positions[slot] == FieldPosition.GOALIE) {
+                conceded += (long) number * search.conceded[value];
+                goalies += number;
+            }
+        }
+
+        /* Bounds the branch from the given slot on: every open slot gets the
+           best players left, and so do the open shooters and goalies, each
+           on its own. More stars never score worse, so no lineup of the
+           branch can score more. */
+        private boolean prune(int slot) {
+            if (slot == 0)
+                return false;
+            int[] bound = stars.clone();
+            int openGoalies = 0;
+            for (int i = slot; i < positions.length; i++) {
+                int best = best(counts[i], search.values);
+                for (int parent : PARENTS[positions[i].ordinal()])
+                    bound[parent] += best;
+                if (positions[i] == FieldPosition.GOALIE)
+                    openGoalies += counts[i];
+            }
+            long boundBeaten = beaten + best(totalPlayers - players, search.beaten);
+            long boundConceded = conceded - best(openGoalies, negate(search.conceded));
+            double score = search.evaluator.score(bound, boundBeaten, totalPlayers,
+                    boundConceded, totalGoalies);
+            if (!search.cannotImprove(score, this, slot))
+                return false;
+            search.pruned.increment();
+            return true;
+        }
+
+        /* The sum of the given values of the best players left, where the
+           values do not increase with the star value index */
+        private int best(int number, int[] values) {
+            int sum = 0;
+            for (int i = 0; i < remaining.length && number > 0; i++) {
+                int take = Math.min(number, remaining[i]);
+                sum += take * values[i];
+                number -= take;
+            }
+            return sum;
+        }
+
+        private static int[] negate(int[] values) {
+            int[] negated = new int[values.length];
+            for (int i = 0; i < values.length; i++)
+                negated[i] = -values[i];
+            return negated;
+        }
+
+        /* Builds the MatchTactic of a complete branch from the eligible
+           players, in the order of the slots */
+        MatchTactic tactic() {
+            Map<Player, FieldPosition> formation = new LinkedHashMap<>();
+            int[] used = new int[search.values.length];
+            int[] first = new int[search.values.length];   // the index of the first player per value
+            for (int i = 1; i < first.length; i++)
+                first[i] = first[i - 1] + search.available[i - 1];
+            for (int slot = 0; slot < positions.length; slot++)
+                for (int value = 0; value < used.length; value++)
+                    for (int i = 0; i < chosen[slot][value]; i++)
+                        formation.put(search.eligible.get(first[value] + used[value]++), positions[slot]);
+            return new MatchTactic(formation);
+        }
+    }
+
+    /* Searches a branch; the first SPLIT_SLOTS slots are split into tasks */
+    private static final class SearchTask extends RecursiveAction {
+        private final Branch branch;
+        private final int slot;
+
+        SearchTask(Branch branch, int slot) {
+            this.branch = branch;
+            this.slot = slot;
+        }
+
+        @Override
+        protected void compute() {
+            if (slot >= SPLIT_SLOTS || slot == branch.slots()) {
+                branch.search(slot);
+                return;
+            }
+            if (branch.search.expired())
+                return;
+            List<SearchTask> tasks = new ArrayList<>();
+            for (Branch child : branch.split(slot))
+                tasks.add(new SearchTask(child, slot + 1));
+            invokeAll(tasks);
+        }
+    }
+}
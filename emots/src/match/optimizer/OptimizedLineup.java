@@ -0,0 +1,83 @@
+package match.optimizer;
+
+import match.FormationPattern;
+import match.MatchTactic;
+import match.analysis.OutcomeDistribution;
+
+/** The best lineup a LineupOptimizer found. Objects of this class are immutable.
+ *
+ * @author nibah
+ */
+public class OptimizedLineup {
+    private final MatchTactic tactic;
+    private final FormationPattern pattern;
+    private final double expectedPoints;
+    private final OutcomeDistribution distribution;
+    private final boolean complete;     // false if the time budget ran out
+    private final long evaluated;       // the number of complete lineups scored
+    private final long pruned;          // the number of branches cut off by their bound
+
+    OptimizedLineup(MatchTactic tactic, FormationPattern pattern, double expectedPoints,
+            OutcomeDistribution distribution, boolean complete, long evaluated, long pruned) {
+        this.tactic = tactic;
+        this.pattern = pattern;
+        this.expectedPoints = expectedPoints;
+        this.distribution = distribution;
+        this.complete = complete;
+        this.evaluated = evaluated;
+        this.pruned = pruned;
+    }
+
+    /** Returns the tactic of the lineup. Every call returns a new copy, so the
+     * tactic can be played and changed.
+     *
+     * @return the tactic
+     */
+    public MatchTactic getTactic() {
+        return new MatchTactic(tactic.getFormation());
+    }
+
+    /**
+     *
+     * @return the formation pattern of the lineup
+     */
+    public FormationPattern getPattern() {return pattern;}
+
+    /**
+     *
+     * @return the expected points of the lineup, 3 for a win and 1 for a draw
+     */
+    public double getExpectedPoints() {return expectedPoints;}
+
+    /**
+     *
+     * @return the outcome probabilities of the match with the lineup
+     */
+    public OutcomeDistribution getDistribution() {return distribution;}
+
+    /**
+     *
+     * @return true if the whole search space was searched, false if the time
+     *          budget ran out and a better lineup may exist
+     */
+    public boolean isComplete() {return complete;}
+
+    /**
+     *
+     * @return the number of complete lineups which were scored
+     */
+    public long getEvaluatedLineups() {return evaluated;}
+
+    /**
+     *
+     * @return the number of branches which were cut off because their bound
+     *          could not beat the best lineup found so far
+     */
+    public long getPrunedBranches() {return pruned;}
+
+    @Override
+    public String toString() {
+        return pattern + ": " + expectedPoints + " expected points"
+                + (complete ? "" : " (incomplete)") + "\n" + tactic;
+    }
+}
@@ -0,0 +1,126 @@
+package match.report;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/** Appendable writing UTF-8 encoded text into a WritableByteChannel. Characters
+ * are collected in a CharBuffer and encoded into a direct ByteBuffer; both
+ * buffers are allocated once and reused for everything written. Call flush()
+ * to write the buffered characters, or close() to flush and close the channel.
+ * This class is not thread-safe.
+ *
+ * @author nibah
+ */
+public class ChannelWriter implements Appendable, Flushable, Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    
+    private final WritableByteChannel channel;
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+    private final CharsetEncoder encoder;
+    
+    /** Constructs a ChannelWriter with a buffer of 8192 characters.
+     * 
+     * @param channel   the channel the text is written to
+     */
+    public ChannelWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+    
+    /** Constructs a ChannelWriter with the given buffer size.
+     * 
+     * @param channel       the channel the text is written to
+     * @param bufferSize    the number of characters buffered before encoding
+     * @throws IllegalArgumentException if channel is null or bufferSize is smaller than 16
+     */
+    public ChannelWriter(WritableByteChannel channel, int bufferSize) {
+        if (channel == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        if (bufferSize < 16)
+            throw new IllegalArgumentException("bufferSize should be at least 16");
+        this.channel = channel;
+        this.encoder = StandardCharsets.UTF_8.newEncoder();
+        this.chars = CharBuffer.allocate(bufferSize);
+        this.bytes = ByteBuffer.allocateDirect((int) Math.ceil(bufferSize * encoder.maxBytesPerChar()));
+    }
+    
+    @Override
+    public ChannelWriter append(CharSequence csq) throws IOException {
+        return append(csq == null ? "null" : csq, 0, csq == null ? 4 : csq.length());
+    }
+    
+    @Override
+    public ChannelWriter append(CharSequence csq, int start, int end) throws IOException {
+        if (csq == null)
+            return append("null", start, end);
+        for (int i = start; i < end; i++) {
+            if (!chars.hasRemaining())
+                drain(false);
+            chars.put(csq.charAt(i));
+        }
+        return this;
+    }
+    
+    @Override
+    public ChannelWriter append(char c) throws IOException {
+        if (!chars.hasRemaining())
+            drain(false);
+        chars.put(c);
+        return this;
+    }
+    
+    /** Encodes the buffered characters and writes the bytes into the channel.
+     * If endOfInput is false, a trailing high surrogate stays in the buffer
+     * until its low surrogate arrives. */
+    private void drain(boolean endOfInput) throws IOException {
+        chars.flip();
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isError())
+                result.throwException();
+            writeBytes();
+        } while (result.isOverflow());
+        chars.compact();
+    }
+    
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+        bytes.clear();
+    }
+    
+    /** Writes all of the buffered characters into the channel.
+     * 
+     * @throws IOException if the channel throws an IOException
+     */
+    @Override
+    public void flush() throws IOException {
+        drain(false);
+    }
+    
+    /** Flushes the buffered characters and closes the channel.
+     * 
+     * @throws IOException if the channel throws an IOException
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain(true);
+            while (encoder.flush(bytes).isOverflow())
+                writeBytes();
+            writeBytes();
+            encoder.reset();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package match.report;
+
+import java.io.IOException;
+import java.util.Map.Entry;
+import match.FieldPosition;
+import match.Match;
+import match.MatchMessages;
+import match.MatchStatistics;
+import match.MatchTactic;
+import match.Player;
+import match.Result;
+import match.Team;
+
+/** Writes reports about matches, results and tactics into an Appendable (for
+ * example a ChannelWriter writing into a file) as plain text or JSON. Every
+ * part of a report is appended directly, numbers and messages included, so no
+ * intermediate Strings are built. A whole season can be written into one
+ * output with writeMatches(Iterable). This class is not thread-safe.
+ *
+ * @author nibah
+ */
+public class MatchReportWriter {
+    private final Appendable out;           // where the reports are written to
+    private final ReportFormat format;      // the output format
+    private final JsonEscaper escaper;      // escapes JSON strings on the fly
+    
+    /** Constructs a writer.
+     * 
+     * @param out       where the reports are written to
+     * @param format    the output format
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public MatchReportWriter(Appendable out, ReportFormat format) {
+        if (out == null || format == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        this.out = out;
+        this.format = format;
+        this.escaper = new JsonEscaper(out);
+    }
+    
+    /** Returns the format of the reports
+     * 
+     * @return the format
+     */
+    public ReportFormat getFormat() {return format;}
+    
+    /** Writes a number of matches. In the TEXT format the reports are separated
+     * by an empty line, in the JSON format they are written as a JSON array.
+     * The matches are only fetched from the Iterable while they are written.
+     * 
+     * @param matches   the matches
+     * @throws IOException if the Appendable throws an IOException
+     */
+    public void writeMatches(Iterable<Match> matches) throws IOException {
+        boolean first = true;
+        if (format == ReportFormat.JSON)
+            out.append('[');
+        for (Match match : matches) {
+            if (!first)
+                out.append(format == ReportFormat.JSON ? ",\n" : "\n");
+            writeMatch(match);
+            first = false;
+        }
+        if (format == ReportFormat.JSON)
+            out.append("]\n");
+    }
+    
+    /** Writes the full report of a match: teams, result, both tactics and
+     * all of the match messages.
+     * 
+     * @param match     the match
+     * @throws IOException if the Appendable throws an IOException
+     */
+    public void writeMatch(Match match) throws IOException {
+        MatchMessages messages = match.getResult().getStatistics().getMatchMessages();
+        if (format == ReportFormat.JSON) {
+            out.append("{\"id\":");
+            MatchMessages.appendInt(match.getId(), out);
+            out.append(",\"home\":");
+            writeTeam(match.getHomeTeam());
+            out.append(",\"guest\":");
+            writeTeam(match.getGuestTeam());
+            out.append(",\"result\":");
+            writeResult(match.getResult());
+            out.append(",\"homeTactic\":");
+            writeTactic(match.getHomeTactic());
+            out.append(",\"guestTactic\":");
+            writeTactic(match.getGuestTactic());
+            out.append(",\"messages\":[");
+            for (int i = 0; i < messages.numberOfMessages(); i++) {
+                if (i > 0)
+                    out.append(',');
+                out.append("{\"type\":\"").append(messages.getType(i).name())
+                   .append("\",\"round\":");
+                MatchMessages.appendInt(messages.getRound(i), out);
+                out.append(",\"text\":\"");
+                messages.appendMessage(i, escaper);
+                out.append("\"}");
+            }
+            out.append("]}");
+            return;
+        }
+        out.append("MATCH ");
+        MatchMessages.appendInt(match.getId(), out);
+        out.append(": ").append(match.getHomeTeam().getName())
+           .append(" - ").append(match.getGuestTeam().getName()).append('\n');
+        writeResult(match.getResult());
+        out.append("HOME ");
+        writeTactic(match.getHomeTactic());
+        out.append("GUEST ");
+        writeTactic(match.getGuestTactic());
+        out.append("MATCH MESSAGES (");
+        MatchMessages.appendInt(messages.numberOfMessages(), out);
+        out.append(")\n");
+        for (int i = 0; i < messages.numberOfMessages(); i++) {
+            out.append("Round ");
+            MatchMessages.appendInt(messages.getRound(i), out);
+            out.append(": ");
+            messages.appendMessage(i, out);
+            out.append('\n');
+        }
+    }
+    
+    /** Writes the result of a match: the winner and the score.
+     * 
+     * @param result    the result
+     * @throws IOException if the Appendable throws an IOException
+     */
+    public void writeResult(Result result) throws IOException {
+        MatchStatistics stats = result.getStatistics();
+        if (format == ReportFormat.JSON) {
+            out.append("{\"ended\":").append(result.isEnded() ? "true" : "false")
+               .append(",\"winner\":\"").append(result.getWinner().name())
+               .append("\",\"homeGoals\":");
+            MatchMessages.appendInt(stats.getHomeGoals(), out);
+            out.append(",\"guestGoals\":");
+            MatchMessages.appendInt(stats.getGuestGoals(), out);
+            out.append('}');
+            return;
+        }
+        out.append("Match ended: ").append(result.isEnded() ? "yes" : "no").append('\n')
+           .append("Winner: ").append(result.getWinner().name()).append('\n')
+           .append("Score: ");
+        MatchMessages.appendInt(stats.getHomeGoals(), out);
+        out.append(" - ");
+        MatchMessages.appendInt(stats.getGuestGoals(), out);
+        out.append('\n');
+    }
+    
+    /** Writes a tactic: every player on the field with her FieldPosition and
+     * the number of substitutions and changes used.
+     * 
+     * @param tactic    the tactic
+     * @throws IOException if the Appendable throws an IOException
+     */
+    public void writeTactic(MatchTactic tactic) throws IOException {
+        boolean json = format == ReportFormat.JSON;
+        out.append(json ? "{\"formation\":[" : "TACTICS\n");
+        boolean first = true;
+        for (Entry<Player, FieldPosition> entry : tactic.getFormation().entrySet()) {
+            Player player = entry.getKey();
+            if (json) {
+                out.append(first ? "{\"id\":" : ",{\"id\":");
+                MatchMessages.appendInt(player.getId(), out);
+                out.append(",\"name\":\"");
+                escaper.append(player.getName());
+                out.append("\",\"stars\":");
+                MatchMessages.appendInt(player.getStars(), out);
+                out.append(",\"position\":\"").append(entry.getValue().name()).append("\"}");
+            } else {
+                out.append(player.getName()).append('(');
+                for (int i = 0; i < player.getStars(); i++)
+                    out.append('*');
+                out.append(") - ").append(entry.getValue().name()).append('\n');
+            }
+            first = false;
+        }
+        out.append(json ? "],\"substitutions\":" : "Substitutions used: ");
+        MatchMessages.appendInt(tactic.getNumberOfSubs(), out);
+        out.append(json ? ",\"changes\":" : "\nChanges used: ");
+        MatchMessages.appendInt(tactic.getNumberOfChanges(), out);
+        out.append(json ? "}" : "\n");
+    }
+    
+    /** Writes the id and the name of a team as a JSON object. */
+    private void writeTeam(Team team) throws IOException {
+        out.append("{\"id\":");
+        MatchMessages.appendInt(team.getId(), out);
+        out.append(",\"name\":\"");
+        escaper.append(team.getName());
+        out.append("\"}");
+    }
+    
+    /** Appendable escaping every character for use inside a JSON string and
+        passing it on to the underlying Appendable. */
+    private static class JsonEscaper implements Appendable {
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+        private final Appendable out;
+        
+        JsonEscaper(Appendable out) {
+            this.out = out;
+        }
+        
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            if (csq == null)
+                csq = "null";
+            return append(csq, 0, csq.length());
+        }
+        
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            if (csq == null)
+                csq = "null";
+            for (int i = start; i < end; i++)
+                append(csq.charAt(i));
+            return this;
+        }
+        
+        @Override
+        public Appendable append(char c) throws IOException {
+            switch (c) {
+                case '"'  : out.append("\\\""); break;
+                case '\\' : out.append("\\\\"); break;
+                case '\n' : out.append("\\n"); break;
+                case '\r' : out.append("\\r"); break;
+                case '\t' : out.append("\\t"); break;
+                default   :
+                    if (c < 0x20) {
+                        out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+                    } else {
+                        out.append(c);
+                    }
+            }
+            return this;
+        }
+    }
+}
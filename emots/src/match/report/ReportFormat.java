@@ -0,0 +1,10 @@
+package match.report;
+
+/** Output format of a MatchReportWriter
+ *
+ * @author nibah
+ */
+public enum ReportFormat {
+    TEXT,   // human readable plain text
+    JSON    // one JSON value per report
+}
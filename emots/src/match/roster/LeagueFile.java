@@ -0,0 +1,414 @@
+package match.roster;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import match.Player;
+import match.PlayerPosition;
+import match.PlayerStore;
+import match.Team;
+
+/** A league stored in a compact binary file. The file is written with
+ * write(Path, Collection) and opened with open(Path, PlayerStore), which only
+ * maps the file and checks its header. The teams are read lazily: the players
+ * of a team are copied into the PlayerStore the first time the team is
+ * fetched.
+ *
+ * All numbers are little endian. The file starts with a header of
+ * HEADER_SIZE bytes:
+ *
+ *   0  int   magic number MAGIC ("EMOL")
+ *   4  short format version VERSION
+ *   6  short header size
+ *   8  int   number of players
+ *  12  int   number of teams
+ *  16  long  offset of the player records
+ *  24  long  offset of the player index
+ *  32  long  offset of the team records
+ *  40  long  offset of the team index
+ *  48  long  offset of the team members
+ *  56  long  offset of the string heap, which runs to the end of the file
+ *
+ * A player record (PLAYER_RECORD_SIZE bytes) holds the id, the stars, the
+ * offset of the name within the string heap (int), the length of the UTF-8
+ * encoded name (unsigned short), the PlayerPosition ordinal (byte) and the
+ * flags (byte, ELIGIBLE). A team record (TEAM_RECORD_SIZE bytes) holds the
+ * id, the offset and length of the name, the index of its first entry in the
+ * team members and the number of its members. The team members are the
+ * indices of the player records of each team. The player and team indices are
+ * pairs of (id, record index) sorted by id.
+ *
+ * The ids stored in the file are the ids the players and teams had when they
+ * were written. Loaded players and teams get new ids from the PlayerStore and
+ * the Team constructor; the ids in the file are only used for lookups.
+ *
+ * @author nibah
+ */
+public final class LeagueFile implements Closeable {
+    /** "EMOL" */
+    public static final int MAGIC = 0x4C4F4D45;
+    /** The version of the format written by write(..) */
+    public static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int PLAYER_RECORD_SIZE = 16;
+    static final int TEAM_RECORD_SIZE = 24;
+    static final int INDEX_ENTRY_SIZE = 8;
+    static final int ELIGIBLE = 1;
+    private static final int MAX_NAME_LENGTH = 0xFFFF;
+    private static final PlayerPosition[] POSITIONS = PlayerPosition.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer file;
+    private final PlayerStore store;
+    private final int playerCount, teamCount;
+    private final int players, playerIndex, teams, teamIndex, members, strings;
+            /* offsets of the sections */
+    private int[] storeIds;             // the id in the store of each loaded player record, or -1
+    private final Map<Integer, Team> loadedTeams = new HashMap<>();
+
+    private LeagueFile(FileChannel channel, ByteBuffer file, PlayerStore store) throws IOException {
+        this.channel = channel;
+        this.file = file;
+        this.store = store;
+        if (file.limit() < HEADER_SIZE || file.getInt(0) != MAGIC)
+            throw new IOException("Not a league file.");
+        if (file.getShort(4) != VERSION)
+            throw new IOException("Unsupported league file version " + file.getShort(4) + ".");
+        if (file.getShort(6) != HEADER_SIZE)
+            throw new IOException("Corrupt league file header.");
+        playerCount = file.getInt(8);
+        teamCount = file.getInt(12);
+        players = section(16, playerCount, PLAYER_RECORD_SIZE);
+        playerIndex = section(24, playerCount, INDEX_ENTRY_SIZE);
+        teams = section(32, teamCount, TEAM_RECORD_SIZE);
+        teamIndex = section(40, teamCount, INDEX_ENTRY_SIZE);
+        strings = section(56, 0, 0);
+        members = section(48, 0, 0);
+        if (members > strings)
+            throw new IOException("Corrupt league file header.");
+    }
+
+    /* Returns the offset stored in the header at the given position, after
+       checking that the section fits into the file */
+    private int section(int headerPosition, long count, int recordSize) throws IOException {
+        long offset = file.getLong(headerPosition);
+        if (count < 0 || offset < HEADER_SIZE || offset + count * recordSize > file.limit())
+            throw new IOException("Corrupt league file header.");
+        return (int) offset;
+    }
+
+    /** Writes the given teams and all of their players into a league file.
+     * A player who is a member of more than one team is written once.
+     *
+     * @param path      the file, which is created or replaced
+     * @param teams     the teams of the league
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if a parameter is null, or if a name is
+     *          longer than 65535 bytes in UTF-8
+     */
+    public static void write(Path path, Collection<? extends Team> teams) throws IOException {
+        if (path == null || teams == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        Map<Integer, Integer> playerRecords = new LinkedHashMap<>();    // player id -> record index
+        Player[][] teamPlayers = new Player[teams.size()][];
+        int memberCount = 0, t = 0;
+        for (Team team : teams) {
+            teamPlayers[t] = team.getPlayers();
+            memberCount += teamPlayers[t++].length;
+        }
+        StringHeap heap = new StringHeap();
+        ByteBuffer playerTable = table(0, PLAYER_RECORD_SIZE);
+        for (Player[] squad : teamPlayers)
+            for (Player player : squad) {
+                if (playerRecords.containsKey(player.getId()))
+                    continue;
+                playerRecords.put(player.getId(), playerRecords.size());
+                playerTable = ensure(playerTable, PLAYER_RECORD_SIZE);
+                long name = heap.add(player.getName());
+                playerTable.putInt(player.getId()).putInt(player.getStars())
+                        .putInt((int) name).putShort((short) (name >>> 32))
+                        .put((byte) player.getPosition().ordinal())
+                        .put((byte) (player.isEligible() ? ELIGIBLE : 0));
+            }
+        int playerCount = playerRecords.size();
+        ByteBuffer teamTable = table(teams.size(), TEAM_RECORD_SIZE);
+        ByteBuffer memberTable = table(memberCount, 4);
+        t = 0;
+        int member = 0;
+        for (Team team : teams) {
+            long name = heap.add(team.getName());
+            teamTable.putInt(team.getId()).putInt((int) name).putInt((int) (name >>> 32))
+                    .putInt(member).putInt(teamPlayers[t].length).putInt(0);
+            for (Player player : teamPlayers[t++]) {
+                memberTable.putInt(playerRecords.get(player.getId()));
+                member++;
+            }
+        }
+        ByteBuffer playerIds = index(playerTable, playerCount, PLAYER_RECORD_SIZE);
+        ByteBuffer teamIds = index(teamTable, teams.size(), TEAM_RECORD_SIZE);
+
+        ByteBuffer header = table(0, HEADER_SIZE);
+        long offset = HEADER_SIZE;
+        header.putInt(MAGIC).putShort((short) VERSION).putShort((short) HEADER_SIZE)
+                .putInt(playerCount).putInt(teams.size());
+        for (ByteBuffer section : new ByteBuffer[] {playerTable, playerIds, teamTable, teamIds, memberTable}) {
+            header.putLong(offset);
+            offset += section.position();
+        }
+        header.putLong(offset);
+        if (offset + heap.size > Integer.MAX_VALUE)
+            throw new IOException("League files are limited to 2 GiB.");
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (ByteBuffer section : new ByteBuffer[] {header, playerTable, playerIds, teamTable, teamIds, memberTable})
+                write(out, (ByteBuffer) section.flip());
+            write(out, ByteBuffer.wrap(heap.bytes, 0, heap.size));
+        }
+    }
+
+    private static void write(FileChannel out, ByteBuffer section) throws IOException {
+        while (section.hasRemaining())
+            out.write(section);
+    }
+
+    private static ByteBuffer table(int count, int recordSize) {
+        return ByteBuffer.allocate(Math.max(count * recordSize, 64)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer ensure(ByteBuffer table, int bytes) {
+        if (table.remaining() >= bytes)
+            return table;
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(table.capacity() * 2, table.position() + bytes))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        table.flip();
+        return grown.put(table);
+    }
+
+    /* Builds the (id, record index) pairs of a table, sorted by id */
+    private static ByteBuffer index(ByteBuffer table, int count, int recordSize) {
+        long[] entries = new long[count];
+        for (int i = 0; i < count; i++)
+            entries[i] = (long) table.getInt(i * recordSize) << 32 | i;
+        Arrays.sort(entries);
+        ByteBuffer index = table(count, INDEX_ENTRY_SIZE);
+        for (long entry : entries)
+            index.putInt((int) (entry >> 32)).putInt((int) entry);
+        return index;
+    }
+
+    /** The UTF-8 encoded names, appended one after the other */
+    private static final class StringHeap {
+        byte[] bytes = new byte[1024];
+        int size;
+
+        /* Appends the name and returns its offset in the low and its length
+           in the high 32 bits */
+        long add(String name) {
+            byte[] encoded = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+            if (encoded.length > MAX_NAME_LENGTH)
+                throw new IllegalArgumentException("The name " + name + " is too long.");
+            if (size + encoded.length > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + encoded.length));
+            System.arraycopy(encoded, 0, bytes, size, encoded.length);
+            long entry = (long) encoded.length << 32 | size;
+            size += encoded.length;
+            return entry;
+        }
+    }
+
+    /** Opens a league file. Only the header is read; the teams are read when
+     * they are fetched.
+     *
+     * @param path      the league file
+     * @param store     the store the players of the fetched teams are copied into
+     * @return the opened league file
+     * @throws IOException if the file cannot be read or is no valid league file
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public static LeagueFile open(Path path, PlayerStore store) throws IOException {
+        if (path == null || store == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("League files are limited to 2 GiB.");
+            ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            return new LeagueFile(channel, file, store);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     *
+     * @return the store the players of the fetched teams are copied into
+     */
+    public PlayerStore getStore() {
+        return store;
+    }
+
+    /**
+     *
+     * @return the number of teams in the file
+     */
+    public int numberOfTeams() {
+        return teamCount;
+    }
+
+    /**
+     *
+     * @return the number of players in the file
+     */
+    public int numberOfPlayers() {
+        return playerCount;
+    }
+
+    /**
+     *
+     * @param index     the index of a team in the file, in the order it was written
+     * @return the id the team had when it was written
+     */
+    public int getTeamId(int index) {
+        return file.getInt(teams + checkIndex(index, teamCount) * TEAM_RECORD_SIZE);
+    }
+
+    /**
+     *
+     * @param index     the index of a team in the file, in the order it was written
+     * @return the name of the team
+     */
+    public String getTeamName(int index) {
+        int record = teams + checkIndex(index, teamCount) * TEAM_RECORD_SIZE;
+        return string(file.getInt(record + 4), file.getInt(record + 8));
+    }
+
+    /** Decides if the file contains a team with the given id.
+     *
+     * @param teamId    the id the team had when it was written
+     * @return true if there is such a team, false otherwise
+     */
+    public boolean containsTeam(int teamId) {
+        return find(teamIndex, teamCount, teamId) >= 0;
+    }
+
+    /** Returns the team with the given id. The team and its players are read
+     * on the first call; later calls return the same Team object.
+     *
+     * @param teamId    the id the team had when it was written
+     * @return the team, backed by the PlayerStore
+     * @throws NoSuchElementException if there is no such team in the file
+     */
+    public synchronized Team getTeam(int teamId) {
+        Team team = loadedTeams.get(teamId);
+        if (team != null)
+            return team;
+        int index = find(teamIndex, teamCount, teamId);
+        if (index < 0)
+            throw new NoSuchElementException("There is no team with the id " + teamId + " in this file.");
+        int record = teams + index * TEAM_RECORD_SIZE;
+        int firstMember = file.getInt(record + 12);
+        int[] ids = new int[file.getInt(record + 16)];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = load(file.getInt(members + (firstMember + i) * 4));
+        team = new Team(string(file.getInt(record + 4), file.getInt(record + 8)), store, ids);
+        loadedTeams.put(teamId, team);
+        return team;
+    }
+
+    /** Returns the players of the team with the given id, see getTeam(int).
+     *
+     * @param teamId    the id the team had when it was written
+     * @return views of the players of the team
+     * @throws NoSuchElementException if there is no such team in the file
+     */
+    public Player[] getPlayers(int teamId) {
+        return getTeam(teamId).getPlayers();
+    }
+
+    /** Returns the player with the given id, reading it on the first call.
+     *
+     * @param playerId  the id the player had when it was written
+     * @return a view of the player in the PlayerStore
+     * @throws NoSuchElementException if there is no such player in the file
+     */
+    public synchronized Player getPlayer(int playerId) {
+        int index = find(playerIndex, playerCount, playerId);
+        if (index < 0)
+            throw new NoSuchElementException("There is no player with the id " + playerId + " in this file.");
+        return store.getPlayer(load(index));
+    }
+
+    /* Copies the player record into the store, unless it already is, and
+       returns its id in the store */
+    private int load(int index) {
+        if (storeIds == null) {
+            storeIds = new int[playerCount];
+            Arrays.fill(storeIds, -1);
+        }
+        if (index < 0 || index >= playerCount)
+            throw new IllegalStateException("Corrupt league file: no player record " + index + ".");
+        if (storeIds[index] >= 0)
+            return storeIds[index];
+        int record = players + index * PLAYER_RECORD_SIZE;
+        int position = file.get(record + 14);
+        if (position < 0 || position >= POSITIONS.length)
+            throw new IllegalStateException("Corrupt league file: unknown player position " + position + ".");
+        int id = store.reserve(1);
+        store.set(id, string(file.getInt(record + 8), file.getShort(record + 12) & 0xFFFF),
+                POSITIONS[position], file.getInt(record + 4));
+        if ((file.get(record + 15) & ELIGIBLE) == 0)
+            store.setEligible(id, false);
+        storeIds[index] = id;
+        return id;
+    }
+
+    /* Binary search in an index section, returns the record index or -1 */
+    private int find(int index, int count, int id) {
+        int low = 0, high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = file.getInt(index + mid * INDEX_ENTRY_SIZE);
+            if (midId < id)
+                low = mid + 1;
+            else if (midId > id)
+                high = mid - 1;
+            else
+                return file.getInt(index + mid * INDEX_ENTRY_SIZE + 4);
+        }
+        return -1;
+    }
+
+    private String string(int offset, int length) {
+        if (offset < 0 || (long) strings + offset + length > file.limit())
+            throw new IllegalStateException("Corrupt league file: name outside of the string heap.");
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = file.get(strings + offset + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checkIndex(int index, int count) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        return index;
+    }
+
+    /** Closes the file. Teams and players already fetched stay valid. */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,52 @@
+package match.roster;
+
+/** Describes a line of a roster file which could not be parsed.
+ *
+ * @author nibah
+ */
+public final class MalformedLine {
+    private final long offset;      // byte offset of the first character of the line
+    private final long lineNumber;  // starting with 1
+    private final String reason;
+
+    /**
+     *
+     * @param offset        the byte offset of the line within the file
+     * @param lineNumber    the number of the line, starting with 1
+     * @param reason        a description of what is wrong with the line
+     */
+    public MalformedLine(long offset, long lineNumber, String reason) {
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+        this.reason = reason;
+    }
+
+    /**
+     *
+     * @return the byte offset of the first character of the line within the file
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     *
+     * @return the number of the line, starting with 1
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     *
+     * @return a description of what is wrong with the line
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "line " + lineNumber + " (offset " + offset + "): " + reason;
+    }
+}
@@ -0,0 +1,84 @@
+package match.roster;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import match.Player;
+import match.PlayerStore;
+
+/** The outcome of loading a roster file: the ids of the players which were
+ * added to the PlayerStore, in the order of the file, and the lines which
+ * could not be parsed.
+ *
+ * @author nibah
+ */
+public final class Roster {
+    private final PlayerStore store;
+    private final int[] ids;
+    private final List<MalformedLine> malformedLines;
+
+    Roster(PlayerStore store, int[] ids, List<MalformedLine> malformedLines) {
+        this.store = store;
+        this.ids = ids;
+        this.malformedLines = Collections.unmodifiableList(malformedLines);
+    }
+
+    /**
+     *
+     * @return the store the players were added to
+     */
+    public PlayerStore getStore() {
+        return store;
+    }
+
+    /**
+     *
+     * @return the number of players loaded
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     *
+     * @param index     the index of a player within the loaded players
+     * @return the id of the player
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     *
+     * @return a copy of the ids of the loaded players in the order of the file
+     */
+    public int[] getIds() {
+        return ids.clone();
+    }
+
+    /**
+     *
+     * @param from      the index of the first player, inclusive
+     * @param to        the index of the last player, exclusive
+     * @return the ids of the players in the given range
+     */
+    public int[] getIds(int from, int to) {
+        return Arrays.copyOfRange(ids, from, to);
+    }
+
+    /**
+     *
+     * @return views of all of the loaded players in the order of the file
+     */
+    public Player[] getPlayers() {
+        return store.getPlayers(ids);
+    }
+
+    /**
+     *
+     * @return the lines which could not be parsed, in the order of the file
+     */
+    public List<MalformedLine> getMalformedLines() {
+        return malformedLines;
+    }
+}
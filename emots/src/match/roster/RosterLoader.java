@@ -0,0 +1,335 @@
+package match.roster;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import match.PlayerPosition;
+import match.PlayerStore;
+
+/** Loads roster files into a PlayerStore. A roster file holds one player per
+ * line: the name, the player position and the number of stars, separated by
+ * spaces or tabs, e.g. "Ava goalie 4". Player positions are case-insensitive,
+ * lines may end with "\n" or "\r\n" and blank lines are skipped.
+ *
+ * The file is memory-mapped and split into line-aligned chunks, which are
+ * parsed in parallel straight from the mapped bytes. Apart from the name of
+ * each player nothing is allocated per line. The lines which cannot be parsed
+ * are reported with their offsets in the returned Roster, the others are still
+ * loaded.
+ *
+ * @author nibah
+ */
+public class RosterLoader {
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+    private static final int MAX_CHUNK_SIZE = 1 << 28;
+    private static final int MAX_STARS_DIGITS = 9;     // so that stars fit in an int
+    private static final PlayerPosition[] POSITIONS = PlayerPosition.values();
+    private static final byte[][] POSITION_NAMES = new byte[POSITIONS.length][];
+            /* the lower case names of the player positions */
+    static {
+        for (int i = 0; i < POSITIONS.length; i++)
+            POSITION_NAMES[i] = POSITIONS[i].name().toLowerCase(Locale.ROOT)
+                    .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private final PlayerStore store;
+    private final ForkJoinPool pool;
+
+    /** Constructs a RosterLoader parsing on the common ForkJoinPool.
+     *
+     * @param store     the store the players are added to
+     * @throws IllegalArgumentException if store is null
+     */
+    public RosterLoader(PlayerStore store) {
+        this(store, ForkJoinPool.commonPool());
+    }
+
+    /** Constructs a RosterLoader parsing on the given pool.
+     *
+     * @param store     the store the players are added to
+     * @param pool      the pool the chunks are parsed on
+     * @throws IllegalArgumentException if at least one of the parameters is null
+     */
+    public RosterLoader(PlayerStore store, ForkJoinPool pool) {
+        if (store == null || pool == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        this.store = store;
+        this.pool = pool;
+    }
+
+    /** Loads all of the players of a roster file into the store. Every line
+     * gets an id reserved in the store, in the order of the file; the ids of
+     * blank and malformed lines stay unused.
+     *
+     * @param file      the roster file
+     * @return the ids of the loaded players and the malformed lines
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if file is null
+     */
+    public Roster load(Path file) throws IOException {
+        if (file == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Chunk[] chunks = split(channel);
+            try {
+                pool.invoke(new ChunkTask(channel, chunks, 0, chunks.length, 0, null));
+                long lines = 0;
+                for (Chunk chunk : chunks) {
+                    chunk.firstLine = lines;
+                    lines += chunk.lines;
+                }
+                if (lines > Integer.MAX_VALUE)
+                    throw new IOException("Too many lines in " + file);
+                int firstId = store.reserve((int) lines);
+                int[] ids = new int[(int) lines];
+                pool.invoke(new ChunkTask(channel, chunks, 0, chunks.length, firstId, ids));
+                return collect(ids, chunks);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /* Splits the file into chunks, each of them starting at the beginning of a line */
+    private Chunk[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long count = Math.max(
+                (long) pool.getParallelism() * 4,
+                (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        count = Math.max(1, Math.min(count, (size + MIN_CHUNK_SIZE - 1) / MIN_CHUNK_SIZE));
+        Chunk[] chunks = new Chunk[(int) count];
+        ByteBuffer probe = ByteBuffer.allocate(256);
+        long start = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            long end = i == chunks.length - 1 ? size
+                    : Math.max(start, nextLine(channel, size * (i + 1) / count, probe));
+            if (end - start > Integer.MAX_VALUE)
+                throw new IOException("Line longer than " + Integer.MAX_VALUE + " bytes at offset " + start);
+            chunks[i] = new Chunk(start, (int) (end - start));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /* Returns the offset of the first line starting after position */
+    private static long nextLine(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        if (position == 0)
+            return 0;
+        position--;     // a line starting right at position is fine as well
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read < 0)
+                return position;
+            for (int i = 0; i < read; i++)
+                if (probe.get(i) == '\n')
+                    return position + i + 1;
+            position += read;
+        }
+    }
+
+    private Roster collect(int[] ids, Chunk[] chunks) {
+        int loaded = 0;
+        for (int id : ids)
+            if (id >= 0)
+                ids[loaded++] = id;
+        List<MalformedLine> malformed = new ArrayList<>();
+        for (Chunk chunk : chunks)
+            if (chunk.malformed != null)
+                malformed.addAll(chunk.malformed);
+        return new Roster(store, Arrays.copyOf(ids, loaded), malformed);
+    }
+
+    /** A line-aligned part of the file */
+    private static final class Chunk {
+        final long start;
+        final int length;
+        MappedByteBuffer buffer;
+        int lines;                      // number of lines, counted in the first pass
+        long firstLine;                 // index of the first line within the file
+        List<MalformedLine> malformed;  // null until a malformed line is found
+
+        Chunk(long start, int length) {
+            this.start = start;
+            this.length = length;
+        }
+    }
+
+    /** Maps and counts the lines of a range of chunks, or parses them if the
+     * ids are given.
+     */
+    private final class ChunkTask extends RecursiveAction {
+        private final FileChannel channel;
+        private final Chunk[] chunks;
+        private final int from, to;
+        private final int firstId;
+        private final int[] ids;        // null in the counting pass
+
+        ChunkTask(FileChannel channel, Chunk[] chunks, int from, int to, int firstId, int[] ids) {
+            this.channel = channel;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.firstId = firstId;
+            this.ids = ids;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkTask(channel, chunks, from, mid, firstId, ids),
+                        new ChunkTask(channel, chunks, mid, to, firstId, ids));
+                return;
+            }
+            if (from == to)
+                return;
+            Chunk chunk = chunks[from];
+            try {
+                if (ids == null)
+                    count(chunk);
+                else
+                    parse(chunk);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void count(Chunk chunk) throws IOException {
+            if (chunk.length == 0)
+                return;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.length);
+            int lines = 0;
+            for (int i = 0; i < chunk.length; i++)
+                if (buffer.get(i) == '\n')
+                    lines++;
+            if (buffer.get(chunk.length - 1) != '\n')
+                lines++;
+            chunk.buffer = buffer;
+            chunk.lines = lines;
+        }
+
+        private void parse(Chunk chunk) {
+            MappedByteBuffer buffer = chunk.buffer;
+            byte[] name = new byte[64];
+            int lineStart = 0;
+            for (int line = 0; line < chunk.lines; line++) {
+                int lineEnd = lineStart;
+                while (lineEnd < chunk.length && buffer.get(lineEnd) != '\n')
+                    lineEnd++;
+                int index = (int) (chunk.firstLine + line);
+                ids[index] = -1;
+
+                int end = lineEnd;
+                if (end > lineStart && buffer.get(end - 1) == '\r')
+                    end--;
+                // name
+                int i = skipBlanks(buffer, lineStart, end);
+                int nameStart = i;
+                i = skipToken(buffer, i, end);
+                int nameEnd = i;
+                // player position
+                i = skipBlanks(buffer, i, end);
+                int positionStart = i;
+                i = skipToken(buffer, i, end);
+                int positionEnd = i;
+                // stars
+                i = skipBlanks(buffer, i, end);
+                int starsStart = i;
+                i = skipToken(buffer, i, end);
+                int starsEnd = i;
+                i = skipBlanks(buffer, i, end);
+
+                String reason = null;
+                PlayerPosition position = null;
+                int stars = -1;
+                if (nameStart == nameEnd) {
+                    lineStart = lineEnd + 1;
+                    continue;   // blank line
+                } else if (starsStart == starsEnd || i != end)
+                    reason = "expected name, player position and stars";
+                else if ((position = position(buffer, positionStart, positionEnd)) == null)
+                    reason = "unknown player position";
+                else if ((stars = stars(buffer, starsStart, starsEnd)) < 0)
+                    reason = "stars should be a non-negative integer";
+
+                if (reason != null) {
+                    if (chunk.malformed == null)
+                        chunk.malformed = new ArrayList<>();
+                    chunk.malformed.add(new MalformedLine(chunk.start + lineStart, index + 1L, reason));
+                } else {
+                    int length = nameEnd - nameStart;
+                    if (length > name.length)
+                        name = new byte[Math.max(length, name.length * 2)];
+                    for (int k = 0; k < length; k++)
+                        name[k] = buffer.get(nameStart + k);
+                    int id = firstId + index;
+                    store.set(id, new String(name, 0, length, StandardCharsets.UTF_8), position, stars);
+                    ids[index] = id;
+                }
+                lineStart = lineEnd + 1;
+            }
+            chunk.buffer = null;
+        }
+    }
+
+    private static int skipBlanks(ByteBuffer buffer, int i, int end) {
+        while (i < end && isBlank(buffer.get(i)))
+            i++;
+        return i;
+    }
+
+    private static int skipToken(ByteBuffer buffer, int i, int end) {
+        while (i < end && !isBlank(buffer.get(i)))
+            i++;
+        return i;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    /* Returns the player position named by the bytes, ignoring case, or null */
+    private static PlayerPosition position(ByteBuffer buffer, int start, int end) {
+        outer:
+        for (int p = 0; p < POSITION_NAMES.length; p++) {
+            byte[] positionName = POSITION_NAMES[p];
+            if (positionName.length != end - start)
+                continue;
+            for (int k = 0; k < positionName.length; k++) {
+                byte b = buffer.get(start + k);
+                if (b >= 'A' && b <= 'Z')
+                    b += 'a' - 'A';
+                if (b != positionName[k])
+                    continue outer;
+            }
+            return POSITIONS[p];
+        }
+        return null;
+    }
+
+    /* Returns the number written in the bytes, or -1 if they are no number */
+    private static int stars(ByteBuffer buffer, int start, int end) {
+        if (end - start > MAX_STARS_DIGITS)
+            return -1;
+        int stars = 0;
+        for (int k = start; k < end; k++) {
+            byte b = buffer.get(k);
+            if (b < '0' || b > '9')
+                return -1;
+            stars = stars * 10 + b - '0';
+        }
+        return stars;
+    }
+}
@@ -0,0 +1,119 @@
+package match.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import match.FieldPosition;
+import match.MatchTactic;
+import match.Player;
+import match.PlayerPosition;
+import match.Team;
+
+/** A fixture submitted to the MatchService. The JSON object has the form
+ *
+ *   {"home":  {"name": "Avas Alpacas",
+ *              "players": [{"name": "Ava", "position": "GOALIE", "stars": 4}, ...]},
+ *    "guest": {...},
+ *    "homeTactic":  [{"player": 0, "position": "GOALIE"}, ...],
+ *    "guestTactic": [...],
+ *    "seed": 42}
+ *
+ * where "player" is the index of a player in the players of the team and
+ * "seed" is optional. Positions are case-insensitive.
+ *
+ * @author nibah
+ */
+final class FixtureRequest {
+    final Team home;
+    final Team guest;
+    final MatchTactic homeTactic;
+    final MatchTactic guestTactic;
+    final Long seed;                // null if the match should get a random seed
+
+    private FixtureRequest(Team home, Team guest, MatchTactic homeTactic,
+            MatchTactic guestTactic, Long seed) {
+        this.home = home;
+        this.guest = guest;
+        this.homeTactic = homeTactic;
+        this.guestTactic = guestTactic;
+        this.seed = seed;
+    }
+
+    /** Builds the teams and tactics of a fixture from its parsed JSON object.
+     *
+     * @param json      the parsed fixture
+     * @return the fixture
+     * @throws IllegalArgumentException if the fixture is not complete
+     */
+    static FixtureRequest decode(Object json) {
+        Map<?, ?> fixture = object(json, "fixture");
+        Team home = team(object(fixture.get("home"), "home"));
+        Team guest = team(object(fixture.get("guest"), "guest"));
+        MatchTactic homeTactic = tactic(home, list(fixture.get("homeTactic"), "homeTactic"));
+        MatchTactic guestTactic = tactic(guest, list(fixture.get("guestTactic"), "guestTactic"));
+        Object seed = fixture.get("seed");
+        if (seed != null && !(seed instanceof Long))
+            throw new IllegalArgumentException("seed should be an integer");
+        return new FixtureRequest(home, guest, homeTactic, guestTactic, (Long) seed);
+    }
+
+    private static Team team(Map<?, ?> json) {
+        Object name = json.get("name");
+        if (!(name instanceof String))
+            throw new IllegalArgumentException("a team needs a name");
+        List<?> players = list(json.get("players"), "players");
+        Player[] squad = new Player[players.size()];
+        for (int i = 0; i < squad.length; i++) {
+            Map<?, ?> player = object(players.get(i), "player");
+            Object playerName = player.get("name");
+            if (!(playerName instanceof String))
+                throw new IllegalArgumentException("a player needs a name");
+            squad[i] = new Player((String) playerName,
+                    position(PlayerPosition.class, player.get("position")),
+                    (int) integer(player.get("stars"), "stars", 0, Integer.MAX_VALUE));
+        }
+        return new Team((String) name, squad);
+    }
+
+    private static MatchTactic tactic(Team team, List<?> json) {
+        Player[] players = team.getPlayers();
+        Map<Player, FieldPosition> formation = new LinkedHashMap<>();
+        for (Object element : json) {
+            Map<?, ?> entry = object(element, "tactic entry");
+            int index = (int) integer(entry.get("player"), "player", 0, players.length - 1);
+            if (formation.put(players[index], position(FieldPosition.class, entry.get("position"))) != null)
+                throw new IllegalArgumentException("player " + index + " of " + team.getName()
+                        + " is listed twice");
+        }
+        return new MatchTactic(formation);
+    }
+
+    private static <E extends Enum<E>> E position(Class<E> type, Object json) {
+        if (!(json instanceof String))
+            throw new IllegalArgumentException("a position needs to be a string");
+        try {
+            return Enum.valueOf(type, ((String) json).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown position " + json);
+        }
+    }
+
+    private static long integer(Object json, String name, long min, long max) {
+        if (!(json instanceof Long) || (Long) json < min || (Long) json > max)
+            throw new IllegalArgumentException(name + " should be an integer between " + min + " and " + max);
+        return (Long) json;
+    }
+
+    private static Map<?, ?> object(Object json, String name) {
+        if (!(json instanceof Map))
+            throw new IllegalArgumentException(name + " should be an object");
+        return (Map<?, ?>) json;
+    }
+
+    private static List<?> list(Object json, String name) {
+        if (!(json instanceof List))
+            throw new IllegalArgumentException(name + " should be an array");
+        return (List<?>) json;
+    }
+}
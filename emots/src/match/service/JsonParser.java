@@ -0,0 +1,224 @@
+package match.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** A small parser for the JSON requests of the MatchService. Objects are
+ * parsed into a Map<String, Object>, arrays into a List<Object>, strings into
+ * String, integral numbers into Long and other numbers into Double. Nesting is
+ * limited to MAX_DEPTH levels.
+ *
+ * @author nibah
+ */
+final class JsonParser {
+    static final int MAX_DEPTH = 32;
+
+    private final String text;
+    private int position;
+    private int depth;
+
+    private JsonParser(String text) {
+        this.text = text;
+    }
+
+    /** Parses a JSON document.
+     *
+     * @param text      the document
+     * @return the parsed value
+     * @throws IllegalArgumentException if the text is no valid JSON
+     */
+    static Object parse(String text) {
+        JsonParser parser = new JsonParser(text);
+        Object value = parser.value();
+        parser.skipWhitespace();
+        if (parser.position != text.length())
+            throw parser.error("unexpected content after the JSON value");
+        return value;
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if (position >= text.length())
+            throw error("unexpected end of the input");
+        char c = text.charAt(position);
+        switch (c) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9'))
+                    return number();
+                throw error("unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> object() {
+        enter();
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            depth--;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"')
+                throw error("expected a string as the name of a member");
+            String name = string();
+            skipWhitespace();
+            expect(':');
+            object.put(name, value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+                continue;
+            }
+            expect('}');
+            depth--;
+            return object;
+        }
+    }
+
+    private List<Object> array() {
+        enter();
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            depth--;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+                continue;
+            }
+            expect(']');
+            depth--;
+            return array;
+        }
+    }
+
+    private String string() {
+        position++;
+        StringBuilder s = new StringBuilder();
+        while (true) {
+            if (position >= text.length())
+                throw error("unterminated string");
+            char c = text.charAt(position++);
+            if (c == '"')
+                return s.toString();
+            if (c < 0x20)
+                throw error("control character in string");
+            if (c != '\\') {
+                s.append(c);
+                continue;
+            }
+            if (position >= text.length())
+                throw error("unterminated string");
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/': s.append(escaped); break;
+                case 'b': s.append('\b'); break;
+                case 'f': s.append('\f'); break;
+                case 'n': s.append('\n'); break;
+                case 'r': s.append('\r'); break;
+                case 't': s.append('\t'); break;
+                case 'u':
+                    if (position + 4 > text.length())
+                        throw error("invalid unicode escape");
+                    try {
+                        s.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("invalid unicode escape");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    throw error("invalid escape character '" + escaped + "'");
+            }
+        }
+    }
+
+    private Object number() {
+        int start = position;
+        boolean integral = true;
+        if (peek() == '-')
+            position++;
+        digits();
+        if (peek() == '.') {
+            integral = false;
+            position++;
+            digits();
+        }
+        if (peek() == 'e' || peek() == 'E') {
+            integral = false;
+            position++;
+            if (peek() == '+' || peek() == '-')
+                position++;
+            digits();
+        }
+        String number = text.substring(start, position);
+        try {
+            return integral ? (Object) Long.parseLong(number) : (Object) Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error("invalid number " + number);
+        }
+    }
+
+    private void digits() {
+        int start = position;
+        while (peek() >= '0' && peek() <= '9')
+            position++;
+        if (position == start)
+            throw error("expected a digit");
+    }
+
+    private Object literal(String literal, Object value) {
+        if (!text.startsWith(literal, position))
+            throw error("invalid literal");
+        position += literal.length();
+        return value;
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH)
+            throw error("too deeply nested");
+    }
+
+    private void expect(char c) {
+        if (peek() != c)
+            throw error("expected '" + c + "'");
+        position++;
+    }
+
+    /* Returns the current character, or 0 at the end of the input */
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r')
+                return;
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid JSON at offset " + position + ": " + message);
+    }
+}
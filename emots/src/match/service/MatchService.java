@@ -0,0 +1,362 @@
+package match.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import match.FieldPosition;
+import match.Match;
+import match.MatchEventController;
+import match.MatchRules;
+import match.MatchTactic;
+import match.SplittableRandomSource;
+import match.StandardMatchRules;
+import match.ValidationResult;
+import match.metrics.LatencyHistogram;
+import match.metrics.MatchMetrics;
+import match.report.MatchReportWriter;
+import match.report.ReportFormat;
+import match.standard.StandardMatchEventController;
+import match.standard.events.HomeVersusGuest;
+import match.standard.events.Penalty;
+import match.standard.events.RedCard;
+
+/** A local HTTP service playing matches, built on the JDK's HTTP server. It
+ * only listens on the loopback address. Every request is handled on a virtual
+ * thread if the running JVM offers them, otherwise on a cached thread pool.
+ *
+ * Endpoints:
+ *   POST /match     plays a single fixture (see FixtureRequest) and returns its
+ *                   result as JSON, or the full report with ?report=full
+ *   POST /matches   plays a JSON array of fixtures in parallel and returns an
+ *                   array of the results
+ *   GET  /metrics   returns the latency percentiles of both endpoints in
+ *                   microseconds
+ *
+ * Both tactics of every fixture are checked with MatchRules.validate
+ * before anything is played. If one of them is illegal, nothing is played and
+ * the service answers with status 422 and the rule violations.
+ *
+ * When started with main, the timings of the phases and events of all
+ * matches played are also available over JMX as MatchMetrics.OBJECT_NAME.
+ *
+ * @author nibah
+ */
+public class MatchService {
+    /** The maximal size of a request body in bytes */
+    public static final int MAX_BODY_SIZE = 1 << 24;
+    /** The maximal number of fixtures of a batch */
+    public static final int MAX_BATCH_SIZE = 10000;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Supplier<? extends MatchRules> rulesFactory;
+            /* supplies the rules for every single match */
+    private final Supplier<? extends MatchEventController> controllerFactory;
+            /* creates the event controller for every single match */
+    private final LatencyHistogram matchLatency = new LatencyHistogram();
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+
+    /** Constructs a service listening on the given port of the loopback
+     * address. The service does not accept requests before start() is called.
+     *
+     * @param port                  the port, or 0 for any free port
+     * @param rulesFactory          supplies the MatchRules of each match, which
+     *                              may be one shared instance
+     * @param controllerFactory     creates a new MatchEventController for each match
+     * @throws IOException if the port cannot be bound
+     * @throws IllegalArgumentException if at least one of the factories is null
+     */
+    public MatchService(int port, Supplier<? extends MatchRules> rulesFactory,
+            Supplier<? extends MatchEventController> controllerFactory) throws IOException {
+        if (rulesFactory == null || controllerFactory == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        this.rulesFactory = rulesFactory;
+        this.controllerFactory = controllerFactory;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/match", exchange -> serve(exchange, "POST", matchLatency, this::playMatch));
+        server.createContext("/matches", exchange -> serve(exchange, "POST", batchLatency, this::playMatches));
+        server.createContext("/metrics", exchange -> serve(exchange, "GET", null, this::metrics));
+    }
+
+    /* Returns an executor starting a virtual thread per task, falling back to
+       a cached thread pool on JVMs without virtual threads */
+    static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "match-service");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /** Starts accepting requests. */
+    public void start() {
+        server.start();
+    }
+
+    /** Stops the service, waiting at most the given number of seconds for the
+     * requests being handled.
+     *
+     * @param delay     the maximal time to wait in seconds
+     */
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delay, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     *
+     * @return the port the service is listening on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     *
+     * @return the latencies of the requests to /match in nanoseconds
+     */
+    public LatencyHistogram getMatchLatency() {
+        return matchLatency;
+    }
+
+    /**
+     *
+     * @return the latencies of the requests to /matches in nanoseconds
+     */
+    public LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
+
+    /** Handles a request to an endpoint and answers with a JSON body. */
+    private interface Endpoint {
+        /* Appends the answer to out and returns the HTTP status */
+        int handle(HttpExchange exchange, Object request, StringBuilder out) throws IOException;
+    }
+
+    private void serve(HttpExchange exchange, String method, LatencyHistogram latency,
+            Endpoint endpoint) throws IOException {
+        long start = System.nanoTime();
+        StringBuilder out = new StringBuilder();
+        int status;
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                status = error(out, 405, "use " + method);
+            } else if (!method.equals("POST")) {
+                status = endpoint.handle(exchange, null, out);
+            } else {
+                String body = readBody(exchange.getRequestBody());
+                if (body == null) {
+                    status = error(out, 413, "the request body is larger than " + MAX_BODY_SIZE + " bytes");
+                } else {
+                    Object request = JsonParser.parse(body);
+                    if (request == null)
+                        throw new IllegalArgumentException("the request body should not be null");
+                    status = endpoint.handle(exchange, request, out);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            out.setLength(0);
+            // not every IllegalArgumentException has a message
+            status = error(out, 400, e.getMessage() != null ? e.getMessage() : String.valueOf(e));
+        } catch (RuntimeException e) {
+            out.setLength(0);
+            status = error(out, 500, String.valueOf(e));
+        }
+        byte[] response = out.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, response.length == 0 ? -1 : response.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(response);
+        }
+        if (latency != null)
+            latency.record(System.nanoTime() - start);
+    }
+
+    /* Reads the request body, or returns null if it is too large */
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int read; (read = in.read(buffer)) >= 0;) {
+            if (body.size() + read > MAX_BODY_SIZE)
+                return null;
+            body.write(buffer, 0, read);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private int playMatch(HttpExchange exchange, Object request, StringBuilder out) throws IOException {
+        boolean report = isFullReport(exchange);
+        Match match = createMatch(FixtureRequest.decode(request), report);
+        List<String> violations = new ArrayList<>();
+        if (!validate(match, violations, ""))
+            return violations(out, violations);
+        match.play();
+        MatchReportWriter writer = new MatchReportWriter(out, ReportFormat.JSON);
+        if (report)
+            writer.writeMatch(match);
+        else
+            writer.writeResult(match.getResult());
+        return 200;
+    }
+
+    private int playMatches(HttpExchange exchange, Object request, StringBuilder out) throws IOException {
+        if (!(request instanceof List))
+            throw new IllegalArgumentException("expected an array of fixtures");
+        List<?> fixtures = (List<?>) request;
+        if (fixtures.size() > MAX_BATCH_SIZE)
+            return error(out, 413, "a batch is limited to " + MAX_BATCH_SIZE + " fixtures");
+        boolean report = isFullReport(exchange);
+        Match[] matches = new Match[fixtures.size()];
+        List<String> violations = new ArrayList<>();
+        boolean legal = true;
+        for (int i = 0; i < matches.length; i++) {
+            matches[i] = createMatch(FixtureRequest.decode(fixtures.get(i)), report);
+            legal &= validate(matches[i], violations, "fixture " + i + ": ");
+        }
+        if (!legal)
+            return violations(out, violations);
+        Arrays.stream(matches).parallel().forEach(Match::play);
+        MatchReportWriter writer = new MatchReportWriter(out, ReportFormat.JSON);
+        out.append('[');
+        for (int i = 0; i < matches.length; i++) {
+            if (i > 0)
+                out.append(',');
+            if (report)
+                writer.writeMatch(matches[i]);
+            else
+                writer.writeResult(matches[i].getResult());
+        }
+        out.append(']');
+        return 200;
+    }
+
+    private int metrics(HttpExchange exchange, Object request, StringBuilder out) {
+        out.append("{\"match\":");
+        appendLatency(out, matchLatency);
+        out.append(",\"matches\":");
+        appendLatency(out, batchLatency);
+        out.append('}');
+        return 200;
+    }
+
+    private static void appendLatency(StringBuilder out, LatencyHistogram latency) {
+        out.append("{\"count\":").append(latency.getCount());
+        for (double percentile : PERCENTILES)
+            out.append(",\"p").append(percentile == (int) percentile
+                    ? Integer.toString((int) percentile) : Double.toString(percentile).replace(".", ""))
+               .append("\":").append(TimeUnit.NANOSECONDS.toMicros(latency.getPercentile(percentile)));
+        out.append(",\"max\":").append(TimeUnit.NANOSECONDS.toMicros(latency.getMax())).append('}');
+    }
+
+    private static boolean isFullReport(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getQuery();
+        return query != null && Arrays.asList(query.split("&")).contains("report=full");
+    }
+
+    private Match createMatch(FixtureRequest fixture, boolean recording) {
+        Match match = new Match(fixture.home, fixture.guest, fixture.homeTactic, fixture.guestTactic,
+                rulesFactory.get(), controllerFactory.get(),
+                fixture.seed == null ? new SplittableRandomSource() : new SplittableRandomSource(fixture.seed));
+        match.setRecording(recording);
+        return match;
+    }
+
+    /* Checks both tactics of a match and adds a message for every violation */
+    private boolean validate(Match match, List<String> violations, String prefix) {
+        return validate(match.getMatchRules(), match.getHomeTactic(), violations, prefix + "home: ")
+             & validate(match.getMatchRules(), match.getGuestTactic(), violations, prefix + "guest: ");
+    }
+
+    private static boolean validate(MatchRules rules, MatchTactic tactic, List<String> violations, String prefix) {
+        ValidationResult result = rules.validate(tactic);
+        if (result.isLegal())
+            return true;
+        for (String message : result.getMessages(tactic))
+            violations.add(prefix + message);
+        return false;
+    }
+
+    private static int violations(StringBuilder out, List<String> violations) {
+        out.append("{\"error\":\"illegal tactic\",\"violations\":[");
+        for (int i = 0; i < violations.size(); i++) {
+            if (i > 0)
+                out.append(',');
+            appendString(out, violations.get(i));
+        }
+        out.append("]}");
+        return 422;
+    }
+
+    private static int error(StringBuilder out, int status, String message) {
+        out.append("{\"error\":");
+        appendString(out, message);
+        out.append('}');
+        return status;
+    }
+
+    private static void appendString(StringBuilder out, String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+                out.append('\\').append(c);
+            else if (c < 0x20)
+                out.append(String.format("\\u%04x", (int) c));
+            else
+                out.append(c);
+        }
+        out.append('"');
+    }
+
+    /** Starts a service with the standard rules and events on the port given
+     * as the first argument (8080 by default).
+     *
+     * @param args      the port
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        StandardMatchRules rules = new StandardMatchRules();
+        MatchService service = new MatchService(port, () -> rules, () -> {
+            StandardMatchEventController controller = new StandardMatchEventController();
+            controller.addEvent(new HomeVersusGuest("Attack", "", FieldPosition.ATTACKER, FieldPosition.DEFENDER));
+            controller.addEvent(new HomeVersusGuest("Counter", "", FieldPosition.DEFENDER, FieldPosition.ATTACKER));
+            controller.addEvent(new HomeVersusGuest("Midfield", "", FieldPosition.MIDFIELDER, FieldPosition.MIDFIELDER));
+            controller.addEvent(new HomeVersusGuest("Team", "", FieldPosition.PLAYER, FieldPosition.PLAYER));
+            controller.addEvent(new Penalty("Penalty", ""));
+            controller.addEvent(new RedCard("Red Card", ""));
+            return controller;
+        });
+        MatchMetrics.register();
+        service.start();
+        System.out.println("Match service listening on http://127.0.0.1:" + service.getPort() + "/");
+    }
+}
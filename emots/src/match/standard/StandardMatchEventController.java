@@ -1,13 +1,16 @@
 package match.standard;
 
-import java.util.Date;
-import java.util.HashSet;
-import java.util.Random;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import match.MatchEvent;
 import match.MatchEventController;
+import match.RandomSource;
+import match.SplittableRandomSource;
 
-/**Represents the standard match event controller
+/**Represents the standard match event controller. Every MatchEvent in the Set
+ * has the same chance to be rolled.
  *
  * @author DamnMyCode
  */
@@ -15,23 +18,25 @@ public class StandardMatchEventController implements MatchEventController{
 
     private Set<MatchEvent> events;
     private int numberOfEvents;
-    private Date date = new Date();
-    private Random rand = new Random(date.getTime());
+    private MatchEvent[] eventArray;    // the events in the iteration order of the Set
+    private RandomSource rand = new SplittableRandomSource();
     
     public StandardMatchEventController(Set<MatchEvent> events){
         this.events = events;
-        numberOfEvents = events.size();
+        update();
     }
     
-    /**Creates a StandardMatchEventController without any Events.
+    /**Creates a StandardMatchEventController without any Events. Events are
+     * rolled in the order they were added.
      * 
      */
     public StandardMatchEventController(){
-        events = new HashSet<>();
-        numberOfEvents = 0;
+        events = new LinkedHashSet<>();
+        update();
     }
     
-    /**
+    /**The returned Set should not be modified directly. If it is, setEvents()
+     * has to be called afterwards.
      * 
      * @return              Returns a Set of the contained Events.
      */
@@ -56,7 +61,7 @@ public class StandardMatchEventController implements MatchEventController{
      */
     public void setEvents(Set<MatchEvent> events){
         this.events = events;
-        numberOfEvents = events.size();
+        update();
     }
     
     /**Adds an Event to the Set of MatchEvents.
@@ -65,7 +70,7 @@ public class StandardMatchEventController implements MatchEventController{
      */
     public void addEvent(MatchEvent event){
         events.add(event);
-        numberOfEvents++;
+        update();
     }
     
     /**Removes an Event from the Set of MatchEvents.
@@ -75,9 +80,16 @@ public class StandardMatchEventController implements MatchEventController{
     public void removeEvent(MatchEvent event){
         if(!events.contains(event))
             throw new NoSuchEventException("There is no such MatchEvent in this Set of Events.");
-        else
-            events.remove(event);
-            numberOfEvents--;
+        events.remove(event);
+        update();
+    }
+    
+    /**Copies the Set of MatchEvents into the array used by rollEvent(), so
+     * rolling does not have to copy the Set every round.
+     */
+    private void update(){
+        eventArray = events.toArray(new MatchEvent[0]);
+        numberOfEvents = eventArray.length;
     }
     
     /**
@@ -86,8 +98,30 @@ public class StandardMatchEventController implements MatchEventController{
      */
     @Override
     public MatchEvent rollEvent() {
-        int i = rand.nextInt(numberOfEvents);
-        return events.toArray(new MatchEvent[0])[i];
+        return rollEvent(rand);
+    }
+    
+    /**
+     * 
+     * @param random        The source of the random draw.
+     * @return              Returns a random MatchEvent from the Set of MatchEvents.
+     */
+    @Override
+    public MatchEvent rollEvent(RandomSource random) {
+        int i = random.nextInt(numberOfEvents);
+        return eventArray[i];
+    }
+    
+    /**
+     * 
+     * @return              Returns every MatchEvent mapped to 1 / the number of events.
+     */
+    @Override
+    public Map<MatchEvent, Double> getProbabilities() {
+        Map<MatchEvent, Double> probabilities = new LinkedHashMap<>();
+        for (MatchEvent event : eventArray)
+            probabilities.put(event, 1.0 / numberOfEvents);
+        return probabilities;
     }
 
 }
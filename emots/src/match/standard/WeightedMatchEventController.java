@@ -0,0 +1,264 @@
+package match.standard;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import match.MatchEvent;
+import match.MatchEventController;
+import match.RandomSource;
+import match.RecordingRandomSource;
+import match.ReplayRandomSource;
+import match.SplittableRandomSource;
+
+/**Represents a match event controller in which every MatchEvent has its own
+ * weight. The chance of an event to be rolled is its weight divided by the sum
+ * of all weights. Rolling takes constant time: the weights are turned into an
+ * alias table (Vose's method) whenever the events change. Events are kept in
+ * the order they were added.
+ * 
+ * The controller can be shared by parallel matches as long as it is not
+ * modified while they are running.
+ *
+ * @author nibah
+ */
+public class WeightedMatchEventController implements MatchEventController {
+    private static final int PRECISION = 1 << 30;
+            /* resolution of the alias thresholds: a column keeps its own event
+               with probability threshold / PRECISION */
+    
+    private final Map<MatchEvent, Double> weights;  // every event mapped to its weight
+    private MatchEvent[] table;     // the events, one column each
+    private int[] threshold;        // chance of a column to keep its own event
+    private int[] alias;            // the column whose event is rolled otherwise
+    private RandomSource rand = new SplittableRandomSource();
+    
+    /**Creates a WeightedMatchEventController without any Events.
+     * 
+     */
+    public WeightedMatchEventController(){
+        weights = new LinkedHashMap<>();
+        update();
+    }
+    
+    /**Creates a WeightedMatchEventController with the given events.
+     * 
+     * @param events        every MatchEvent mapped to its weight
+     * @throws IllegalArgumentException if one of the weights is negative,
+     *                                  infinite or not a number
+     */
+    public WeightedMatchEventController(Map<MatchEvent, Double> events){
+        this();
+        setEvents(events);
+    }
+    
+    /**
+     * 
+     * @return              Returns an unmodifiable Set of the contained Events
+     *                      in the order they were added.
+     */
+    public Set<MatchEvent> getEvents(){
+        return Collections.unmodifiableSet(weights.keySet());
+    }
+    
+    /**
+     * 
+     * @param event         Any MatchEvent
+     * @return              True if event is contained in this controller, false if not.
+     */
+    public boolean containsEvent(MatchEvent event){
+        return weights.containsKey(event);
+    }
+    
+    /**
+     * 
+     * @param event         A contained MatchEvent
+     * @return              Returns the weight of the event.
+     * @throws NoSuchEventException if the event is not contained in this controller
+     */
+    public double getWeight(MatchEvent event){
+        Double weight = weights.get(event);
+        if (weight == null)
+            throw new NoSuchEventException("There is no such MatchEvent in this controller.");
+        return weight;
+    }
+    
+    /**Replaces all of the events of this controller.
+     * 
+     * @param events        every MatchEvent mapped to its weight
+     * @throws IllegalArgumentException if one of the weights is negative,
+     *                                  infinite or not a number
+     */
+    public void setEvents(Map<MatchEvent, Double> events){
+        if (events == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        for (Entry<MatchEvent, Double> entry : events.entrySet())
+            checkWeight(entry.getValue());
+        weights.clear();
+        weights.putAll(events);
+        update();
+    }
+    
+    /**Adds an Event with the weight 1. If the event is already contained,
+     * its weight is set to 1.
+     * 
+     * @param event         Any MatchEvent
+     */
+    public void addEvent(MatchEvent event){
+        addEvent(event, 1);
+    }
+    
+    /**Adds an Event with the given weight. If the event is already contained,
+     * its weight is replaced.
+     * 
+     * @param event         Any MatchEvent
+     * @param weight        the weight of the event
+     * @throws IllegalArgumentException if event is null or if the weight is
+     *                                  negative, infinite or not a number
+     */
+    public void addEvent(MatchEvent event, double weight){
+        if (event == null)
+            throw new IllegalArgumentException("null is not a valid parameter.");
+        checkWeight(weight);
+        weights.put(event, weight);
+        update();
+    }
+    
+    /**Removes an Event from this controller.
+     * 
+     * @param event         Any MatchEvent
+     * @throws NoSuchEventException if the event is not contained in this controller
+     */
+    public void removeEvent(MatchEvent event){
+        if (!weights.containsKey(event))
+            throw new NoSuchEventException("There is no such MatchEvent in this controller.");
+        weights.remove(event);
+        update();
+    }
+    
+    private static void checkWeight(Double weight){
+        if (weight == null || weight < 0 || weight.isInfinite() || weight.isNaN())
+            throw new IllegalArgumentException("A weight should be a non-negative number.");
+    }
+    
+    /**Builds the alias table from the weights using Vose's method.
+     */
+    private void update(){
+        int n = weights.size();
+        MatchEvent[] newTable = new MatchEvent[n];
+        double[] scaled = new double[n];
+        double sum = 0;
+        int i = 0;
+        for (Entry<MatchEvent, Double> entry : weights.entrySet()) {
+            newTable[i] = entry.getKey();
+            scaled[i] = entry.getValue();
+            sum += scaled[i];
+            i++;
+        }
+        int[] newThreshold = new int[n];
+        int[] newAlias = new int[n];
+        int[] small = new int[n];   // columns with less than the average weight
+        int[] large = new int[n];   // columns with at least the average weight
+        int smallSize = 0;
+        int largeSize = 0;
+        for (i = 0; i < n; i++) {
+            newAlias[i] = i;
+            scaled[i] = sum > 0 ? scaled[i] * n / sum : 0;
+            if (scaled[i] < 1)
+                small[smallSize++] = i;
+            else
+                large[largeSize++] = i;
+        }
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            newThreshold[less] = (int) Math.round(scaled[less] * PRECISION);
+            newAlias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1)
+                small[smallSize++] = more;
+            else
+                large[largeSize++] = more;
+        }
+        //Whatever is left over is (up to rounding errors) exactly full
+        while (largeSize > 0)
+            newThreshold[large[--largeSize]] = PRECISION;
+        while (smallSize > 0)
+            newThreshold[small[--smallSize]] = PRECISION;
+        
+        table = sum > 0 ? newTable : new MatchEvent[0];
+        threshold = newThreshold;
+        alias = newAlias;
+    }
+    
+    /**
+     * 
+     * @return              Returns a random MatchEvent according to the weights.
+     * @throws NoSuchEventException if there are no events with a positive weight
+     */
+    @Override
+    public MatchEvent rollEvent() {
+        return rollEvent(rand);
+    }
+    
+    /**Rolls a column of the alias table and, if the column is not full, a
+     * second time to decide between the column and its alias. If all weights
+     * are equal only one draw is made.
+     * 
+     * A RecordingRandomSource only logs the index of the rolled event, which
+     * a ReplayRandomSource gives back with a single draw, so a round takes
+     * one byte of the log instead of up to six.
+     * 
+     * @param random        The source of the random draws.
+     * @return              Returns a random MatchEvent according to the weights.
+     * @throws NoSuchEventException if there are no events with a positive weight
+     */
+    @Override
+    public MatchEvent rollEvent(RandomSource random) {
+        MatchEvent[] events = table;
+        if (events.length == 0)
+            throw new NoSuchEventException("There are no MatchEvents to roll.");
+        if (random instanceof ReplayRandomSource)
+            return events[random.nextInt(events.length)];
+        if (random instanceof RecordingRandomSource) {
+            RecordingRandomSource recording = (RecordingRandomSource) random;
+            int index = roll(recording.getSource(), events.length);
+            recording.record(index);
+            return events[index];
+        }
+        return events[roll(random, events.length)];
+    }
+    
+    /* Returns the index of the event rolled with the alias table */
+    private int roll(RandomSource random, int columns) {
+        int column = random.nextInt(columns);
+        int limit = threshold[column];
+        if (limit == PRECISION || random.nextInt(PRECISION) < limit)
+            return column;
+        return alias[column];
+    }
+    
+    /**Computes the chances from the alias table, so they are exactly the ones
+     * of rollEvent(RandomSource), which may differ from the normalized weights
+     * by rounding errors. Events with the weight 0 are left out.
+     * 
+     * @return              Returns every MatchEvent mapped to the probability
+     *                      of being rolled.
+     */
+    @Override
+    public Map<MatchEvent, Double> getProbabilities() {
+        MatchEvent[] events = table;
+        double[] chances = new double[events.length];
+        for (int column = 0; column < events.length; column++) {
+            double keep = (double) threshold[column] / PRECISION;
+            chances[column] += keep / events.length;
+            chances[alias[column]] += (1 - keep) / events.length;
+        }
+        Map<MatchEvent, Double> probabilities = new LinkedHashMap<>();
+        for (int column = 0; column < events.length; column++)
+            if (chances[column] > 0)
+                probabilities.put(events[column], chances[column]);
+        return probabilities;
+    }
+}
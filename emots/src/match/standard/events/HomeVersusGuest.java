@@ -4,7 +4,6 @@ import match.FieldPosition;
 import match.Match;
 import match.MatchEvent;
 import match.MatchTactic;
-import match.Player;
 
 /**Represents a standard MatchEvent in which either every player or those of specific FieldPositions of the home and guest teams will be compared. 
  *
@@ -48,6 +47,22 @@ public class HomeVersusGuest implements MatchEvent{
     public String getDescription() {
         return description;
     }
+    
+    /**
+     * 
+     * @return              Returns the FieldPosition of the home team involved in the comparison.
+     */
+    public FieldPosition getHomeFieldPosition() {
+        return homeFieldPosition;
+    }
+    
+    /**
+     * 
+     * @return              Returns the FieldPosition of the guest team involved in the comparison.
+     */
+    public FieldPosition getGuestFieldPosition() {
+        return guestFieldPosition;
+    }
 
     /**Executes event: compares number of stars of the teams on different/same 
      * FieldPositions and records scoring in match statistics.
@@ -58,32 +73,16 @@ public class HomeVersusGuest implements MatchEvent{
     public void execute(Match match) {
         MatchTactic homeTactic = match.getHomeTactic();
         MatchTactic guestTactic = match.getGuestTactic();
-        Player[] homePlayers = homeTactic.getPosition(homeFieldPosition);
-        Player[] guestPlayers = guestTactic.getPosition(guestFieldPosition);
-        int homeStarsInPosition = 0;
-        int guestStarsInPosition = 0;
-        
-        for(int i=0; i<homePlayers.length; i++){
-            homeStarsInPosition += homePlayers[i].getStars();
-        }
-        for(int i=0; i<guestPlayers.length; i++){
-            guestStarsInPosition += guestPlayers[i].getStars();
-        }
-        String message = "Home " + homeFieldPosition + "S(" +
-                         homeStarsInPosition + ") " +
-                         "VS Guest " + guestFieldPosition + "S(" +
-                         guestStarsInPosition + ")" + "\n";
+        int homeStarsInPosition = homeTactic.getStars(homeFieldPosition);
+        int guestStarsInPosition = guestTactic.getStars(guestFieldPosition);
+        match.getResult().getStatistics().getMatchMessages().logDuel(
+                match.getCurrentRound(), homeFieldPosition, guestFieldPosition,
+                homeStarsInPosition, guestStarsInPosition);
         if(homeStarsInPosition > guestStarsInPosition){
             match.getResult().getStatistics().homeScore();
-            message += "Home team scores.";
         }
         else if(guestStarsInPosition > homeStarsInPosition){
             match.getResult().getStatistics().guestScore();
-            message += "Guest team scores.";
-        }
-        else{
-            message += "No score.";
         }
-        match.getResult().getStatistics().getMatchMessages().addMessage(message);
     }
 }
@@ -1,11 +1,11 @@
 package match.standard.events;
 
-import java.util.Date;
-import java.util.Random;
 import match.FieldPosition;
 import match.Match;
 import match.MatchEvent;
+import match.MatchTactic;
 import match.Player;
+import match.RandomSource;
 
 /** Represents a standard match event in which the goalie of a team will be
  * compared with a randomly selected opposing player.
@@ -16,8 +16,6 @@ public class Penalty implements MatchEvent {
     private final Side side;                // the side of the team shooting the penalty
     private final String name;              // name of the event
     private final String description;       // a short description of the event
-    private final Date date = new Date();                       //used for randomisation
-    private final Random rand = new Random(date.getTime());     //used for randomisation
     
     /** Constructs a penalty event.
      * 
@@ -30,7 +28,7 @@ public class Penalty implements MatchEvent {
      * @throws IllegalArgumentException if at least one of the parameters is null
      */
     public Penalty(String name, String description, Side side){
-        if (name == null || description == null || Side == null)
+        if (name == null || description == null || side == null)
             throw new IllegalArgumentException("null is not a valid argument.");
         this.name = name;
         this.description = description;
@@ -67,7 +65,8 @@ public class Penalty implements MatchEvent {
      */
     public Side getSide() {return side;}
     /** Executes a penalty. A goalie from the defending team and an opposing player
-     * from the other team are randomly selected. If there are no suitable players,
+     * from the other team are randomly selected using the RandomSource of the
+     * match. If there are no suitable players,
      * an exception is thrown. This events modifies statistics of the Match specified
      * in the match argument accordingly.
      * 
@@ -83,6 +82,7 @@ public class Penalty implements MatchEvent {
         if (match == null)
             throw new IllegalArgumentException("null is not a valid argument");
         
+        RandomSource rand = match.getRandom();
         boolean homePenalty;
         switch (side) {
             case HOME        : homePenalty = true; break;
@@ -90,38 +90,32 @@ public class Penalty implements MatchEvent {
             case RANDOM      : //fall through
             default          : homePenalty = rand.nextBoolean();
         }
-        Player[] goalies = homePenalty ?
-                           match.getGuestTactic().getPosition(FieldPosition.GOALIE) :
-                           match.getHomeTactic().getPosition(FieldPosition.GOALIE);
-        Player[] shootingCandidates = homePenalty ?
-                                      match.getHomeTactic().getPlayers() :
-                                      match.getGuestTactic().getPlayers();
-        String message = (homePenalty ? "Home Penalty" : "Guest Penalty") + "\n";
+        MatchTactic defending = homePenalty ? match.getGuestTactic() : match.getHomeTactic();
+        MatchTactic shooting = homePenalty ? match.getHomeTactic() : match.getGuestTactic();
+        int goalies = defending.numberOf(FieldPosition.GOALIE, true);
+        int shootingCandidates = shooting.numberOfPlayers();
         
-        if (goalies.length == 0)
+        if (goalies == 0)
             throw new UnsupportedTacticException("The penalty cannot be executed. "
                     + "There are no goalies playing in the "
                     + (homePenalty? "guest" : "home") + " team.");
-        if (shootingCandidates.length == 0)
+        if (shootingCandidates == 0)
             throw new UnsupportedTacticException("The penalty cannot be executed. "
                     + "There are no players playing in the "
                     + (homePenalty? "home" : "guest") + " team.");
         
-        Player goalie = goalies.length == 1 ?
-                        goalies[0] :
-                        goalies[rand.nextInt(goalies.length)];
-        Player shooter = shootingCandidates[rand.nextInt(shootingCandidates.length)];
-        message += shooter.getNameStars() + " VS " + goalie.getNameStars() + "\n";
+        Player goalie = goalies == 1 ?
+                        defending.getPlayer(FieldPosition.GOALIE, 0) :
+                        defending.getPlayer(FieldPosition.GOALIE, rand.nextInt(goalies));
+        Player shooter = shooting.getPlayer(rand.nextInt(shootingCandidates));
+        match.getResult().getStatistics().getMatchMessages().logPenalty(
+                match.getCurrentRound(), homePenalty, shooter, goalie);
         if (shooter.getStars() > goalie.getStars()) {
             if (homePenalty) {
                 match.getResult().getStatistics().homeScore();
             } else {
                 match.getResult().getStatistics().guestScore();
             }
-            message += "Penalty successful";
-        } else {
-            message += "Penalty unsuccessful";
         }
-        match.getResult().getStatistics().getMatchMessages().addMessage(message);
     }
 }
@@ -1,10 +1,10 @@
 package match.standard.events;
 
-import java.util.Date;
-import java.util.Random;
 import match.Match;
 import match.MatchEvent;
+import match.MatchTactic;
 import match.Player;
+import match.RandomSource;
 
 /** Represents a hars foul where one of the players is penalized with a red card.
  *
@@ -14,8 +14,6 @@ public class RedCard implements MatchEvent {
     private final String name;          // the name of the event
     private final String description;   // a short textual description of the event
     private final Side side;            // the side of the team receiving the red card
-    private final Date date = new Date();                   // for randomisation
-    private final Random rand = new Random(date.getTime()); // for randomisation
     
     /** Constructs an event in which one of the players on the field is penalised
      * with a red card. It can be specified if the home or guest team should receive
@@ -63,11 +61,18 @@ public class RedCard implements MatchEvent {
     @Override
     public String getDescription() {return description;}
 
-    /** Penalises a random player on the field with a red card. If a certain side
+    /** Returns the side of the team receiving the red card
+     * 
+     * @return Side.HOME, Side.GUEST or Side.RANDOM
+     */
+    public Side getSide() {return side;}
+
+    /** Penalises a random player on the field with a red card. The player is
+     * selected using the RandomSource of the match. If a certain side
      * was specified in the constructor of this event, only players on that side
      * of the pitch can be penalised. This event updates the match statistics of the
-     * given Match accordingly and modifies the eligible status of the penalised
-     * player.
+     * given Match accordingly and sends the penalised player off. The player
+     * becomes uneligible once the suspensions of the match are applied.
      * 
      * @param match         the match this event should be executed on.
      * @throes IllegalArgumentException if the match parameter is null
@@ -77,6 +82,7 @@ public class RedCard implements MatchEvent {
         if (match == null)
             throw new IllegalArgumentException("null is not a valid argument.");
         
+        RandomSource rand = match.getRandom();
         boolean homeCard;
         switch (side) {
             case HOME       : homeCard = true; break;
@@ -84,13 +90,10 @@ public class RedCard implements MatchEvent {
             case RANDOM     : //fall through
             default         : homeCard = rand.nextBoolean(); break;
         }
-        Player[] players = homeCard ?
-                           match.getHomeTactic().getPlayers() :
-                           match.getGuestTactic().getPlayers();
-        Player penalised = players[rand.nextInt(players.length)];
-        penalised.setEligible(false);
-        String message = "Red Card" + "\n" +
-                         penalised.getName() + " has to leave the field.";
-        match.getResult().getStatistics().getMatchMessages().addMessage(message);
+        MatchTactic tactic = homeCard ? match.getHomeTactic() : match.getGuestTactic();
+        Player penalised = tactic.getPlayer(rand.nextInt(tactic.numberOfPlayers()));
+        match.sendOff(penalised);
+        match.getResult().getStatistics().getMatchMessages().logRedCard(
+                match.getCurrentRound(), homeCard, penalised);
     }
 }